@@ -85,6 +85,7 @@ public class SecurityConfig {
                 .requestMatchers(HttpMethod.GET, "/webinars", "/webinars/upcoming", "/webinars/*", "/webinars/**").permitAll()
                 .requestMatchers(HttpMethod.GET, "/api/webinars", "/api/webinars/upcoming", "/api/webinars/*", "/api/webinars/**").permitAll()
                 .requestMatchers("/help/**", "/api/help/**").permitAll()
+                .requestMatchers(HttpMethod.GET, "/search", "/api/search").permitAll()
                 .requestMatchers("/tin/**", "/api/tin/**").permitAll()
                 
                 // Dashboard endpoints - require authentication
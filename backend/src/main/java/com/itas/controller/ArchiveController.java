@@ -2,101 +2,125 @@ package com.itas.controller;
 
 import com.itas.dto.ApiResponse;
 import com.itas.model.ArchivedResource;
+import com.itas.model.Resource;
+import com.itas.model.User;
+import com.itas.repository.UserRepository;
+import com.itas.service.ArchiveService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 @RestController
 @RequestMapping("/archive")
 public class ArchiveController {
-    
-    private List<ArchivedResource> mockArchivedResources = new ArrayList<>();
-    
-    public ArchiveController() {
-        // Initialize mock archived resources
-        ArchivedResource resource1 = new ArchivedResource();
-        resource1.setId(1L);
-        resource1.setOriginalResourceId(100L);
-        resource1.setTitle("Old VAT Guide 2022");
-        resource1.setDescription("Outdated VAT guide");
-        resource1.setArchivedAt(LocalDateTime.now().minusDays(30));
-        resource1.setDeletionScheduledFor(LocalDateTime.now().plusDays(30));
-        resource1.setStatus("ARCHIVED");
-        
-        mockArchivedResources.add(resource1);
+
+    @Autowired
+    private ArchiveService archiveService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User getCurrentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated()) return null;
+        return userRepository.findByUsername(auth.getName()).orElse(null);
     }
-    
+
     @GetMapping("/resources")
     @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN')")
     public ResponseEntity<?> getArchivedResources() {
-        return ResponseEntity.ok(new ApiResponse<>("Archived resources retrieved", mockArchivedResources));
+        return ResponseEntity.ok(new ApiResponse<>("Archived resources retrieved", archiveService.getAllArchivedResources()));
     }
-    
+
     @PostMapping("/resources/{resourceId}")
+    @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN')")
     public ResponseEntity<?> archiveResource(
             @PathVariable Long resourceId,
-            @RequestBody Map<String, String> request) {
-        
-        ArchivedResource archivedResource = new ArchivedResource();
-        archivedResource.setId(System.currentTimeMillis());
-        archivedResource.setOriginalResourceId(resourceId);
-        archivedResource.setTitle("Archived Resource #" + resourceId);
-        archivedResource.setDescription("Resource archived by admin");
-        archivedResource.setArchivedAt(LocalDateTime.now());
-        
-        String scheduleDeletion = request.get("scheduleDeletion");
-        if (scheduleDeletion != null) {
-            archivedResource.setDeletionScheduledFor(LocalDateTime.parse(scheduleDeletion));
-        } else {
-            archivedResource.setDeletionScheduledFor(LocalDateTime.now().plusDays(30));
+            @RequestBody(required = false) Map<String, String> request) {
+        Map<String, String> body = request != null ? request : Map.of();
+        LocalDateTime deletionScheduledFor;
+        try {
+            deletionScheduledFor = parseDate(body.get("scheduleDeletion"));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>("Invalid scheduleDeletion date", null));
+        }
+
+        try {
+            ArchivedResource archivedResource = archiveService.archiveResource(
+                    resourceId, body.get("reason"), deletionScheduledFor, getCurrentUser());
+            return ResponseEntity.ok(new ApiResponse<>("Resource archived successfully", archivedResource));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>("Archive failed: " + e.getMessage(), null));
         }
-        
-        archivedResource.setStatus("ARCHIVED");
-        mockArchivedResources.add(archivedResource);
-        
-        return ResponseEntity.ok(new ApiResponse<>("Resource archived successfully", archivedResource));
     }
-    
+
     @PostMapping("/restore/{archiveId}")
     @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN')")
     public ResponseEntity<?> restoreResource(@PathVariable Long archiveId) {
-        Optional<ArchivedResource> resource = mockArchivedResources.stream()
-            .filter(r -> r.getId().equals(archiveId))
-            .findFirst();
-        
-        if (resource.isPresent()) {
-            mockArchivedResources.remove(resource.get());
-            return ResponseEntity.ok(new ApiResponse<>("Resource restored successfully", null));
+        try {
+            Resource restored = archiveService.restoreResource(archiveId, getCurrentUser());
+            return ResponseEntity.ok(new ApiResponse<>("Resource restored successfully", restored));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(404).body(new ApiResponse<>(e.getMessage(), null));
         }
-        
-        return ResponseEntity.status(404).body(new ApiResponse<>("Archived resource not found", null));
     }
-    
+
     @DeleteMapping("/{archiveId}/permanent")
     @PreAuthorize("hasRole('SYSTEM_ADMIN')")
     public ResponseEntity<?> permanentDelete(@PathVariable Long archiveId) {
-        Optional<ArchivedResource> resource = mockArchivedResources.stream()
-            .filter(r -> r.getId().equals(archiveId))
-            .findFirst();
-        
-        if (resource.isPresent()) {
-            resource.get().setStatus("DELETED");
+        try {
+            archiveService.deleteArchivedResource(archiveId);
             return ResponseEntity.ok(new ApiResponse<>("Resource permanently deleted", null));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(404).body(new ApiResponse<>(e.getMessage(), null));
         }
-        
-        return ResponseEntity.status(404).body(new ApiResponse<>("Archived resource not found", null));
     }
-    
+
     @GetMapping("/stats")
+    @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN')")
     public ResponseEntity<?> getArchiveStats() {
+        long hotBytes = archiveService.getArchivedFileBytes();
+        long coldBytes = archiveService.getColdStorageBytes();
+
         Map<String, Object> stats = new HashMap<>();
-        stats.put("archivedCount", mockArchivedResources.size());
-        stats.put("scheduledForDeletion", mockArchivedResources.stream()
-            .filter(r -> r.getStatus().equals("ARCHIVED")).count());
-        stats.put("storageSaved", "1.2 GB");
-        
+        stats.put("archivedCount", archiveService.getArchivedCount());
+        stats.put("scheduledForDeletion", archiveService.getArchivedCount());
+        stats.put("deletedCount", archiveService.getDeletedCount());
+        stats.put("archivedBytes", hotBytes);
+        stats.put("coldStorageBytes", coldBytes);
+        stats.put("storageSaved", formatBytes(hotBytes - coldBytes));
+
         return ResponseEntity.ok(new ApiResponse<>("Archive statistics", stats));
     }
-}
\ No newline at end of file
+
+    // The admin UI sends an ISO instant ("2025-03-01T09:00:00.000Z"); a plain local date-time is accepted too
+    private static LocalDateTime parseDate(String value) {
+        if (value == null || value.isBlank()) return null;
+        try {
+            return OffsetDateTime.parse(value).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        } catch (DateTimeParseException e) {
+            return LocalDateTime.parse(value);
+        }
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        String[] units = {"KB", "MB", "GB", "TB"};
+        double value = bytes;
+        int unit = -1;
+        while (value >= 1024 && unit < units.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return String.format(Locale.ROOT, "%.1f %s", value, units[unit]);
+    }
+}
@@ -99,6 +99,24 @@ public class AssessmentController {
         }
     }
     
+    /**
+     * Get per-user module lock state for a course
+     * GET /api/assessments/course/{courseId}/lock-state?userId={userId}
+     */
+    @GetMapping("/course/{courseId}/lock-state")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> getModuleLockState(
+            @PathVariable Long courseId,
+            @RequestParam Long userId) {
+        try {
+            Map<Long, Boolean> lockState = assessmentService.getModuleLockState(userId, courseId);
+            return ResponseEntity.ok(new ApiResponse<>("Module lock state retrieved", lockState));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(e.getMessage(), null));
+        }
+    }
+    
     /**
      * Get final exam questions for a course
      * GET /api/assessments/course/{courseId}/final-exam
@@ -115,9 +133,30 @@ public class AssessmentController {
         }
     }
     
+    /**
+     * Start or resume a final exam attempt (sampled question set when configured)
+     * POST /api/assessments/course/{courseId}/final-exam/start
+     */
+    @PostMapping("/course/{courseId}/final-exam/start")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> startFinalExam(
+            @PathVariable Long courseId,
+            @RequestBody Map<String, Object> request) {
+        try {
+            Long userId = ((Number) request.get("userId")).longValue();
+            Map<String, Object> result = assessmentService.startFinalExam(userId, courseId);
+            return ResponseEntity.ok(new ApiResponse<>("Final exam started", result));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(e.getMessage(), null));
+        }
+    }
+    
     /**
      * Submit final exam
      * POST /api/assessments/final-exam/submit
+     * 
+     * Request body: { "userId", "courseId", "attemptId" (optional), "answers": { ... } }
      */
     @PostMapping("/final-exam/submit")
     @PreAuthorize("isAuthenticated()")
@@ -125,11 +164,12 @@ public class AssessmentController {
         try {
             Long userId = ((Number) request.get("userId")).longValue();
             Long courseId = ((Number) request.get("courseId")).longValue();
+            Long attemptId = request.get("attemptId") != null ? ((Number) request.get("attemptId")).longValue() : null;
 
             @SuppressWarnings("unchecked")
             Map<String, Object> answers = (Map<String, Object>) request.get("answers");
 
-            Map<String, Object> result = assessmentService.submitFinalExam(userId, courseId, answers);
+            Map<String, Object> result = assessmentService.submitFinalExam(userId, courseId, answers, attemptId);
             return ResponseEntity.ok(new ApiResponse<>("Final exam submitted", result));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
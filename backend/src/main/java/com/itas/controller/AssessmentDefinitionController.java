@@ -4,8 +4,13 @@ import com.itas.dto.ApiResponse;
 import com.itas.model.AssessmentDefinition;
 import com.itas.model.Question;
 import com.itas.repository.AssessmentDefinitionRepository;
+import com.itas.service.ImportJob;
+import com.itas.service.ImportReport;
+import com.itas.service.QuestionImportJobService;
 import com.itas.service.QuestionImportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -23,6 +28,9 @@ public class AssessmentDefinitionController {
     @Autowired
     private QuestionImportService questionImportService;
     
+    @Autowired
+    private QuestionImportJobService questionImportJobService;
+    
     // Get all assessments
     @GetMapping
     public ResponseEntity<?> getAllAssessments() {
@@ -105,6 +113,7 @@ public class AssessmentDefinitionController {
                 existing.setDescription(assessment.getDescription());
                 existing.setPassingScore(assessment.getPassingScore());
                 existing.setTimeLimitMinutes(assessment.getTimeLimitMinutes());
+                existing.setQuestionsPerModule(assessment.getQuestionsPerModule());
                 
                 // Don't allow changing type or final exam status
                 // Don't allow changing max attempts for module quizzes
@@ -140,6 +149,7 @@ public class AssessmentDefinitionController {
     // Import questions from file (Word/PDF)
     @PostMapping("/import")
     @PreAuthorize("hasAnyRole('CONTENT_ADMIN', 'SYSTEM_ADMIN')")
+    @CacheEvict(value = "examBanks", allEntries = true)
     public ResponseEntity<?> importQuestionsFromFile(
             @RequestParam("file") MultipartFile file,
             @RequestParam(value = "moduleId", required = false) Long moduleId,
@@ -165,13 +175,16 @@ public class AssessmentDefinitionController {
                     .body(new ApiResponse<>("moduleId is required for Practice and Quiz questions", null));
             }
 
-            List<Question> questions = questionImportService.importQuestionsFromFile(
-                file, moduleId, courseId, category);
+            ImportReport report = questionImportService.importFromFile(file, moduleId, courseId, category);
+            List<Question> questions = report.getSaved();
 
-            Map<String, Object> result = new java.util.HashMap<>();
+            Map<String, Object> result = new java.util.HashMap<>(report.toSummary());
             result.put("imported", questions.size());
             result.put("questions", questions);
-            result.put("message", "Successfully imported " + questions.size() + " question" + (questions.size() != 1 ? "s" : ""));
+            result.put("message", "Imported " + report.getCreated().size() + " new, " + report.getUpdated().size()
+                + " changed, " + report.getUnchanged() + " unchanged, "
+                + report.getDuplicates() + " duplicates in the file skipped, "
+                + report.getSkipped() + " malformed blocks skipped");
 
             return ResponseEntity.ok(new ApiResponse<>(
                 "Successfully imported " + questions.size() + " questions", result));
@@ -206,4 +219,77 @@ public class AssessmentDefinitionController {
                 .body(new ApiResponse<>("Failed to preview questions: " + e.getMessage(), null));
         }
     }
+
+    // Start a background import (or preview when preview=true); returns the job id immediately
+    @PostMapping("/import/jobs")
+    @PreAuthorize("hasAnyRole('CONTENT_ADMIN', 'SYSTEM_ADMIN')")
+    public ResponseEntity<?> startImportJob(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "moduleId", required = false) Long moduleId,
+            @RequestParam(value = "courseId", required = false) Long courseId,
+            @RequestParam(value = "questionCategory", required = false) String questionCategory,
+            @RequestParam(value = "preview", defaultValue = "false") boolean preview) {
+        try {
+            if (file.isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>("Please select a file to upload", null));
+            }
+
+            String category = questionCategory != null ? questionCategory : "QUIZ";
+            if (!"FINAL_EXAM".equals(category) && moduleId == null) {
+                return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>("moduleId is required for Practice and Quiz questions", null));
+            }
+
+            ImportJob job = questionImportJobService.submit(file, moduleId, courseId, category, preview);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(new ApiResponse<>("Import job queued", job.toStatus()));
+
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(new ApiResponse<>("Failed to start import: " + e.getMessage(), null));
+        }
+    }
+    
+    // Poll import job progress
+    @GetMapping("/import/jobs/{jobId}")
+    @PreAuthorize("hasAnyRole('CONTENT_ADMIN', 'SYSTEM_ADMIN')")
+    public ResponseEntity<?> getImportJob(@PathVariable String jobId) {
+        try {
+            ImportJob job = questionImportJobService.getJob(jobId);
+            return ResponseEntity.ok(new ApiResponse<>("Import job " + job.getStatus(), job.toStatus()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ApiResponse<>(e.getMessage(), null));
+        }
+    }
+    
+    // Parsed questions of a preview job
+    @GetMapping("/import/jobs/{jobId}/questions")
+    @PreAuthorize("hasAnyRole('CONTENT_ADMIN', 'SYSTEM_ADMIN')")
+    public ResponseEntity<?> getImportJobQuestions(@PathVariable String jobId) {
+        try {
+            ImportJob job = questionImportJobService.getJob(jobId);
+            List<Question> questions = job.getQuestions();
+            return ResponseEntity.ok(new ApiResponse<>(
+                "Preview: " + questions.size() + " questions found", questions));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ApiResponse<>(e.getMessage(), null));
+        }
+    }
+    
+    // Save the questions of a preview job without re-parsing the file
+    @PostMapping("/import/jobs/{jobId}/confirm")
+    @PreAuthorize("hasAnyRole('CONTENT_ADMIN', 'SYSTEM_ADMIN')")
+    public ResponseEntity<?> confirmImportJob(@PathVariable String jobId) {
+        try {
+            ImportJob job = questionImportJobService.confirm(jobId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(new ApiResponse<>("Import job saving", job.toStatus()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(new ApiResponse<>("Failed to confirm import: " + e.getMessage(), null));
+        }
+    }
 }
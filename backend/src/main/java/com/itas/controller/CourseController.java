@@ -2,13 +2,17 @@ package com.itas.controller;
 
 import com.itas.dto.ApiResponse;
 import com.itas.model.Course;
+import com.itas.service.CatalogSnapshotService;
 import com.itas.service.CourseService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.Map;
 
@@ -19,10 +23,19 @@ public class CourseController {
     @Autowired
     private CourseService courseService;
     
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+    
     @GetMapping("")
-    @Cacheable(value = "courses", key = "'all'")
-    public ResponseEntity<?> getAllCourses() {
-        return ResponseEntity.ok(new ApiResponse<>("Success", courseService.getAllCourses()));
+    public ResponseEntity<?> getAllCourses(WebRequest webRequest) {
+        // Public and hit by every visitor: served from a serialized snapshot, 304 when unchanged
+        CatalogSnapshotService.Snapshot snapshot = catalogSnapshotService.courses();
+        if (webRequest.checkNotModified(snapshot.etag())) return null;
+        return ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .cacheControl(CacheControl.noCache().cachePublic())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.body());
     }
     
     @GetMapping("/{id}")
@@ -58,11 +71,11 @@ public class CourseController {
     
     @DeleteMapping("/{id}")
     @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN')")
-    @CacheEvict(value = "courses", allEntries = true)
+    @CacheEvict(value = {"courses", "moduleUnlocks", "examBanks"}, allEntries = true)
     public ResponseEntity<?> deleteCourse(@PathVariable Long id) {
         try {
-            courseService.deleteCourse(id);
-            return ResponseEntity.ok(new ApiResponse<>("Course deleted successfully", null));
+            Map<String, Integer> deleted = courseService.deleteCourse(id);
+            return ResponseEntity.ok(new ApiResponse<>("Course deleted successfully", deleted));
         } catch (RuntimeException e) {
             return ResponseEntity.status(404).body(new ApiResponse<>(e.getMessage(), null));
         }
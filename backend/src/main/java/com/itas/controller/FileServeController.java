@@ -1,55 +1,107 @@
 package com.itas.controller;
 
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
+import com.itas.model.Resource;
+import com.itas.repository.ResourceRepository;
+import com.itas.service.BlobStorageService;
+import com.itas.service.FileDeliveryService;
+import com.itas.service.FileStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.io.File;
-import java.nio.file.Paths;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 
+/**
+ * Serves files under /uploads/** with validators, conditional GET and byte ranges
+ * (see FileDeliveryService). Content-addressed blobs never change, so they are
+ * sent with their digest as ETag and cached as immutable; everything else must
+ * be revalidated, which is a cheap 304 when nothing changed.
+ */
 @RestController
 public class FileServeController {
 
-    @Value("${app.file.upload-dir:./uploads}")
-    private String uploadDir;
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "pdf", "application/pdf",
+            "mp4", "video/mp4",
+            "webm", "video/webm",
+            "ogg", "video/ogg",
+            "png", "image/png",
+            "jpg", "image/jpeg",
+            "jpeg", "image/jpeg",
+            "docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+            "pptx", "application/vnd.openxmlformats-officedocument.presentationml.presentation");
 
-    @GetMapping("/uploads/**")
-    public ResponseEntity<Resource> serveFile(
-            @RequestHeader(value = "Range", required = false) String range,
-            jakarta.servlet.http.HttpServletRequest request) {
+    private static final String IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic()
+            .getHeaderValue() + ", immutable";
 
-        String path = request.getRequestURI().replaceFirst(".*/uploads/", "");
-        File file = Paths.get(uploadDir).resolve(path).toFile();
+    @Autowired
+    private FileDeliveryService fileDeliveryService;
+
+    @Autowired
+    private BlobStorageService blobStorageService;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private ResourceRepository resourceRepository;
 
-        if (!file.exists() || !file.isFile()) {
+    @GetMapping("/uploads/**")
+    public ResponseEntity<?> serveFile(HttpServletRequest request, HttpServletResponse response) {
+        String path = request.getRequestURI().replaceFirst(".*/uploads/", "");
+        String key;
+        try {
+            // Rejects paths that escape the upload directory
+            key = fileStorageService.storageKey(path);
+        } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
 
-        Resource resource = new FileSystemResource(file);
-        String contentType = detectContentType(file.getName());
+        String filename = key.substring(key.lastIndexOf('/') + 1);
+        String contentType = detectContentType(filename);
+        String digest = blobStorageService.digestOf(key);
+        if (digest != null) {
+            // Blob paths carry no extension; take the name and type from a resource that uses it
+            Optional<Resource> owner = resourceRepository.findFirstByFileHash(digest);
+            if (owner.isPresent()) {
+                if (owner.get().getFileName() != null) filename = owner.get().getFileName();
+                contentType = owner.get().getMimeType() != null ? owner.get().getMimeType() : detectContentType(filename);
+            }
+        }
+        response.setHeader("X-Frame-Options", "ALLOWALL");
+        response.setHeader("Access-Control-Allow-Origin", "*");
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                digest != null ? IMMUTABLE : CacheControl.noCache().cachePrivate().getHeaderValue());
 
-        return ResponseEntity.ok()
-                .header("X-Frame-Options", "ALLOWALL")
-                .header("Access-Control-Allow-Origin", "*")
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + file.getName() + "\"")
-                .contentType(MediaType.parseMediaType(contentType))
-                .body(resource);
+        try {
+            fileDeliveryService.sendStored(request, response, key, contentType, filename, true,
+                    digest != null ? "\"" + digest + "\"" : null);
+            return null;
+        } catch (NoSuchFileException e) {
+            if (response.isCommitted()) return null;
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            if (response.isCommitted()) return null;
+            return ResponseEntity.internalServerError().build();
+        }
     }
 
     private String detectContentType(String filename) {
-        String lower = filename.toLowerCase();
-        if (lower.endsWith(".pdf"))  return "application/pdf";
-        if (lower.endsWith(".mp4"))  return "video/mp4";
-        if (lower.endsWith(".webm")) return "video/webm";
-        if (lower.endsWith(".ogg"))  return "video/ogg";
-        if (lower.endsWith(".png"))  return "image/png";
-        if (lower.endsWith(".jpg") || lower.endsWith(".jpeg")) return "image/jpeg";
-        if (lower.endsWith(".docx")) return "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
-        if (lower.endsWith(".pptx")) return "application/vnd.openxmlformats-officedocument.presentationml.presentation";
-        return "application/octet-stream";
+        int dot = filename.lastIndexOf('.');
+        String known = dot >= 0 ? CONTENT_TYPES.get(filename.substring(dot + 1).toLowerCase(Locale.ROOT)) : null;
+        if (known != null) return known;
+        return MediaTypeFactory.getMediaType(filename)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString();
     }
 }
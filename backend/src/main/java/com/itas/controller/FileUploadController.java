@@ -2,21 +2,28 @@ package com.itas.controller;
 
 import com.itas.dto.ApiResponse;
 import com.itas.model.Resource;
+import com.itas.model.StoredBlob;
 import com.itas.model.User;
+import com.itas.service.BlobStorageService;
+import com.itas.service.FileDeliveryService;
 import com.itas.service.FileStorageService;
+import com.itas.service.StreamingUploadService;
+import com.itas.service.UploadSessionService;
 import com.itas.service.ResourceService;
 import com.itas.repository.UserRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/files")
@@ -31,64 +38,184 @@ public class FileUploadController {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private FileDeliveryService fileDeliveryService;
+    
+    @Autowired
+    private UploadSessionService uploadSessionService;
+    
+    @Autowired
+    private BlobStorageService blobStorageService;
+    
+    @Autowired
+    private StreamingUploadService streamingUploadService;
+    
     @PostMapping("/upload")
     @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN')")
-    public ResponseEntity<?> uploadFile(
-            @RequestParam("file") MultipartFile file,
-            @RequestParam("title") String title,
-            @RequestParam("description") String description,
-            @RequestParam("category") String category,
-            @RequestParam("resourceType") String resourceType,
-            @RequestParam("audience") String audience,
-            Authentication authentication) {
-        
+    public ResponseEntity<?> uploadFile(HttpServletRequest request, Authentication authentication) {
+        // multipart/form-data: file, title, description, category, resourceType, audience
+        StreamingUploadService.Upload upload = null;
         try {
+            // Parsed and stored in one pass (content-addressed; hashed while streaming)
+            upload = streamingUploadService.ingest(request, "file");
+            
             // Validate file
-            if (file.isEmpty()) {
+            if (upload.getBlob() == null) {
                 return ResponseEntity.badRequest()
                     .body(new ApiResponse<>("Please select a file to upload", null));
             }
             
-            // Store file
-            String filePath = fileStorageService.storeFile(file, category);
-            String fileHash = fileStorageService.calculateFileHash(file);
+            Resource savedResource = createResource(upload.getBlob(), upload.getFileName(), upload.getMimeType(),
+                upload.field("title"), upload.field("description"), upload.field("category"),
+                upload.field("resourceType"), upload.field("audience"), authentication);
             
-            // Get current user
-            String username = authentication.getName();
-            User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+            return ResponseEntity.ok(new ApiResponse<>("File uploaded successfully", savedResource));
             
-            // Create resource record
-            Resource resource = new Resource();
-            resource.setTitle(title);
-            resource.setDescription(description);
-            resource.setCategory(category);
-            resource.setResourceType(resourceType);
-            resource.setAudience(audience);
-            resource.setFilePath(filePath);
-            resource.setFileName(file.getOriginalFilename());
-            resource.setFileSize(file.getSize());
-            resource.setMimeType(file.getContentType());
-            resource.setFileHash(fileHash);
-            resource.setStatus("PUBLISHED");
-            resource.setUploadedBy(user);
-            resource.setUploadedAt(LocalDateTime.now());
-            resource.setVersion(1);
-            resource.setIsLatestVersion(true);
+        } catch (MaxUploadSizeExceededException e) {
+            throw e;
+        } catch (Exception e) {
+            streamingUploadService.discard(upload);
+            return ResponseEntity.badRequest()
+                .body(new ApiResponse<>("Failed to upload file: " + e.getMessage(), null));
+        }
+    }
+    
+    // ── Resumable chunked uploads ─────────────────────────────────────────────
+    // 1. POST /files/uploads            {fileName, fileSize, mimeType}  -> uploadId
+    // 2. PUT  /files/uploads/{id}?offset=N  raw bytes, X-Chunk-SHA256 header (repeat)
+    //    GET  /files/uploads/{id}       -> receivedBytes, to resume after a failure
+    // 3. POST /files/uploads/{id}/complete  resource metadata -> created resource
+    
+    @PostMapping("/uploads")
+    @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN')")
+    public ResponseEntity<?> initiateUpload(@RequestBody Map<String, Object> request, Authentication authentication) {
+        try {
+            String fileName = (String) request.get("fileName");
+            String mimeType = (String) request.get("mimeType");
+            Object fileSize = request.get("fileSize");
+            if (!(fileSize instanceof Number)) {
+                return ResponseEntity.badRequest().body(new ApiResponse<>("fileSize is required", null));
+            }
             
-            Resource savedResource = resourceService.createResource(resource);
+            UploadSessionService.UploadSession session = uploadSessionService.initiate(
+                authentication.getName(), fileName, mimeType, ((Number) fileSize).longValue());
+            return ResponseEntity.ok(new ApiResponse<>("Upload session created", uploadSessionService.status(session)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(new ApiResponse<>("Failed to start upload: " + e.getMessage(), null));
+        }
+    }
+    
+    @PutMapping(value = "/uploads/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN')")
+    public ResponseEntity<?> uploadChunk(
+            @PathVariable String uploadId,
+            @RequestParam("offset") long offset,
+            @RequestHeader(value = "X-Chunk-SHA256", required = false) String checksum,
+            HttpServletRequest request,
+            Authentication authentication) {
+        try {
+            long received = uploadSessionService.writeChunk(uploadId, authentication.getName(), offset,
+                request.getContentLengthLong(), checksum, request.getInputStream());
+            return ResponseEntity.ok(new ApiResponse<>("Chunk received", Map.of("receivedBytes", received)));
+        } catch (IllegalStateException e) {
+            // Wrong offset or finished session: the client should re-read the status and resume
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ApiResponse<>(e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(new ApiResponse<>("Failed to store chunk: " + e.getMessage(), null));
+        }
+    }
+    
+    @GetMapping("/uploads/{uploadId}")
+    @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN')")
+    public ResponseEntity<?> getUploadStatus(@PathVariable String uploadId, Authentication authentication) {
+        try {
+            UploadSessionService.UploadSession session = uploadSessionService.getSession(uploadId, authentication.getName());
+            return ResponseEntity.ok(new ApiResponse<>("Upload status", uploadSessionService.status(session)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ApiResponse<>(e.getMessage(), null));
+        }
+    }
+    
+    @PostMapping("/uploads/{uploadId}/complete")
+    @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN')")
+    public ResponseEntity<?> completeUpload(
+            @PathVariable String uploadId,
+            @RequestParam("title") String title,
+            @RequestParam("description") String description,
+            @RequestParam("category") String category,
+            @RequestParam("resourceType") String resourceType,
+            @RequestParam("audience") String audience,
+            @RequestParam(value = "sha256", required = false) String sha256,
+            Authentication authentication) {
+        StoredBlob blob = null;
+        try {
+            UploadSessionService.UploadSession session = uploadSessionService.getSession(uploadId, authentication.getName());
+            blob = uploadSessionService.complete(uploadId, authentication.getName(), sha256);
             
+            Resource savedResource = createResource(blob, session.getFileName(), session.getMimeType(),
+                title, description, category, resourceType, audience, authentication);
             return ResponseEntity.ok(new ApiResponse<>("File uploaded successfully", savedResource));
-            
         } catch (Exception e) {
+            // The session is gone; drop the reference it took on the stored file
+            if (blob != null) blobStorageService.release(blob.getDigest());
+            if (e instanceof IllegalStateException) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(e.getMessage(), null));
+            }
             return ResponseEntity.badRequest()
-                .body(new ApiResponse<>("Failed to upload file: " + e.getMessage(), null));
+                .body(new ApiResponse<>("Failed to complete upload: " + e.getMessage(), null));
         }
     }
     
+    @DeleteMapping("/uploads/{uploadId}")
+    @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN')")
+    public ResponseEntity<?> cancelUpload(@PathVariable String uploadId, Authentication authentication) {
+        try {
+            uploadSessionService.cancel(uploadId, authentication.getName());
+            return ResponseEntity.ok(new ApiResponse<>("Upload cancelled", null));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ApiResponse<>(e.getMessage(), null));
+        }
+    }
+    
+    private Resource createResource(StoredBlob blob, String fileName, String mimeType, String title,
+                                    String description, String category, String resourceType,
+                                    String audience, Authentication authentication) {
+        // Get current user
+        String username = authentication.getName();
+        User user = userRepository.findByUsername(username)
+            .orElseThrow(() -> new RuntimeException("User not found"));
+        
+        // Create resource record
+        Resource resource = new Resource();
+        resource.setTitle(title);
+        resource.setDescription(description);
+        resource.setCategory(category);
+        resource.setResourceType(resourceType);
+        resource.setAudience(audience);
+        resource.setFilePath(blob.getStoragePath());
+        resource.setFileName(fileName);
+        resource.setFileSize(blob.getSizeBytes());
+        resource.setMimeType(mimeType);
+        resource.setFileHash(blob.getDigest());
+        resource.setStatus("PUBLISHED");
+        resource.setUploadedBy(user);
+        resource.setUploadedAt(LocalDateTime.now());
+        resource.setVersion(1);
+        resource.setIsLatestVersion(true);
+        
+        return resourceService.createResource(resource);
+    }
+    
     @GetMapping("/download/{resourceId}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> downloadFile(@PathVariable Long resourceId) {
+    public ResponseEntity<?> downloadFile(@PathVariable Long resourceId, HttpServletRequest request,
+                                          HttpServletResponse response) {
         try {
             Resource resource = resourceService.getResourceById(resourceId);
             
@@ -97,27 +224,26 @@ public class FileUploadController {
                     .body(new ApiResponse<>("This is a demo resource with no actual file", null));
             }
             
-            byte[] data = fileStorageService.loadFileAsBytes(resource.getFilePath());
-            ByteArrayResource fileResource = new ByteArrayResource(data);
+            FileDeliveryService.Delivery delivery = fileDeliveryService.sendStored(request, response,
+                fileStorageService.storageKey(resource.getFilePath()),
+                resource.getMimeType(), resource.getFileName(), false, null);
             
             // Increment download count
-            resource.setDownloadCount(resource.getDownloadCount() + 1);
-            resourceService.updateResource(resourceId, resource);
-            
-            return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(resource.getMimeType()))
-                .header(HttpHeaders.CONTENT_DISPOSITION, 
-                    "attachment; filename=\"" + resource.getFileName() + "\"")
-                .body(fileResource);
+            if (delivery.isNewRead()) {
+                resourceService.incrementDownloadCount(resourceId);
+            }
+            return null;
                 
         } catch (Exception e) {
+            if (response.isCommitted()) return null;
             return ResponseEntity.badRequest()
                 .body(new ApiResponse<>("Failed to download file: " + e.getMessage(), null));
         }
     }
     
     @GetMapping("/view/{resourceId}")
-    public ResponseEntity<?> viewFile(@PathVariable Long resourceId) {
+    public ResponseEntity<?> viewFile(@PathVariable Long resourceId, HttpServletRequest request,
+                                      HttpServletResponse response) {
         try {
             Resource resource = resourceService.getResourceById(resourceId);
             
@@ -126,20 +252,18 @@ public class FileUploadController {
                     .body(new ApiResponse<>("This is a demo resource with no actual file", null));
             }
             
-            byte[] data = fileStorageService.loadFileAsBytes(resource.getFilePath());
-            ByteArrayResource fileResource = new ByteArrayResource(data);
+            FileDeliveryService.Delivery delivery = fileDeliveryService.sendStored(request, response,
+                fileStorageService.storageKey(resource.getFilePath()),
+                resource.getMimeType(), resource.getFileName(), true, null);
             
             // Increment view count
-            resource.setViewCount(resource.getViewCount() + 1);
-            resourceService.updateResource(resourceId, resource);
-            
-            return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(resource.getMimeType()))
-                .header(HttpHeaders.CONTENT_DISPOSITION, 
-                    "inline; filename=\"" + resource.getFileName() + "\"")
-                .body(fileResource);
+            if (delivery.isNewRead()) {
+                resourceService.incrementViewCount(resourceId);
+            }
+            return null;
                 
         } catch (Exception e) {
+            if (response.isCommitted()) return null;
             return ResponseEntity.badRequest()
                 .body(new ApiResponse<>("Failed to view file: " + e.getMessage(), null));
         }
@@ -149,14 +273,7 @@ public class FileUploadController {
     @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN')")
     public ResponseEntity<?> deleteFile(@PathVariable Long resourceId) {
         try {
-            Resource resource = resourceService.getResourceById(resourceId);
-            
-            // Delete physical file
-            if (resource.getFilePath() != null) {
-                fileStorageService.deleteFile(resource.getFilePath());
-            }
-            
-            // Delete database record
+            // Deletes the record and releases the stored file
             resourceService.deleteResource(resourceId);
             
             return ResponseEntity.ok(new ApiResponse<>("File deleted successfully", null));
@@ -6,20 +6,22 @@ import com.itas.model.Module;
 import com.itas.repository.CourseRepository;
 import com.itas.repository.ModuleRepository;
 import com.itas.repository.QuestionRepository;
+import com.itas.service.CatalogSnapshotService;
+import com.itas.service.StorageBackend;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.sql.DataSource;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -41,8 +43,11 @@ public class ModuleController {
     @Autowired
     private DataSource dataSource;
     
-    @Value("${app.file.upload-dir:./uploads}")
-    private String uploadDir;
+    @Autowired
+    private StorageBackend storageBackend;
+    
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
     
     @GetMapping("")
     public ResponseEntity<?> getAllModules() {
@@ -68,10 +73,16 @@ public class ModuleController {
     }
     
     @GetMapping("/course/{courseId}")
-    public ResponseEntity<?> getModulesByCourse(@PathVariable Long courseId) {
+    public ResponseEntity<?> getModulesByCourse(@PathVariable Long courseId, WebRequest webRequest) {
         try {
-            List<Module> modules = moduleRepository.findByCourseIdOrderByModuleOrderAsc(courseId);
-            return ResponseEntity.ok(new ApiResponse<>("Success", modules));
+            // Public course outline: served from a serialized snapshot, 304 when unchanged
+            CatalogSnapshotService.Snapshot snapshot = catalogSnapshotService.modules(courseId);
+            if (webRequest.checkNotModified(snapshot.etag())) return null;
+            return ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .cacheControl(CacheControl.noCache().cachePublic())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.body());
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(new ApiResponse<>("Failed to load modules: " + e.getMessage(), null));
@@ -89,6 +100,7 @@ public class ModuleController {
     
     @PostMapping("")
     @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN', 'TRAINING_ADMIN')")
+    @CacheEvict(value = {"moduleUnlocks", "examBanks"}, allEntries = true)
     public ResponseEntity<?> createModule(@RequestBody Map<String, Object> request) {
         try {
             Long courseId = ((Number) request.get("courseId")).longValue();
@@ -128,6 +140,7 @@ public class ModuleController {
     
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN', 'TRAINING_ADMIN')")
+    @CacheEvict(value = {"moduleUnlocks", "examBanks"}, allEntries = true)
     public ResponseEntity<?> updateModule(@PathVariable Long id, @RequestBody Map<String, Object> request) {
         try {
             Module module = moduleRepository.findById(id)
@@ -165,6 +178,7 @@ public class ModuleController {
     
     @DeleteMapping("/{id}")
     @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN')")
+    @CacheEvict(value = {"moduleUnlocks", "examBanks"}, allEntries = true)
     public ResponseEntity<?> deleteModule(@PathVariable Long id) {
         try {
             moduleRepository.deleteById(id);
@@ -215,12 +229,6 @@ public class ModuleController {
                     .body(new ApiResponse<>("File is empty", null));
             }
             
-            // Create upload directory
-            Path uploadPath = Paths.get(uploadDir, "modules");
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-            
             // Generate unique filename
             String originalFilename = file.getOriginalFilename();
             String extension = (originalFilename != null && originalFilename.contains("."))
@@ -228,9 +236,10 @@ public class ModuleController {
                 : "";
             String filename = UUID.randomUUID().toString() + extension;
             
-            // Save file to disk
-            Path filePath = uploadPath.resolve(filename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            // Save file to the storage backend (served by FileServeController under /uploads/)
+            try (InputStream in = file.getInputStream()) {
+                storageBackend.put("modules/" + filename, in, file.getSize());
+            }
             
             String fileUrl = "/uploads/modules/" + filename;
             
@@ -244,6 +253,7 @@ public class ModuleController {
                 ps.setLong(2, id);
                 ps.executeUpdate();
             }
+            catalogSnapshotService.changed();
             
             java.util.Map<String, Object> result = new java.util.HashMap<>();
             result.put("id", id);
@@ -292,6 +302,7 @@ public class ModuleController {
                 ps.setLong(2, id);
                 ps.executeUpdate();
             }
+            catalogSnapshotService.changed();
             
             return ResponseEntity.ok(new ApiResponse<>("URL set successfully",
                 java.util.Map.of("id", id, "url", url, "urlType", urlType)));
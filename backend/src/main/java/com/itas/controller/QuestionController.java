@@ -7,7 +7,9 @@ import com.itas.model.Question;
 import com.itas.model.QuestionType;
 import com.itas.repository.ModuleRepository;
 import com.itas.repository.QuestionRepository;
+import com.itas.service.ItemStatisticsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,6 +31,9 @@ public class QuestionController {
     @Autowired
     private ModuleRepository moduleRepository;
     
+    @Autowired
+    private ItemStatisticsService itemStatisticsService;
+    
     @GetMapping("/module/{moduleId}")
     @Transactional(readOnly = true)
     public ResponseEntity<?> getQuestionsByModule(@PathVariable Long moduleId) {
@@ -90,6 +95,7 @@ public class QuestionController {
     }
     @PostMapping("")
     @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN')")
+    @CacheEvict(value = "examBanks", allEntries = true)
     public ResponseEntity<?> createQuestion(@RequestBody Map<String, Object> request) {
         try {
             String questionText = (String) request.get("questionText");
@@ -154,6 +160,7 @@ public class QuestionController {
     
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN')")
+    @CacheEvict(value = "examBanks", allEntries = true)
     public ResponseEntity<?> updateQuestion(@PathVariable Long id, @RequestBody Map<String, Object> request) {
         try {
             Question question = questionRepository.findById(id)
@@ -210,6 +217,7 @@ public class QuestionController {
     
     @DeleteMapping("/{id}")
     @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN')")
+    @CacheEvict(value = "examBanks", allEntries = true)
     public ResponseEntity<?> deleteQuestion(@PathVariable Long id) {
         try {
             questionRepository.deleteById(id);
@@ -222,6 +230,7 @@ public class QuestionController {
     
     @PostMapping("/bulk-delete")
     @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN')")
+    @CacheEvict(value = "examBanks", allEntries = true)
     public ResponseEntity<?> bulkDeleteQuestions(@RequestBody Map<String, Object> request) {
         try {
             @SuppressWarnings("unchecked")
@@ -258,6 +267,7 @@ public class QuestionController {
     
     @PostMapping("/duplicate/{id}")
     @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN')")
+    @CacheEvict(value = "examBanks", allEntries = true)
     public ResponseEntity<?> duplicateQuestion(@PathVariable Long id) {
         try {
             Question original = questionRepository.findById(id)
@@ -328,6 +338,18 @@ public class QuestionController {
         }
     }
     
+    @GetMapping("/{id}/stats")
+    @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN')")
+    public ResponseEntity<?> getQuestionStats(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(new ApiResponse<>("Question statistics retrieved",
+                itemStatisticsService.getQuestionStats(id)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(new ApiResponse<>("Failed to get question statistics: " + e.getMessage(), null));
+        }
+    }
+    
     @PostMapping("/submit-assessment")
     public ResponseEntity<?> submitAssessment(@RequestBody Map<String, Object> request) {
         try {
@@ -1,19 +1,34 @@
 package com.itas.controller;
 
 import com.itas.dto.ApiResponse;
+import com.itas.dto.ResourcePage;
 import com.itas.model.Resource;
+import com.itas.model.ResourceVersion;
 import com.itas.model.User;
 import com.itas.repository.UserRepository;
+import com.itas.service.FileDeliveryService;
+import com.itas.service.FileStorageService;
 import com.itas.service.ResourceService;
+import com.itas.service.StreamingUploadService;
+import com.itas.service.VersionStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,6 +43,15 @@ public class ResourceController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private FileDeliveryService fileDeliveryService;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private StreamingUploadService streamingUploadService;
+
     private User getCurrentUser() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth == null || !auth.isAuthenticated()) return null;
@@ -36,24 +60,28 @@ public class ResourceController {
 
     @PostMapping("/upload")
     @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN')")
-    public ResponseEntity<?> uploadResource(
-            @RequestParam("file") MultipartFile file,
-            @RequestParam("title") String title,
-            @RequestParam("description") String description,
-            @RequestParam("resourceType") String resourceType,
-            @RequestParam("category") String category,
-            @RequestParam("audience") String audience) throws IOException {
-
-        User currentUser = getCurrentUser();
-        Resource resource = new Resource();
-        resource.setTitle(title);
-        resource.setDescription(description);
-        resource.setResourceType(resourceType);
-        resource.setCategory(category);
-        resource.setAudience(audience);
+    public ResponseEntity<?> uploadResource(HttpServletRequest request) throws IOException {
+        // multipart/form-data: file, title, description, resourceType, category, audience
+        StreamingUploadService.Upload upload = streamingUploadService.ingest(request, "file");
+        if (upload.getBlob() == null) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>("Please select a file to upload", null));
+        }
+        Resource resource = resourceFromFields(upload);
+        if (resource == null) {
+            streamingUploadService.discard(upload);
+            return ResponseEntity.badRequest().body(new ApiResponse<>(MISSING_FIELDS, null));
+        }
         resource.setStatus("PUBLISHED");
 
-        Resource savedResource = resourceService.uploadResource(file, resource, currentUser);
+        User currentUser = getCurrentUser();
+        Resource savedResource;
+        try {
+            savedResource = resourceService.uploadResource(upload.getBlob(), upload.getFileName(),
+                    upload.getMimeType(), resource, currentUser);
+        } catch (RuntimeException e) {
+            streamingUploadService.discard(upload);
+            throw e;
+        }
 
         // Build response with HashMap (fixes Map.of() limit issue)
         Map<String, Object> response = new HashMap<>();
@@ -73,12 +101,42 @@ public class ResourceController {
         return ResponseEntity.ok(new ApiResponse<>("Resource uploaded successfully", response));
     }
 
+    private static final String MISSING_FIELDS = "title, description, resourceType, category and audience are required";
+
+    private static Resource resourceFromFields(StreamingUploadService.Upload upload) {
+        Resource resource = new Resource();
+        resource.setTitle(upload.field("title"));
+        resource.setDescription(upload.field("description"));
+        resource.setResourceType(upload.field("resourceType"));
+        resource.setCategory(upload.field("category"));
+        resource.setAudience(upload.field("audience"));
+        if (resource.getTitle() == null || resource.getDescription() == null || resource.getResourceType() == null
+                || resource.getCategory() == null || resource.getAudience() == null) {
+            return null;
+        }
+        return resource;
+    }
+
     @GetMapping("")
     // Public endpoint - no authentication required for viewing resources
     public ResponseEntity<?> getAllResources(
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String resourceType,
-            @RequestParam(required = false) String audience) {
+            @RequestParam(required = false) String audience,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+
+        // Paged summaries when the client asks for them; the full list is kept for existing callers
+        if (sort != null || cursor != null || limit != null) {
+            try {
+                ResourcePage page = resourceService.listResources(category, resourceType, audience,
+                        sort, cursor, limit != null ? limit : 20);
+                return ResponseEntity.ok(new ApiResponse<>("Resources retrieved successfully", page));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage(), null));
+            }
+        }
 
         List<Resource> resources = resourceService.getAllResources(category, resourceType, audience);
 
@@ -114,14 +172,8 @@ public class ResourceController {
 
     @PutMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> updateResource(
-            @PathVariable Long id,
-            @RequestParam(value = "file", required = false) MultipartFile file,
-            @RequestParam("title") String title,
-            @RequestParam("description") String description,
-            @RequestParam("resourceType") String resourceType,
-            @RequestParam("category") String category,
-            @RequestParam("audience") String audience) throws IOException {
+    public ResponseEntity<?> updateResource(@PathVariable Long id, HttpServletRequest request) throws IOException {
+        // multipart/form-data: optional file, title, description, resourceType, category, audience
 
         User currentUser = getCurrentUser();
         if (currentUser == null) return ResponseEntity.status(401).body(new ApiResponse<>("Unauthorized", null));
@@ -138,14 +190,22 @@ public class ResourceController {
                 .body(new ApiResponse<>("You don't have permission to update this resource", null));
         }
 
-        Resource resource = new Resource();
-        resource.setTitle(title);
-        resource.setDescription(description);
-        resource.setResourceType(resourceType);
-        resource.setCategory(category);
-        resource.setAudience(audience);
+        // Permission is settled before the body is read, so a rejected update stores nothing
+        StreamingUploadService.Upload upload = streamingUploadService.ingest(request, "file");
+        Resource resource = resourceFromFields(upload);
+        if (resource == null) {
+            streamingUploadService.discard(upload);
+            return ResponseEntity.badRequest().body(new ApiResponse<>(MISSING_FIELDS, null));
+        }
 
-        Resource updatedResource = resourceService.updateResource(id, file, resource, currentUser);
+        Resource updatedResource;
+        try {
+            updatedResource = resourceService.updateResource(id, upload.getBlob(), upload.getFileName(),
+                    upload.getMimeType(), resource, currentUser);
+        } catch (RuntimeException e) {
+            streamingUploadService.discard(upload);
+            throw e;
+        }
 
         // Build response with HashMap
         Map<String, Object> response = new HashMap<>();
@@ -193,47 +253,105 @@ public class ResourceController {
 
     @GetMapping("/{id}/download")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> downloadResource(@PathVariable Long id) {
-        try {
-            Resource resource = resourceService.getResourceById(id);
-
-            if (resource == null) {
-                System.err.println("Resource not found with id: " + id);
-                return ResponseEntity.status(404).body(new ApiResponse<>("Resource not found", null));
-            }
-
-            // Check if file path is null or empty
-            if (resource.getFilePath() == null || resource.getFilePath().isEmpty()) {
-                System.err.println("File path is null or empty for resource id: " + id);
-                return ResponseEntity.status(500).body(new ApiResponse<>("File path not configured", null));
-            }
+    public ResponseEntity<?> downloadResource(@PathVariable Long id, HttpServletRequest request,
+                                              HttpServletResponse response) {
+        return deliver(id, request, response, false);
+    }
 
-            // Read file and return as byte array
-            java.nio.file.Path filePath = java.nio.file.Paths.get(resource.getFilePath());
+    @GetMapping("/{id}/stream")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> streamResource(@PathVariable Long id, HttpServletRequest request,
+                                            HttpServletResponse response) {
+        return deliver(id, request, response, true);
+    }
 
-            if (!java.nio.file.Files.exists(filePath)) {
-                System.err.println("File does not exist at path: " + filePath.toString());
-                return ResponseEntity.status(404).body(new ApiResponse<>("File not found on server", null));
-            }
+    /**
+     * First-page / downscaled preview, rendered in the background after upload.
+     * Requires authentication like the resource itself and its download. Requests carrying the
+     * current version (as in Resource.thumbnailUrl) may be cached indefinitely by the browser only.
+     */
+    @GetMapping("/{id}/thumbnail")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> getThumbnail(@PathVariable Long id,
+                                          @RequestParam(value = "v", required = false) String v,
+                                          HttpServletRequest request, HttpServletResponse response) {
+        Resource resource = resourceService.getResourceById(id);
+        if (resource == null || resource.getThumbnailPath() == null) {
+            return ResponseEntity.status(404).body(new ApiResponse<>("Thumbnail not available", null));
+        }
+        String url = resource.getThumbnailUrl();
+        boolean versioned = v != null && url != null && url.endsWith("?v=" + v);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, versioned
+                ? "private, max-age=31536000, immutable"
+                : CacheControl.noCache().getHeaderValue());
+        try {
+            fileDeliveryService.sendStored(request, response, fileStorageService.storageKey(resource.getThumbnailPath()),
+                    "image/png", "thumbnail-" + id + ".png", true, null);
+            return null;
+        } catch (NoSuchFileException e) {
+            if (response.isCommitted()) return null;
+            return ResponseEntity.status(404).body(new ApiResponse<>("Thumbnail not available", null));
+        } catch (Exception e) {
+            if (response.isCommitted()) return null;
+            return ResponseEntity.status(500).body(new ApiResponse<>("Error sending thumbnail: " + e.getMessage(), null));
+        }
+    }
 
-            byte[] fileContent = java.nio.file.Files.readAllBytes(filePath);
+    @GetMapping("/{id}/versions")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> getVersions(@PathVariable Long id) {
+        List<ResourceVersion> versions = resourceService.getVersions(id);
+        return ResponseEntity.ok(new ApiResponse<>("Resource versions retrieved successfully", versions));
+    }
 
-            // Increment download count
-            resourceService.incrementDownloadCount(id);
+    /**
+     * Download an earlier version, reassembled from its chunks while it is sent.
+     */
+    @GetMapping("/{id}/versions/{version}/download")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> downloadVersion(@PathVariable Long id, @PathVariable Integer version,
+                                             HttpServletResponse response) {
+        VersionStorageService.VersionContent target;
+        try {
+            target = resourceService.openVersion(id, version);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(404).body(new ApiResponse<>(e.getMessage(), null));
+        }
+        ResourceVersion meta = target.version();
+        try (InputStream in = target.content()) {
+            response.setContentType(meta.getMimeType() != null ? meta.getMimeType() : "application/octet-stream");
+            if (meta.getFileSize() != null) response.setContentLengthLong(meta.getFileSize());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                    .filename(meta.getFileName() != null ? meta.getFileName() : "resource-" + id + "-v" + version,
+                            StandardCharsets.UTF_8)
+                    .build().toString());
+            in.transferTo(response.getOutputStream());
+            return null;
+        } catch (IOException | UncheckedIOException e) {
+            if (response.isCommitted()) return null;
+            System.err.println("Error rebuilding version " + version + " of resource " + id + ": " + e.getMessage());
+            return ResponseEntity.status(500).body(new ApiResponse<>("Error downloading version: " + e.getMessage(), null));
+        }
+    }
 
-            return ResponseEntity.ok()
-                    .header("Content-Type", resource.getMimeType())
-                    .header("Content-Disposition", "attachment; filename=\"" + resource.getFileName() + "\"")
-                    .body(fileContent);
-        } catch (Exception e) {
-            System.err.println("Error downloading file: " + e.getMessage());
-            return ResponseEntity.status(500).body(new ApiResponse<>("Error downloading file: " + e.getMessage(), null));
+    @PostMapping("/{id}/versions/{version}/restore")
+    @PreAuthorize("hasAnyRole('SYSTEM_ADMIN', 'CONTENT_ADMIN')")
+    public ResponseEntity<?> restoreVersion(@PathVariable Long id, @PathVariable Integer version) {
+        try {
+            Resource restored = resourceService.rollbackToVersion(id, version, getCurrentUser());
+            return ResponseEntity.ok(new ApiResponse<>("Resource rolled back to version " + version, restored));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>("Rollback failed: " + e.getMessage(), null));
         }
     }
 
-    @GetMapping("/{id}/stream")
-    @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> streamResource(@PathVariable Long id) {
+    /**
+     * Stream a resource file from disk. Downloads count every fresh read; streams count
+     * a view once per playback of a video, not once per seek.
+     */
+    private ResponseEntity<?> deliver(Long id, HttpServletRequest request, HttpServletResponse response,
+                                      boolean inline) {
+        String action = inline ? "streaming" : "downloading";
         try {
             Resource resource = resourceService.getResourceById(id);
 
@@ -248,28 +366,31 @@ public class ResourceController {
                 return ResponseEntity.status(500).body(new ApiResponse<>("File path not configured", null));
             }
 
-            // Read file and return as byte array for streaming
-            java.nio.file.Path filePath = java.nio.file.Paths.get(resource.getFilePath());
-
-            if (!java.nio.file.Files.exists(filePath)) {
-                System.err.println("File does not exist at path: " + filePath.toString());
+            FileDeliveryService.Delivery delivery;
+            try {
+                delivery = fileDeliveryService.sendStored(request, response,
+                        fileStorageService.storageKey(resource.getFilePath()),
+                        resource.getMimeType(), resource.getFileName(), inline, null);
+            } catch (NoSuchFileException e) {
+                System.err.println("File does not exist at path: " + resource.getFilePath());
                 return ResponseEntity.status(404).body(new ApiResponse<>("File not found on server", null));
             }
 
-            byte[] fileContent = java.nio.file.Files.readAllBytes(filePath);
-
-            // Increment view count for videos
-            if ("VIDEO".equals(resource.getResourceType())) {
-                resourceService.incrementViewCount(id);
+            if (delivery.isNewRead()) {
+                if (!inline) {
+                    resourceService.incrementDownloadCount(id);
+                } else if ("VIDEO".equals(resource.getResourceType())) {
+                    resourceService.incrementViewCount(id);
+                }
             }
-
-            return ResponseEntity.ok()
-                    .header("Content-Type", resource.getMimeType())
-                    .header("Content-Disposition", "inline; filename=\"" + resource.getFileName() + "\"")
-                    .body(fileContent);
+            return null;
         } catch (Exception e) {
-            System.err.println("Error streaming file: " + e.getMessage());
-            return ResponseEntity.status(500).body(new ApiResponse<>("Error streaming file: " + e.getMessage(), null));
+            if (response.isCommitted()) {
+                // Client went away mid-transfer (e.g. the player seeked); nothing more to send
+                return null;
+            }
+            System.err.println("Error " + action + " file: " + e.getMessage());
+            return ResponseEntity.status(500).body(new ApiResponse<>("Error " + action + " file: " + e.getMessage(), null));
         }
     }
 
@@ -286,10 +407,31 @@ public class ResourceController {
             @RequestParam(required = false) String query,
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String resourceType,
-            @RequestParam(required = false) String audience) {
+            @RequestParam(required = false) String audience,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+
+        Page<Resource> results = resourceService.searchResources(query, category, resourceType, audience, page, size);
+        // The body stays a plain list for existing clients; paging details travel in headers
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(results.getTotalElements()))
+                .header("X-Total-Pages", String.valueOf(results.getTotalPages()))
+                .body(new ApiResponse<>("Search results", results.getContent()));
+    }
 
-        List<Resource> resources = resourceService.searchResources(query, category, resourceType, audience);
-        return ResponseEntity.ok(new ApiResponse<>("Search results", resources));
+    /**
+     * Most downloaded resources: window is "today", "week" (both time-decayed) or "all".
+     */
+    @GetMapping("/popular")
+    public ResponseEntity<?> getPopularResources(
+            @RequestParam(defaultValue = "all") String window,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            List<Resource> resources = resourceService.getPopularResources(window, limit);
+            return ResponseEntity.ok(new ApiResponse<>("Popular resources retrieved successfully", resources));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage(), null));
+        }
     }
 
     /**
@@ -318,4 +460,19 @@ public class ResourceController {
         List<String> types = resourceService.getAllResourceTypes();
         return ResponseEntity.ok(new ApiResponse<>("Resource types retrieved successfully", types));
     }
+
+    /**
+     * Counts per category, resource type and audience. Each facet is narrowed by the
+     * other selections but not its own, so every alternative shows its count.
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<?> getFacets(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String resourceType,
+            @RequestParam(required = false) String audience) {
+        Map<String, Map<String, Integer>> facets = resourceService.getFacetCounts(category, resourceType, audience);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(new ApiResponse<>("Facets retrieved successfully", facets));
+    }
 }
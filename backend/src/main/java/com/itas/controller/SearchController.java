@@ -0,0 +1,49 @@
+package com.itas.controller;
+
+import com.itas.dto.ApiResponse;
+import com.itas.service.SearchIndex;
+import com.itas.service.SearchIndexService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unified search across resources, courses, modules and help content,
+ * answered from the in-memory index.
+ */
+@RestController
+@RequestMapping("/search")
+public class SearchController {
+    
+    @Autowired
+    private SearchIndexService searchIndexService;
+    
+    /**
+     * GET /api/search?q=vat regis&type=RESOURCE&limit=20
+     */
+    @GetMapping
+    public ResponseEntity<?> search(
+            @RequestParam("q") String q,
+            @RequestParam(required = false) String type,
+            @RequestParam(defaultValue = "20") int limit) {
+        
+        long started = System.nanoTime();
+        List<SearchIndex.Hit> hits = searchIndexService.search(q, type, Math.min(Math.max(1, limit), 100));
+        
+        boolean ready = searchIndexService.isReady();
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("hits", hits);
+        result.put("indexReady", ready);
+        // Until the first build finishes, only documents saved since startup are indexed
+        result.put("partial", !ready);
+        result.put("tookMicros", (System.nanoTime() - started) / 1000);
+        return ResponseEntity.ok(new ApiResponse<>(ready
+                ? "Search results"
+                : "Search index is still being built; results are partial", result));
+    }
+}
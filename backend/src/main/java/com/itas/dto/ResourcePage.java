@@ -0,0 +1,19 @@
+package com.itas.dto;
+
+import java.util.List;
+
+/**
+ * One keyset page: pass nextCursor back as ?cursor= for the following page (null on the last page).
+ */
+public class ResourcePage {
+    private List<ResourceSummary> items;
+    private String nextCursor;
+
+    public ResourcePage(List<ResourceSummary> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ResourceSummary> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+}
@@ -0,0 +1,63 @@
+package com.itas.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.itas.model.Resource;
+
+import java.time.LocalDateTime;
+
+/**
+ * List-view projection of a resource: selected straight from the resources
+ * table, without tags, uploader or other associations.
+ */
+public class ResourceSummary {
+    private Long id;
+    private String title;
+    private String description;
+    @JsonProperty("type")  // Same name as Resource for frontend compatibility
+    private String resourceType;
+    private String category;
+    private String audience;
+    private String status;
+    private String fileName;
+    private Long fileSize;
+    private String mimeType;
+    private Integer viewCount;
+    private Integer downloadCount;
+    private LocalDateTime uploadedAt;
+    private String thumbnailUrl;
+
+    public ResourceSummary(Long id, String title, String description, String resourceType, String category,
+                           String audience, String status, String fileName, Long fileSize, String mimeType,
+                           Integer viewCount, Integer downloadCount, LocalDateTime uploadedAt,
+                           String thumbnailPath, String fileHash, Integer version) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.resourceType = resourceType;
+        this.category = category;
+        this.audience = audience;
+        this.status = status;
+        this.fileName = fileName;
+        this.fileSize = fileSize;
+        this.mimeType = mimeType;
+        this.viewCount = viewCount != null ? viewCount : 0;
+        this.downloadCount = downloadCount != null ? downloadCount : 0;
+        this.uploadedAt = uploadedAt;
+        this.thumbnailUrl = Resource.thumbnailUrl(id, thumbnailPath, fileHash, version);
+    }
+
+    public Long getId() { return id; }
+    public String getTitle() { return title; }
+    public String getDescription() { return description; }
+    public String getResourceType() { return resourceType; }
+    public String getCategory() { return category; }
+    public String getAudience() { return audience; }
+    public String getStatus() { return status; }
+    public String getFileName() { return fileName; }
+    public Long getFileSize() { return fileSize; }
+    public String getMimeType() { return mimeType; }
+    public Integer getViewCount() { return viewCount; }
+    public Integer getDownloadCount() { return downloadCount; }
+    public LocalDateTime getUploadedAt() { return uploadedAt; }
+    public String getThumbnailUrl() { return thumbnailUrl; }
+}
@@ -1,5 +1,7 @@
 package com.itas.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
@@ -21,10 +23,28 @@ public class ArchivedResource {
     
     private String resourceType;
     private String category;
+    
+    private String audience;
+    
+    // The archived file: original name/type/size/digest, and where its (possibly gzipped) copy lives in cold storage
+    private String fileName;
+    
+    private String mimeType;
+    
+    private Long fileSize;
+    
+    private String fileHash;
+    
+    @JsonIgnore
+    @Column(length = 500)
+    private String archivePath;
+    
+    private Long archivedSize;
     private String archiveReason;
     
     @ManyToOne
     @JoinColumn(name = "archived_by")
+    @JsonIgnoreProperties({"password", "hibernateLazyInitializer", "handler"})
     private User archivedBy;
     
     private LocalDateTime archivedAt = LocalDateTime.now();
@@ -57,4 +77,25 @@ public class ArchivedResource {
     public void setCategory(String category) { this.category = category; }
     public String getArchiveReason() { return archiveReason; }
     public void setArchiveReason(String archiveReason) { this.archiveReason = archiveReason; }
-}
\ No newline at end of file
+    
+    public String getAudience() { return audience; }
+    public void setAudience(String audience) { this.audience = audience; }
+    
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+    
+    public String getMimeType() { return mimeType; }
+    public void setMimeType(String mimeType) { this.mimeType = mimeType; }
+    
+    public Long getFileSize() { return fileSize; }
+    public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
+    
+    public String getFileHash() { return fileHash; }
+    public void setFileHash(String fileHash) { this.fileHash = fileHash; }
+    
+    public String getArchivePath() { return archivePath; }
+    public void setArchivePath(String archivePath) { this.archivePath = archivePath; }
+    
+    public Long getArchivedSize() { return archivedSize; }
+    public void setArchivedSize(Long archivedSize) { this.archivedSize = archivedSize; }
+}
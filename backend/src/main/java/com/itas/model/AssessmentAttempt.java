@@ -42,6 +42,12 @@ public class AssessmentAttempt {
     @Column(columnDefinition = "TEXT")
     private String answers;  // JSON string of user answers
     
+    @Column(name = "question_seed")
+    private Long questionSeed;  // Sampled exams are drawn with this seed
+    
+    @Column(name = "question_ids", columnDefinition = "TEXT")
+    private String questionIds;  // Comma-separated ids served to a sampled attempt; graded against these
+    
     // Constructors
     public AssessmentAttempt() {}
     
@@ -85,4 +91,10 @@ public class AssessmentAttempt {
     
     public String getAnswers() { return answers; }
     public void setAnswers(String answers) { this.answers = answers; }
+    
+    public Long getQuestionSeed() { return questionSeed; }
+    public void setQuestionSeed(Long questionSeed) { this.questionSeed = questionSeed; }
+    
+    public String getQuestionIds() { return questionIds; }
+    public void setQuestionIds(String questionIds) { this.questionIds = questionIds; }
 }
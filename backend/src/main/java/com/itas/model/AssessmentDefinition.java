@@ -37,6 +37,9 @@ public class AssessmentDefinition {
     @Column(name = "time_limit_minutes", nullable = false)
     private Integer timeLimitMinutes = 60;
     
+    @Column(name = "questions_per_module")
+    private Integer questionsPerModule;  // NULL or 0 = every question in the bank
+    
     @Column(name = "show_correct_answers", nullable = false)
     private Boolean showCorrectAnswers = true;
     
@@ -83,6 +86,9 @@ public class AssessmentDefinition {
     public Integer getTimeLimitMinutes() { return timeLimitMinutes; }
     public void setTimeLimitMinutes(Integer timeLimitMinutes) { this.timeLimitMinutes = timeLimitMinutes; }
     
+    public Integer getQuestionsPerModule() { return questionsPerModule; }
+    public void setQuestionsPerModule(Integer questionsPerModule) { this.questionsPerModule = questionsPerModule; }
+    
     public Boolean getShowCorrectAnswers() { return showCorrectAnswers; }
     public void setShowCorrectAnswers(Boolean showCorrectAnswers) { this.showCorrectAnswers = showCorrectAnswers; }
     
@@ -1,9 +1,12 @@
 package com.itas.model;
 
+import com.itas.service.CatalogChangeListener;
+import com.itas.service.SearchIndexListener;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners({SearchIndexListener.class, CatalogChangeListener.class})
 @Table(name = "courses")
 public class Course {
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -1,11 +1,13 @@
 package com.itas.model;
 
+import com.itas.service.SearchIndexListener;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners(SearchIndexListener.class)
 @Table(name = "help_contents")
 public class HelpContent {
     
@@ -1,12 +1,15 @@
 package com.itas.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.itas.service.CatalogChangeListener;
+import com.itas.service.SearchIndexListener;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners({SearchIndexListener.class, CatalogChangeListener.class})
 @Table(name = "modules")
 public class Module {
     @Id
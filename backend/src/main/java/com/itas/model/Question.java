@@ -1,5 +1,6 @@
 package com.itas.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
@@ -7,7 +8,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "questions")
+@Table(name = "questions", indexes = {
+    @Index(name = "idx_questions_module_stem", columnList = "module_id, stem_hash"),
+    @Index(name = "idx_questions_course_stem", columnList = "course_id, stem_hash")
+})
 public class Question {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -46,6 +50,15 @@ public class Question {
 
     @Column(columnDefinition = "TEXT")
     private String explanation; // Explanation for practice questions
+
+    // Import de-duplication fingerprints, see QuestionFingerprint
+    @JsonIgnore
+    @Column(name = "stem_hash", length = 64)
+    private String stemHash;
+
+    @JsonIgnore
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
     
     @OneToMany(mappedBy = "question", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonIgnoreProperties({"question"})
@@ -95,6 +108,18 @@ public class Question {
     public String getExplanation() { return explanation; }
     public void setExplanation(String explanation) { this.explanation = explanation; }
     
+    public String getStemHash() { return stemHash; }
+    public void setStemHash(String stemHash) { this.stemHash = stemHash; }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    
     public List<Answer> getAnswers() { return answers; }
     public void setAnswers(List<Answer> answers) { this.answers = answers; }
+
+    @PrePersist
+    @PreUpdate
+    void updateFingerprint() {
+        QuestionFingerprint.apply(this);
+    }
 }
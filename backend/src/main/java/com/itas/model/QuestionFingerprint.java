@@ -0,0 +1,72 @@
+package com.itas.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalized SHA-256 fingerprints of a question.
+ *
+ * stemHash covers only the question text and identifies "the same question"
+ * across re-imports; contentHash also covers the options, answer key,
+ * category, explanation and points, so an unchanged re-import can be skipped
+ * and an edited one updated in place. Case, whitespace, Unicode compatibility
+ * forms and "A)"-style option labels do not affect either hash.
+ */
+public final class QuestionFingerprint {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern OPTION_LABEL = Pattern.compile("^[A-Za-z][).]\\s*");
+    private static final char SEPARATOR = '\u001f';
+
+    private QuestionFingerprint() {}
+
+    public static void apply(Question question) {
+        question.setStemHash(stemHash(question));
+        question.setContentHash(contentHash(question));
+    }
+
+    public static String stemHash(Question question) {
+        return sha256(normalize(question.getQuestionText()));
+    }
+
+    public static String contentHash(Question question) {
+        StringBuilder sb = new StringBuilder(normalize(question.getQuestionText()));
+        sb.append(SEPARATOR).append(question.getQuestionCategory());
+
+        List<Answer> answers = question.getAnswers() != null ? new ArrayList<>(question.getAnswers()) : new ArrayList<>();
+        answers.sort(Comparator.comparing(Answer::getOrder, Comparator.nullsLast(Comparator.naturalOrder())));
+        for (Answer answer : answers) {
+            String text = normalize(answer.getAnswerText());
+            sb.append(SEPARATOR)
+              .append(Boolean.TRUE.equals(answer.getIsCorrect()) ? '*' : ' ')
+              .append(OPTION_LABEL.matcher(text).replaceFirst(""));
+        }
+
+        sb.append(SEPARATOR).append(normalize(question.getExplanation()));
+        sb.append(SEPARATOR).append(question.getPoints());
+        return sha256(sb.toString());
+    }
+
+    static String normalize(String text) {
+        if (text == null) return "";
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        return WHITESPACE.matcher(folded).replaceAll(" ").trim();
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.itas.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Running item-analysis counters for a single question.
+ * Rows are only ever incremented by ItemStatisticsService flushes.
+ */
+@Entity
+@Table(name = "question_stats")
+public class QuestionStat {
+    @Id
+    @Column(name = "question_id")
+    private Long questionId;
+    
+    private long attempts;
+    
+    @Column(name = "correct_count")
+    private long correctCount;
+    
+    // Sum of the candidates' overall percentage on the paper the question appeared in
+    @Column(name = "score_sum")
+    private double scoreSum;
+    
+    @Column(name = "top_attempts")
+    private long topAttempts;
+    
+    @Column(name = "top_correct")
+    private long topCorrect;
+    
+    @Column(name = "top_score_sum")
+    private double topScoreSum;
+    
+    @Column(name = "bottom_attempts")
+    private long bottomAttempts;
+    
+    @Column(name = "bottom_correct")
+    private long bottomCorrect;
+    
+    @Column(name = "bottom_score_sum")
+    private double bottomScoreSum;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public Long getQuestionId() { return questionId; }
+    public void setQuestionId(Long questionId) { this.questionId = questionId; }
+    public long getAttempts() { return attempts; }
+    public void setAttempts(long attempts) { this.attempts = attempts; }
+    public long getCorrectCount() { return correctCount; }
+    public void setCorrectCount(long correctCount) { this.correctCount = correctCount; }
+    public double getScoreSum() { return scoreSum; }
+    public void setScoreSum(double scoreSum) { this.scoreSum = scoreSum; }
+    public long getTopAttempts() { return topAttempts; }
+    public void setTopAttempts(long topAttempts) { this.topAttempts = topAttempts; }
+    public long getTopCorrect() { return topCorrect; }
+    public void setTopCorrect(long topCorrect) { this.topCorrect = topCorrect; }
+    public double getTopScoreSum() { return topScoreSum; }
+    public void setTopScoreSum(double topScoreSum) { this.topScoreSum = topScoreSum; }
+    public long getBottomAttempts() { return bottomAttempts; }
+    public void setBottomAttempts(long bottomAttempts) { this.bottomAttempts = bottomAttempts; }
+    public long getBottomCorrect() { return bottomCorrect; }
+    public void setBottomCorrect(long bottomCorrect) { this.bottomCorrect = bottomCorrect; }
+    public double getBottomScoreSum() { return bottomScoreSum; }
+    public void setBottomScoreSum(double bottomScoreSum) { this.bottomScoreSum = bottomScoreSum; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -1,13 +1,22 @@
 package com.itas.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.itas.service.ResourceFacetListener;
+import com.itas.service.SearchIndexListener;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.Set;
 
 @Entity
-@Table(name = "resources")
+@EntityListeners({SearchIndexListener.class, ResourceFacetListener.class})
+@Table(name = "resources", indexes = {
+    @Index(name = "idx_resources_category", columnList = "category"),
+    @Index(name = "idx_resources_resource_type", columnList = "resourceType"),
+    @Index(name = "idx_resources_audience", columnList = "audience"),
+    @Index(name = "idx_resources_popularity", columnList = "download_count DESC, id DESC")
+})
 public class Resource {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -32,9 +41,16 @@ public class Resource {
     private Integer version = 1;
     private Boolean isLatestVersion = true;
     private Boolean archived = false;
+    // Only ever incremented in SQL by ResourceCounterService; entity saves must not overwrite them
+    @Column(name = "view_count", nullable = false, updatable = false)
     private Integer viewCount = 0;
+    @Column(name = "download_count", nullable = false, updatable = false)
     private Integer downloadCount = 0;
     private Long previousVersionId;
+    // Written only by ThumbnailService once the preview image exists
+    @JsonIgnore
+    @Column(name = "thumbnail_path", insertable = false, updatable = false)
+    private String thumbnailPath;
 
     @ManyToOne
     @JoinColumn(name = "uploaded_by")
@@ -125,6 +141,19 @@ public class Resource {
     public Long getPreviousVersionId() { return previousVersionId; }
     public void setPreviousVersionId(Long previousVersionId) { this.previousVersionId = previousVersionId; }
 
+    public String getThumbnailPath() { return thumbnailPath; }
+
+    // Relative to the API base; the version parameter changes with the file, so the image can be cached for good
+    public String getThumbnailUrl() {
+        return thumbnailUrl(id, thumbnailPath, fileHash, version);
+    }
+
+    public static String thumbnailUrl(Long id, String thumbnailPath, String fileHash, Integer version) {
+        if (thumbnailPath == null || id == null) return null;
+        String v = fileHash != null ? fileHash.substring(0, Math.min(16, fileHash.length())) : String.valueOf(version);
+        return "/resources/" + id + "/thumbnail?v=" + v;
+    }
+
     public User getUploadedBy() { return uploadedBy; }
     public void setUploadedBy(User uploadedBy) { this.uploadedBy = uploadedBy; }
 
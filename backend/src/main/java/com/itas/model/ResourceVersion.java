@@ -1,7 +1,11 @@
 package com.itas.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
 @Table(name = "resource_versions")
@@ -10,6 +14,7 @@ public class ResourceVersion {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    @JsonIgnore
     @ManyToOne
     @JoinColumn(name = "resource_id")
     private Resource resource;
@@ -20,11 +25,25 @@ public class ResourceVersion {
     private String filePath;
     private Long fileSize;
     private String mimeType;
+    
+    private String fileHash;
+    
+    // The file as an ordered list of content-defined chunks (see VersionStorageService)
+    @JsonIgnore
+    @ElementCollection
+    @CollectionTable(name = "resource_version_chunks", joinColumns = @JoinColumn(name = "version_id"))
+    @OrderColumn(name = "seq")
+    @Column(name = "chunk_digest", length = 64)
+    private List<String> chunkDigests = new ArrayList<>();
+    
+    // Bytes of chunks this version added that no earlier version had
+    private Long storedBytes;
     private Integer version;
     private String changeSummary;
     
     @ManyToOne
     @JoinColumn(name = "updated_by")
+    @JsonIgnoreProperties({"password", "hibernateLazyInitializer", "handler"})
     private User updatedBy;
     
     private LocalDateTime updatedAt;
@@ -65,4 +84,13 @@ public class ResourceVersion {
     
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
-}
\ No newline at end of file
+    
+    public String getFileHash() { return fileHash; }
+    public void setFileHash(String fileHash) { this.fileHash = fileHash; }
+    
+    public List<String> getChunkDigests() { return chunkDigests; }
+    public void setChunkDigests(List<String> chunkDigests) { this.chunkDigests = chunkDigests; }
+    
+    public Long getStoredBytes() { return storedBytes; }
+    public void setStoredBytes(Long storedBytes) { this.storedBytes = storedBytes; }
+}
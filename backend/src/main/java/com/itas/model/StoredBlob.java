@@ -0,0 +1,54 @@
+package com.itas.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One stored file content, addressed by its SHA-256 digest.
+ * ref_count is the number of resources pointing at it; it is only changed
+ * through BlobStorageService. A row at zero is a tombstone waiting for its
+ * file to be collected.
+ */
+@Entity
+@Table(name = "stored_blobs")
+public class StoredBlob {
+    @Id
+    @Column(length = 64)
+    private String digest;
+    
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+    
+    // Relative to the upload directory, e.g. blobs/ab/cd/<digest>
+    @Column(name = "storage_path", nullable = false)
+    private String storagePath;
+    
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "released_at")
+    private LocalDateTime releasedAt;
+    
+    public StoredBlob() {}
+    
+    public String getDigest() { return digest; }
+    public void setDigest(String digest) { this.digest = digest; }
+    
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+    
+    public String getStoragePath() { return storagePath; }
+    public void setStoragePath(String storagePath) { this.storagePath = storagePath; }
+    
+    public int getRefCount() { return refCount; }
+    public void setRefCount(int refCount) { this.refCount = refCount; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getReleasedAt() { return releasedAt; }
+    public void setReleasedAt(LocalDateTime releasedAt) { this.releasedAt = releasedAt; }
+}
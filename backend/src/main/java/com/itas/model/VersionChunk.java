@@ -0,0 +1,47 @@
+package com.itas.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One content-defined chunk of an older resource version, addressed by its SHA-256 digest.
+ * ref_count is the number of places in version manifests that use it; it is only changed
+ * through VersionStorageService. A row at zero is a tombstone waiting for its
+ * chunk to be collected.
+ */
+@Entity
+@Table(name = "version_chunks")
+public class VersionChunk {
+    @Id
+    @Column(length = 64)
+    private String digest;
+    
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+    
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "released_at")
+    private LocalDateTime releasedAt;
+    
+    public VersionChunk() {}
+    
+    public String getDigest() { return digest; }
+    public void setDigest(String digest) { this.digest = digest; }
+    
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+    
+    public int getRefCount() { return refCount; }
+    public void setRefCount(int refCount) { this.refCount = refCount; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getReleasedAt() { return releasedAt; }
+    public void setReleasedAt(LocalDateTime releasedAt) { this.releasedAt = releasedAt; }
+}
@@ -3,6 +3,9 @@ package com.itas.repository;
 import com.itas.model.Answer;
 import com.itas.model.Question;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +14,10 @@ import java.util.List;
 public interface AnswerRepository extends JpaRepository<Answer, Long> {
     List<Answer> findByQuestionOrderByOrderAsc(Question question);
     List<Answer> findByQuestionIdOrderByOrderAsc(Long questionId);
+
+    // Bulk course deletion: answers of the course's module and final-exam questions
+    @Modifying
+    @Query("DELETE FROM Answer a WHERE a.question.id IN " +
+           "(SELECT q.id FROM Question q LEFT JOIN q.module m WHERE m.course.id = :courseId OR q.courseId = :courseId)")
+    int bulkDeleteByCourseId(@Param("courseId") Long courseId);
 }
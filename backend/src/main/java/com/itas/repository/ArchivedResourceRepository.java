@@ -1,6 +1,7 @@
 package com.itas.repository;
 
 import com.itas.model.ArchivedResource;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import java.time.LocalDateTime;
@@ -12,9 +13,18 @@ public interface ArchivedResourceRepository extends JpaRepository<ArchivedResour
     
     List<ArchivedResource> findByDeletionScheduledForBeforeAndStatus(LocalDateTime dateTime, String status);
     
+    List<ArchivedResource> findByDeletionScheduledForBeforeAndStatusOrderByDeletionScheduledFor(
+            LocalDateTime dateTime, String status, Pageable pageable);
+    
     @Query("SELECT COUNT(a) FROM ArchivedResource a WHERE a.status = 'ARCHIVED'")
     long countArchived();
     
     @Query("SELECT COUNT(a) FROM ArchivedResource a WHERE a.status = 'DELETED'")
     long countDeleted();
+    
+    @Query("SELECT COALESCE(SUM(a.fileSize), 0) FROM ArchivedResource a WHERE a.status = 'ARCHIVED'")
+    long sumArchivedFileSize();
+    
+    @Query("SELECT COALESCE(SUM(a.archivedSize), 0) FROM ArchivedResource a WHERE a.status = 'ARCHIVED'")
+    long sumColdStorageSize();
 }
\ No newline at end of file
@@ -2,7 +2,9 @@ package com.itas.repository;
 
 import com.itas.model.AssessmentAttempt;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -30,7 +32,17 @@ public interface AssessmentAttemptRepository extends JpaRepository<AssessmentAtt
     List<AssessmentAttempt> findByUserIdAndAssessmentDefinitionIdAndPassed(
         Long userId, Long assessmentDefinitionId, Boolean passed);
     
+    // Find an attempt that was started but not yet submitted
+    Optional<AssessmentAttempt> findTopByUserIdAndAssessmentDefinitionIdAndCompletedAtIsNullOrderByAttemptNumberDesc(
+        Long userId, Long assessmentDefinitionId);
+    
     // Check if user has passed
     boolean existsByUserIdAndAssessmentDefinitionIdAndPassed(
         Long userId, Long assessmentDefinitionId, Boolean passed);
+
+    // Bulk course deletion
+    @Modifying
+    @Query("DELETE FROM AssessmentAttempt a WHERE a.assessmentDefinitionId IN " +
+           "(SELECT d.id FROM AssessmentDefinition d WHERE d.courseId = :courseId)")
+    int bulkDeleteByCourseId(@Param("courseId") Long courseId);
 }
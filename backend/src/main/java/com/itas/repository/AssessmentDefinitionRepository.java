@@ -2,6 +2,9 @@ package com.itas.repository;
 
 import com.itas.model.AssessmentDefinition;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -27,4 +30,9 @@ public interface AssessmentDefinitionRepository extends JpaRepository<Assessment
     
     // Check if final exam exists for course
     boolean existsByCourseIdAndIsFinalExam(Long courseId, Boolean isFinalExam);
+
+    // Bulk course deletion
+    @Modifying
+    @Query("DELETE FROM AssessmentDefinition d WHERE d.courseId = :courseId")
+    int bulkDeleteByCourseId(@Param("courseId") Long courseId);
 }
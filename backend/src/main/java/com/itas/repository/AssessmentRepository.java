@@ -4,7 +4,9 @@ import com.itas.model.Assessment;
 import com.itas.model.Module;
 import com.itas.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -20,4 +22,9 @@ public interface AssessmentRepository extends JpaRepository<Assessment, Long> {
     
     @Query("SELECT a FROM Assessment a WHERE a.user = ?1 AND a.module = ?2 AND a.passed = true")
     Optional<Assessment> findPassedAssessment(User user, Module module);
+
+    // Bulk course deletion: module assessment results
+    @Modifying
+    @Query("DELETE FROM Assessment a WHERE a.module.id IN (SELECT m.id FROM Module m WHERE m.course.id = :courseId)")
+    int bulkDeleteByCourseId(@Param("courseId") Long courseId);
 }
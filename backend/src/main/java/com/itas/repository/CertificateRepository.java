@@ -2,6 +2,9 @@ package com.itas.repository;
 
 import com.itas.model.Certificate;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +16,9 @@ public interface CertificateRepository extends JpaRepository<Certificate, Long>
     
     // Dashboard methods
     long countByUserId(Long userId);
+
+    // Bulk course deletion
+    @Modifying
+    @Query("DELETE FROM Certificate c WHERE c.course.id = :courseId")
+    int bulkDeleteByCourseId(@Param("courseId") Long courseId);
 }
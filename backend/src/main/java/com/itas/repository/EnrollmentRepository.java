@@ -2,6 +2,7 @@ package com.itas.repository;
 
 import com.itas.model.Enrollment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -23,4 +24,9 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     
     @Query("SELECT e FROM Enrollment e WHERE e.userId = :userId AND e.progress < :progress")
     List<Enrollment> findByUserIdAndProgressLessThan(@Param("userId") Long userId, @Param("progress") int progress);
+
+    // Bulk course deletion
+    @Modifying
+    @Query("DELETE FROM Enrollment e WHERE e.courseId = :courseId")
+    int bulkDeleteByCourseId(@Param("courseId") Long courseId);
 }
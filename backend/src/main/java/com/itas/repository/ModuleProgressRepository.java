@@ -2,6 +2,9 @@ package com.itas.repository;
 
 import com.itas.model.ModuleProgress;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,4 +23,14 @@ public interface ModuleProgressRepository extends JpaRepository<ModuleProgress,
     Optional<ModuleProgress> findByUserIdAndModuleId(Long userId, Long moduleId);
     
     void deleteByModuleId(Long moduleId);
-}
\ No newline at end of file
+    
+    @Query("SELECT mp.module.id FROM ModuleProgress mp WHERE mp.user.id = :userId " +
+           "AND mp.module.course.id = :courseId AND mp.completed = true")
+    List<Long> findCompletedModuleIdsByUserIdAndCourseId(@Param("userId") Long userId, @Param("courseId") Long courseId);
+
+    // Bulk course deletion: progress on the course's modules or under its enrollments
+    @Modifying
+    @Query("DELETE FROM ModuleProgress mp WHERE mp.module.id IN (SELECT m.id FROM Module m WHERE m.course.id = :courseId) " +
+           "OR mp.enrollment.id IN (SELECT e.id FROM Enrollment e WHERE e.courseId = :courseId)")
+    int bulkDeleteByCourseId(@Param("courseId") Long courseId);
+}
@@ -16,7 +16,7 @@ import java.util.Map;
 public interface ModuleRepository extends JpaRepository<Module, Long> {
 
     // Batch count modules per course — avoids N+1
-    @Query("SELECT m.courseId AS courseId, COUNT(m) AS moduleCount FROM Module m WHERE m.courseId IN :courseIds GROUP BY m.courseId")
+    @Query("SELECT m.course.id AS courseId, COUNT(m) AS moduleCount FROM Module m WHERE m.course.id IN :courseIds GROUP BY m.course.id")
     List<Map<String, Object>> countByCourseIdIn(@Param("courseIds") List<Long> courseIds);
     @Query(value = "SELECT * FROM modules WHERE course_id = :courseId ORDER BY module_order ASC", nativeQuery = true)
     List<Module> findByCourseIdOrderByModuleOrderAsc(@Param("courseId") Long courseId);
@@ -34,4 +34,9 @@ public interface ModuleRepository extends JpaRepository<Module, Long> {
     @Transactional
     @Query("UPDATE Module m SET m.contentUrl = :url, m.updatedAt = CURRENT_TIMESTAMP WHERE m.id = :id")
     void updateContentUrl(@Param("id") Long id, @Param("url") String url);
+
+    // Bulk course deletion
+    @Modifying
+    @Query("DELETE FROM Module m WHERE m.course.id = :courseId")
+    int bulkDeleteByCourseId(@Param("courseId") Long courseId);
 }
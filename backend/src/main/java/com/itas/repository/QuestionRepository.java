@@ -3,12 +3,15 @@ package com.itas.repository;
 import com.itas.model.Module;
 import com.itas.model.Question;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
-public interface QuestionRepository extends JpaRepository<Question, Long> {
+public interface QuestionRepository extends JpaRepository<Question, Long>, QuestionRepositoryCustom {
     List<Question> findByModuleOrderByOrderAsc(Module module);
     List<Question> findByModuleIdOrderByOrderAsc(Long moduleId);
     List<Question> findByModuleIdAndIsPracticeTrueOrderByOrderAsc(Long moduleId);
@@ -16,4 +19,32 @@ public interface QuestionRepository extends JpaRepository<Question, Long> {
     List<Question> findByCourseIdAndQuestionCategory(Long courseId, String questionCategory);
     List<Question> findByModuleIdAndQuestionCategory(Long moduleId, String questionCategory);
     long countByModuleIdAndIsPracticeFalse(Long moduleId);
+    
+    @Query("SELECT COALESCE(MAX(q.order), 0) FROM Question q WHERE q.module.id = :moduleId")
+    int findMaxOrderByModuleId(@Param("moduleId") Long moduleId);
+    
+    @Query("SELECT COALESCE(MAX(q.order), 0) FROM Question q WHERE q.module IS NULL AND q.courseId = :courseId")
+    int findMaxOrderForCourseLevel(@Param("courseId") Long courseId);
+    
+    // (id, stemHash, contentHash) of a module's questions, for import de-duplication
+    @Query("SELECT q.id, q.stemHash, q.contentHash FROM Question q WHERE q.module.id = :moduleId")
+    List<Object[]> findFingerprintsByModuleId(@Param("moduleId") Long moduleId);
+    
+    @Query("SELECT q.id, q.stemHash, q.contentHash FROM Question q WHERE q.module IS NULL AND q.courseId = :courseId")
+    List<Object[]> findCourseLevelFingerprints(@Param("courseId") Long courseId);
+    
+    // (moduleId, questionId) pairs of the final exam bank, in module and question order
+    @Query("SELECT q.module.id, q.id FROM Question q WHERE q.module.course.id = :courseId AND q.isPractice = false " +
+           "ORDER BY q.module.moduleOrder ASC, q.module.id ASC, q.order ASC, q.id ASC")
+    List<Object[]> findExamBankRows(@Param("courseId") Long courseId);
+
+    // Ids of a course's module questions and course-level (final exam) questions
+    @Query("SELECT q.id FROM Question q LEFT JOIN q.module m WHERE m.course.id = :courseId OR q.courseId = :courseId")
+    List<Long> findIdsByCourseId(@Param("courseId") Long courseId);
+
+    // Bulk course deletion: module questions and course-level (final exam) questions
+    @Modifying
+    @Query("DELETE FROM Question q WHERE q.module.id IN (SELECT m.id FROM Module m WHERE m.course.id = :courseId) " +
+           "OR q.courseId = :courseId")
+    int bulkDeleteByCourseId(@Param("courseId") Long courseId);
 }
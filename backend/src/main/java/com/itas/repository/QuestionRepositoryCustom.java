@@ -0,0 +1,11 @@
+package com.itas.repository;
+
+import com.itas.model.Question;
+
+import java.util.List;
+
+public interface QuestionRepositoryCustom {
+    
+    // Insert new questions and their answers with JDBC batches; generated ids are set on the entities
+    void batchInsert(List<Question> questions);
+}
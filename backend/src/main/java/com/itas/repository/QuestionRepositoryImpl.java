@@ -0,0 +1,116 @@
+package com.itas.repository;
+
+import com.itas.model.Answer;
+import com.itas.model.Question;
+import com.itas.model.QuestionFingerprint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC batch insert for bulk question imports. Question ids are IDENTITY
+ * columns, which disables Hibernate insert batching, so imports go through
+ * plain PreparedStatement batches and read the keys back per batch.
+ */
+public class QuestionRepositoryImpl implements QuestionRepositoryCustom {
+
+    private static final int BATCH_SIZE = 200;
+
+    private static final String INSERT_QUESTION =
+            "INSERT INTO questions (module_id, course_id, question_text, question_type, question_order, points, " +
+            "created_at, is_practice, question_category, explanation, stem_hash, content_hash) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_ANSWER =
+            "INSERT INTO answers (question_id, answer_text, is_correct, answer_order) VALUES (?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void batchInsert(List<Question> questions) {
+        if (questions.isEmpty()) return;
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            for (int from = 0; from < questions.size(); from += BATCH_SIZE) {
+                List<Question> batch = questions.subList(from, Math.min(from + BATCH_SIZE, questions.size()));
+                insertQuestions(connection, batch);
+                insertAnswers(connection, batch);
+            }
+            return null;
+        });
+    }
+
+    private void insertQuestions(Connection connection, List<Question> batch) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_QUESTION, Statement.RETURN_GENERATED_KEYS)) {
+            for (Question q : batch) {
+                if (q.getCreatedAt() == null) q.setCreatedAt(LocalDateTime.now());
+                if (q.getStemHash() == null) QuestionFingerprint.apply(q);
+                setLong(ps, 1, q.getModule() != null ? q.getModule().getId() : null);
+                setLong(ps, 2, q.getCourseId());
+                ps.setString(3, q.getQuestionText());
+                ps.setString(4, q.getQuestionType() != null ? q.getQuestionType().name() : null);
+                if (q.getOrder() != null) ps.setInt(5, q.getOrder()); else ps.setNull(5, Types.INTEGER);
+                ps.setInt(6, q.getPoints() != null ? q.getPoints() : 1);
+                ps.setTimestamp(7, Timestamp.valueOf(q.getCreatedAt()));
+                ps.setBoolean(8, Boolean.TRUE.equals(q.getIsPractice()));
+                ps.setString(9, q.getQuestionCategory());
+                ps.setString(10, q.getExplanation());
+                ps.setString(11, q.getStemHash());
+                ps.setString(12, q.getContentHash());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            readKeys(ps, batch.size(), (i, id) -> batch.get(i).setId(id));
+        }
+    }
+
+    private void insertAnswers(Connection connection, List<Question> batch) throws SQLException {
+        List<Answer> answers = new ArrayList<>();
+        for (Question q : batch) {
+            if (q.getAnswers() != null) answers.addAll(q.getAnswers());
+        }
+        if (answers.isEmpty()) return;
+
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_ANSWER, Statement.RETURN_GENERATED_KEYS)) {
+            for (Answer a : answers) {
+                ps.setLong(1, a.getQuestion().getId());
+                ps.setString(2, a.getAnswerText());
+                ps.setBoolean(3, Boolean.TRUE.equals(a.getIsCorrect()));
+                if (a.getOrder() != null) ps.setInt(4, a.getOrder()); else ps.setNull(4, Types.INTEGER);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            readKeys(ps, answers.size(), (i, id) -> answers.get(i).setId(id));
+        }
+    }
+
+    private interface KeyConsumer {
+        void accept(int index, long id);
+    }
+
+    private void readKeys(PreparedStatement ps, int expected, KeyConsumer consumer) throws SQLException {
+        try (ResultSet keys = ps.getGeneratedKeys()) {
+            int i = 0;
+            while (keys.next() && i < expected) {
+                consumer.accept(i++, keys.getLong("id"));
+            }
+        }
+    }
+
+    private void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value != null) ps.setLong(index, value); else ps.setNull(index, Types.BIGINT);
+    }
+}
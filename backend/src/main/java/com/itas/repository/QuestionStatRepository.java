@@ -0,0 +1,18 @@
+package com.itas.repository;
+
+import com.itas.model.QuestionStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface QuestionStatRepository extends JpaRepository<QuestionStat, Long> {
+
+    // Bulk course deletion (see CourseService.deleteCourse)
+    @Modifying
+    @Query("DELETE FROM QuestionStat s WHERE s.questionId IN " +
+           "(SELECT q.id FROM Question q LEFT JOIN q.module m WHERE m.course.id = :courseId OR q.courseId = :courseId)")
+    int bulkDeleteByCourseId(@Param("courseId") Long courseId);
+}
@@ -2,14 +2,17 @@ package com.itas.repository;
 
 import com.itas.model.Resource;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ResourceRepository extends JpaRepository<Resource, Long> {
+public interface ResourceRepository extends JpaRepository<Resource, Long>, JpaSpecificationExecutor<Resource>,
+        ResourceRepositoryCustom {
     
     List<Resource> findByCategory(String category);
     
@@ -21,10 +24,7 @@ public interface ResourceRepository extends JpaRepository<Resource, Long> {
     
     List<Resource> findByArchivedFalse();
     
-    @Query("SELECT r FROM Resource r WHERE " +
-           "LOWER(r.title) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-           "LOWER(r.description) LIKE LOWER(CONCAT('%', :query, '%'))")
-    List<Resource> searchByTitleOrDescription(@Param("query") String query);
+    Optional<Resource> findFirstByFileHash(String fileHash);
     
     @Query("SELECT SUM(r.viewCount) FROM Resource r")
     Long sumViewCount();
@@ -38,12 +38,6 @@ public interface ResourceRepository extends JpaRepository<Resource, Long> {
     @Query("SELECT r FROM Resource r WHERE r.uploadedBy.id = :userId")
     List<Resource> findByUploadedBy(@Param("userId") Long userId);
     
-    @Query("SELECT r FROM Resource r WHERE " +
-           "LOWER(r.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-           "LOWER(r.description) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-           "LOWER(r.category) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    List<Resource> searchByKeyword(@Param("keyword") String keyword);
-    
     // Dashboard methods
     long countByResourceType(String resourceType);
     long countByStatus(String status);
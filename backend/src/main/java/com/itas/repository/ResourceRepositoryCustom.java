@@ -0,0 +1,16 @@
+package com.itas.repository;
+
+import com.itas.dto.ResourcePage;
+import com.itas.model.Resource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface ResourceRepositoryCustom {
+    
+    // Ranked full-text search; null filters are ignored, an empty query lists the newest resources
+    Page<Resource> search(String query, String category, String resourceType, String audience, Pageable pageable);
+    
+    // Keyset-paginated summaries ordered by "recent" (newest first) or "popular" (most downloaded first)
+    ResourcePage findSummaries(Specification<Resource> spec, String sort, String cursor, int limit);
+}
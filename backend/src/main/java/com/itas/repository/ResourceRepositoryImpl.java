@@ -0,0 +1,212 @@
+package com.itas.repository;
+
+import com.itas.dto.ResourcePage;
+import com.itas.dto.ResourceSummary;
+import com.itas.model.Resource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Resource search with every filter, the ranking and the paging done in SQL.
+ *
+ * On PostgreSQL the query runs against resources.search_vector (kept current by
+ * a trigger, see V9) through its GIN index and is ordered by ts_rank; the last
+ * term is matched as a prefix so partial words work while typing. Other
+ * databases (H2 in tests) get the same contract with per-term LIKE matching,
+ * title hits ranked first.
+ *
+ * Listings (findSummaries) are Criteria queries built from Specifications that
+ * select the summary columns only, paged by keyset: the cursor carries the
+ * sort value and id of the last row, so page N costs the same as page 1.
+ */
+public class ResourceRepositoryImpl implements ResourceRepositoryCustom {
+
+    private static final Pattern TERM = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile Boolean postgres;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Resource> search(String query, String category, String resourceType, String audience,
+                                 Pageable pageable) {
+        List<String> terms = terms(query);
+        StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        String rank;
+
+        if (terms.isEmpty()) {
+            rank = null;
+        } else if (isPostgres()) {
+            where.append(" AND r.search_vector @@ to_tsquery('english', ?)");
+            params.add(tsQuery(terms));
+            rank = "ts_rank(r.search_vector, to_tsquery('english', ?))";
+        } else {
+            for (String term : terms) {
+                where.append(" AND (LOWER(r.title) LIKE ? OR LOWER(r.description) LIKE ? OR LOWER(r.category) LIKE ?)");
+                String like = "%" + term + "%";
+                params.add(like);
+                params.add(like);
+                params.add(like);
+            }
+            rank = "CASE WHEN LOWER(r.title) LIKE ? THEN 1 ELSE 0 END";
+        }
+        addFilter(where, params, "r.category", category);
+        addFilter(where, params, "r.resource_type", resourceType);
+        addFilter(where, params, "r.audience", audience);
+
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM resources r" + where, Long.class, params.toArray());
+        if (total == null || total == 0 || pageable.getOffset() >= total) {
+            return new PageImpl<>(List.of(), pageable, total != null ? total : 0);
+        }
+
+        List<Object> pageParams = new ArrayList<>(params);
+        String orderBy = " ORDER BY r.uploaded_at DESC, r.id DESC";
+        if (rank != null) {
+            orderBy = " ORDER BY " + rank + " DESC, r.id DESC";
+            pageParams.add(isPostgres() ? tsQuery(terms) : "%" + terms.get(0) + "%");
+        }
+        pageParams.add(pageable.getPageSize());
+        pageParams.add(pageable.getOffset());
+
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT r.id FROM resources r" + where + orderBy + " LIMIT ? OFFSET ?", Long.class, pageParams.toArray());
+        return new PageImpl<>(load(ids), pageable, total);
+    }
+
+    @Override
+    public ResourcePage findSummaries(Specification<Resource> spec, String sort, String cursor, int limit) {
+        boolean popular = "popular".equalsIgnoreCase(sort);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ResourceSummary> query = cb.createQuery(ResourceSummary.class);
+        Root<Resource> r = query.from(Resource.class);
+        query.select(cb.construct(ResourceSummary.class,
+                r.get("id"), r.get("title"), r.get("description"), r.get("resourceType"), r.get("category"),
+                r.get("audience"), r.get("status"), r.get("fileName"), r.get("fileSize"), r.get("mimeType"),
+                r.get("viewCount"), r.get("downloadCount"), r.get("uploadedAt"),
+                r.get("thumbnailPath"), r.get("fileHash"), r.get("version")));
+
+        List<Predicate> where = new ArrayList<>();
+        if (spec != null) {
+            Predicate filters = spec.toPredicate(r, query, cb);
+            if (filters != null) where.add(filters);
+        }
+
+        Expression<Long> id = r.get("id");
+        // download_count is NOT NULL (V15), so sorting on the bare column can use idx_resources_popularity
+        Expression<Integer> downloads = r.get("downloadCount");
+        long[] after = decodeCursor(cursor);
+        if (after != null) {
+            if (popular) {
+                // (downloads, id) < (lastDownloads, lastId)
+                where.add(cb.or(
+                        cb.lessThan(downloads, (int) after[0]),
+                        cb.and(cb.equal(downloads, (int) after[0]), cb.lessThan(id, after[1]))));
+            } else {
+                where.add(cb.lessThan(id, after[1]));
+            }
+        }
+        query.where(where.toArray(new Predicate[0]));
+        // Ids are assigned in insert order, so id order is upload order
+        query.orderBy(popular
+                ? List.of(cb.desc(downloads), cb.desc(id))
+                : List.of(cb.desc(id)));
+
+        List<ResourceSummary> rows = entityManager.createQuery(query).setMaxResults(limit + 1).getResultList();
+        if (rows.size() <= limit) return new ResourcePage(rows, null);
+
+        List<ResourceSummary> items = rows.subList(0, limit);
+        ResourceSummary last = items.get(limit - 1);
+        return new ResourcePage(new ArrayList<>(items),
+                encodeCursor(popular ? last.getDownloadCount() : 0, last.getId()));
+    }
+
+    private static String encodeCursor(long sortValue, long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((sortValue + ":" + id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static long[] decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split(":");
+            return new long[] {Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /** Fetch the page's entities in one query, keeping the ranked order. */
+    private List<Resource> load(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        Map<Long, Resource> byId = entityManager
+                .createQuery("SELECT r FROM Resource r WHERE r.id IN :ids", Resource.class)
+                .setParameter("ids", ids)
+                .getResultList().stream()
+                .collect(Collectors.toMap(Resource::getId, Function.identity()));
+        List<Resource> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Resource resource = byId.get(id);
+            if (resource != null) ordered.add(resource);
+        }
+        return ordered;
+    }
+
+    private static void addFilter(StringBuilder where, List<Object> params, String column, String value) {
+        if (value == null || value.isBlank()) return;
+        where.append(" AND ").append(column).append(" = ?");
+        params.add(value);
+    }
+
+    static List<String> terms(String query) {
+        List<String> terms = new ArrayList<>();
+        if (query == null) return terms;
+        Matcher m = TERM.matcher(query.toLowerCase(Locale.ROOT));
+        while (m.find()) terms.add(m.group());
+        return terms;
+    }
+
+    /** All terms must match; the last one as a prefix. Terms are letters and digits only, so no escaping is needed. */
+    static String tsQuery(List<String> terms) {
+        return String.join(" & ", terms) + ":*";
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            result = product != null && product.toLowerCase(Locale.ROOT).contains("postgres");
+            postgres = result;
+        }
+        return result;
+    }
+}
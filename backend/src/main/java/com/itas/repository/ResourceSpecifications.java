@@ -0,0 +1,36 @@
+package com.itas.repository;
+
+import com.itas.model.Resource;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Composable filters for resource listings. A null or blank value matches everything,
+ * so callers can chain them without checking which filters were supplied.
+ */
+public final class ResourceSpecifications {
+
+    private ResourceSpecifications() {}
+
+    public static Specification<Resource> filtered(String category, String resourceType, String audience) {
+        return Specification.where(hasCategory(category))
+                .and(hasResourceType(resourceType))
+                .and(hasAudience(audience));
+    }
+
+    public static Specification<Resource> hasCategory(String category) {
+        return equalTo("category", category);
+    }
+
+    public static Specification<Resource> hasResourceType(String resourceType) {
+        return equalTo("resourceType", resourceType);
+    }
+
+    public static Specification<Resource> hasAudience(String audience) {
+        return equalTo("audience", audience);
+    }
+
+    private static Specification<Resource> equalTo(String attribute, String value) {
+        if (value == null || value.isBlank()) return null;
+        return (root, query, cb) -> cb.equal(root.get(attribute), value);
+    }
+}
@@ -0,0 +1,9 @@
+package com.itas.repository;
+
+import com.itas.model.VersionChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface VersionChunkRepository extends JpaRepository<VersionChunk, String> {
+}
@@ -0,0 +1,47 @@
+package com.itas.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers work that must only happen once the surrounding transaction has
+ * committed: cache invalidation, in-memory index updates, deleting storage
+ * objects. Outside a transaction the action runs immediately.
+ *
+ * The actions run after the transaction has finished but while its
+ * connection may still be bound, so database writes from them need a
+ * transaction of their own (PROPAGATION_REQUIRES_NEW).
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Runs the action if the current transaction rolls back, e.g. to clean up
+     * a side effect the database no longer records. Nothing to do outside a transaction.
+     */
+    public static void onRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) action.run();
+                }
+            });
+        }
+    }
+}
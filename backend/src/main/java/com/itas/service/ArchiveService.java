@@ -2,81 +2,236 @@ package com.itas.service;
 
 import com.itas.model.ArchivedResource;
 import com.itas.model.Resource;
+import com.itas.model.StoredBlob;
 import com.itas.model.User;
 import com.itas.repository.ArchivedResourceRepository;
 import com.itas.repository.ResourceRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Archiving moves a resource's file out of hot storage into compressed cold
+ * storage (ColdStorageService) and replaces the resource row with an
+ * archived_resources record. Restoring streams the file back into the blob
+ * store. A nightly job purges archives whose deletionScheduledFor has passed,
+ * in batches; purged records stay behind with status DELETED.
+ */
 @Service
 public class ArchiveService {
-    
+
+    public static final String ARCHIVED = "ARCHIVED";
+    public static final String DELETED = "DELETED";
+
     @Autowired
     private ArchivedResourceRepository archivedResourceRepository;
-    
+
     @Autowired
     private ResourceRepository resourceRepository;
-    
+
+    @Autowired
+    private ResourceService resourceService;
+
+    @Autowired
+    private BlobStorageService blobStorageService;
+
+    @Autowired
+    private ColdStorageService coldStorageService;
+
+    @Value("${app.archive.retention-days:90}")
+    private int retentionDays;
+
+    @Value("${app.archive.purge-batch-size:100}")
+    private int purgeBatchSize;
+
     public List<ArchivedResource> getAllArchivedResources() {
         return archivedResourceRepository.findAll();
     }
-    
+
     public ArchivedResource getArchivedResourceById(Long id) {
         return archivedResourceRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Archived resource not found with id: " + id));
     }
-    
+
+    /**
+     * Archive a resource; its file is purged at deletionScheduledFor (default: after the retention period).
+     */
     @Transactional
-    public ArchivedResource archiveResource(Long resourceId, String reason, User archivedBy) {
+    public ArchivedResource archiveResource(Long resourceId, String reason, LocalDateTime deletionScheduledFor,
+                                            User archivedBy) {
         Resource resource = resourceRepository.findById(resourceId)
                 .orElseThrow(() -> new RuntimeException("Resource not found"));
-        
+
         ArchivedResource archivedResource = new ArchivedResource();
         archivedResource.setOriginalResourceId(resourceId);
         archivedResource.setTitle(resource.getTitle());
         archivedResource.setDescription(resource.getDescription());
         archivedResource.setResourceType(resource.getResourceType());
         archivedResource.setCategory(resource.getCategory());
+        archivedResource.setAudience(resource.getAudience());
         archivedResource.setArchiveReason(reason);
         archivedResource.setArchivedBy(archivedBy);
         archivedResource.setArchivedAt(LocalDateTime.now());
-        
+        archivedResource.setDeletionScheduledFor(deletionScheduledFor != null
+                ? deletionScheduledFor : LocalDateTime.now().plusDays(retentionDays));
+        archivedResource.setStatus(ARCHIVED);
+
+        if (resource.getFilePath() != null) {
+            archivedResource.setFileName(resource.getFileName());
+            archivedResource.setMimeType(resource.getMimeType());
+            archivedResource.setFileSize(resource.getFileSize());
+            archivedResource.setFileHash(resource.getFileHash());
+            // A rollback after this point leaves an unreferenced cold copy, never a lost file
+            try {
+                ColdStorageService.ColdObject cold = coldStorageService.freeze(resource.getFilePath(), resource.getMimeType());
+                archivedResource.setArchivePath(cold.key());
+                archivedResource.setArchivedSize(cold.storedBytes());
+            } catch (IOException e) {
+                throw new RuntimeException("Could not move the resource file to cold storage: " + e.getMessage(), e);
+            }
+        }
+
         ArchivedResource saved = archivedResourceRepository.save(archivedResource);
-        
-        // Delete original resource
-        resourceRepository.delete(resource);
-        
+
+        // Delete original resource and release its hot file
+        resourceService.deleteResource(resourceId);
+
         return saved;
     }
-    
+
+    /**
+     * Bring an archived resource back as a new resource, streaming its file out of cold storage.
+     */
     @Transactional
     public Resource restoreResource(Long archivedResourceId, User restoredBy) {
         ArchivedResource archivedResource = getArchivedResourceById(archivedResourceId);
-        
+        if (!ARCHIVED.equals(archivedResource.getStatus())) {
+            throw new RuntimeException("Archived resource " + archivedResourceId + " has been purged and cannot be restored");
+        }
+
         Resource resource = new Resource();
         resource.setTitle(archivedResource.getTitle());
         resource.setDescription(archivedResource.getDescription());
         resource.setResourceType(archivedResource.getResourceType());
         resource.setCategory(archivedResource.getCategory());
-        resource.setUploadedAt(LocalDateTime.now());
-        resource.setViewCount(0);
-        resource.setDownloadCount(0);
-        
-        Resource restored = resourceRepository.save(resource);
-        
-        // Delete archived record
+        resource.setAudience(archivedResource.getAudience());
+        resource.setStatus("PUBLISHED");
+        resource.setUploadedBy(restoredBy);
+
+        String archivePath = archivedResource.getArchivePath();
+        if (archivePath != null) {
+            StoredBlob blob;
+            try (InputStream in = coldStorageService.thaw(archivePath)) {
+                blob = blobStorageService.store(in);
+            } catch (IOException e) {
+                throw new RuntimeException("Could not restore the resource file from cold storage: " + e.getMessage(), e);
+            }
+            if (archivedResource.getFileHash() != null && !archivedResource.getFileHash().equals(blob.getDigest())) {
+                blobStorageService.release(blob.getDigest());
+                throw new RuntimeException("Restored file does not match its archived checksum");
+            }
+            resource.setFilePath(blob.getStoragePath());
+            resource.setFileSize(blob.getSizeBytes());
+            resource.setFileHash(blob.getDigest());
+            resource.setFileName(archivedResource.getFileName());
+            resource.setMimeType(archivedResource.getMimeType());
+        }
+
+        Resource restored = resourceService.createResource(resource);
+
+        // Delete archived record; the cold copy goes once the restore has committed
         archivedResourceRepository.delete(archivedResource);
-        
+        if (archivePath != null) {
+            AfterCommit.run(() -> deleteColdCopy(archivePath));
+        }
+
         return restored;
     }
-    
+
+    /**
+     * Purge an archive now: its cold copy is deleted and the record is kept with status DELETED.
+     */
     @Transactional
     public void deleteArchivedResource(Long id) {
         ArchivedResource archivedResource = getArchivedResourceById(id);
-        archivedResourceRepository.delete(archivedResource);
+        if (DELETED.equals(archivedResource.getStatus())) return;
+        if (!purgeFile(archivedResource)) {
+            throw new RuntimeException("Could not delete the archived file; try again later");
+        }
+        archivedResourceRepository.save(archivedResource);
+    }
+
+    /**
+     * Purge archives whose deletion date has passed, a batch at a time.
+     */
+    @Scheduled(cron = "${app.archive.purge-cron:0 30 2 * * *}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int purged = 0;
+        while (true) {
+            List<ArchivedResource> batch = archivedResourceRepository
+                    .findByDeletionScheduledForBeforeAndStatusOrderByDeletionScheduledFor(
+                            now, ARCHIVED, PageRequest.of(0, purgeBatchSize));
+            List<ArchivedResource> done = new ArrayList<>();
+            for (ArchivedResource archivedResource : batch) {
+                if (purgeFile(archivedResource)) done.add(archivedResource);
+            }
+            archivedResourceRepository.saveAll(done);
+            purged += done.size();
+            // Stop at the last batch, or when nothing in a batch could be deleted (retried next run)
+            if (batch.size() < purgeBatchSize || done.isEmpty()) break;
+        }
+        if (purged > 0) {
+            System.out.println("Archive purge: " + purged + " expired archived resources deleted");
+        }
+    }
+
+    public long getArchivedCount() {
+        return archivedResourceRepository.countArchived();
+    }
+
+    public long getDeletedCount() {
+        return archivedResourceRepository.countDeleted();
+    }
+
+    /** Bytes the archived files took in hot storage. */
+    public long getArchivedFileBytes() {
+        return archivedResourceRepository.sumArchivedFileSize();
+    }
+
+    /** Bytes they take in cold storage, after compression. */
+    public long getColdStorageBytes() {
+        return archivedResourceRepository.sumColdStorageSize();
+    }
+
+    private boolean purgeFile(ArchivedResource archivedResource) {
+        if (archivedResource.getArchivePath() != null) {
+            try {
+                coldStorageService.delete(archivedResource.getArchivePath());
+            } catch (IOException e) {
+                System.err.println("Could not purge archived resource " + archivedResource.getId() + ": " + e.getMessage());
+                return false;
+            }
+        }
+        archivedResource.setArchivePath(null);
+        archivedResource.setStatus(DELETED);
+        return true;
+    }
+
+    private void deleteColdCopy(String archivePath) {
+        try {
+            coldStorageService.delete(archivePath);
+        } catch (IOException e) {
+            System.err.println("Could not delete cold copy " + archivePath + ": " + e.getMessage());
+        }
     }
 }
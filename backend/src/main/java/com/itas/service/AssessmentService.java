@@ -7,9 +7,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 public class AssessmentService {
@@ -38,6 +40,21 @@ public class AssessmentService {
     @Autowired
     private CertificateService certificateService;
     
+    @Autowired
+    private ModuleUnlockService moduleUnlockService;
+    
+    @Autowired
+    private ItemStatisticsService itemStatisticsService;
+    
+    @Autowired
+    private ExamQuestionPoolService examQuestionPoolService;
+    
+    @Autowired
+    private AssessmentDefinitionRepository assessmentDefinitionRepository;
+    
+    @Autowired
+    private AssessmentAttemptRepository assessmentAttemptRepository;
+    
     /**
      * Start a new assessment attempt
      * UC-LMS-002: Complete Learning Module
@@ -50,8 +67,8 @@ public class AssessmentService {
         com.itas.model.Module module = moduleRepository.findById(moduleId)
                 .orElseThrow(() -> new RuntimeException("Module not found"));
         
-        // Check if module is locked
-        if (module.getIsLocked()) {
+        // Check if module is locked for this user
+        if (moduleUnlockService.isLocked(user.getId(), module)) {
             throw new RuntimeException("Module is locked. Complete previous modules first.");
         }
         
@@ -114,6 +131,7 @@ public class AssessmentService {
         // Calculate percentage
         double percentage = totalPoints > 0 ? (earnedPoints * 100.0 / totalPoints) : 0;
         boolean passed = percentage >= module.getPassingScore();
+        itemStatisticsService.recordAttempt("module:" + module.getId(), percentage, results);
         
         // Update assessment
         assessment.setScore(earnedPoints);
@@ -125,11 +143,9 @@ public class AssessmentService {
         if (passed) {
             assessment.setFeedback("Congratulations! You passed the assessment.");
             
-            // Update module progress
+            // Update module progress; the next module unlocks for this user only
             updateModuleProgress(assessment.getUser(), module);
-            
-            // Unlock next module
-            unlockNextModule(module);
+            moduleUnlockService.onProgressChanged(assessment.getUser().getId(), module.getCourse().getId());
         } else {
             int remainingAttempts = module.getMaxAttempts() - assessment.getAttemptNumber();
             assessment.setFeedback("You did not pass. You have " + remainingAttempts + " attempt(s) remaining.");
@@ -165,22 +181,6 @@ public class AssessmentService {
         moduleProgressRepository.save(progress);
     }
     
-    /**
-     * Unlock next module in sequence
-     */
-    private void unlockNextModule(com.itas.model.Module currentModule) {
-        List<com.itas.model.Module> modules = moduleRepository.findByCourseOrderByModuleOrderAsc(currentModule.getCourse());
-        
-        for (int i = 0; i < modules.size() - 1; i++) {
-            if (modules.get(i).getId().equals(currentModule.getId())) {
-                com.itas.model.Module nextModule = modules.get(i + 1);
-                nextModule.setIsLocked(false);
-                moduleRepository.save(nextModule);
-                break;
-            }
-        }
-    }
-    
     /**
      * Get assessment history for a user and module
      */
@@ -196,27 +196,129 @@ public class AssessmentService {
     }
     
     /**
-     * Get final exam questions from all modules in a course
+     * Get per-user lock state of all modules in a course
+     */
+    public Map<Long, Boolean> getModuleLockState(Long userId, Long courseId) {
+        return moduleUnlockService.getLockState(userId, courseId);
+    }
+    
+    /**
+     * Get final exam questions from all modules in a course.
+     * Not available when the exam samples questions per attempt: each candidate
+     * only ever sees the questions of their own attempt (startFinalExam).
      */
     public List<Question> getFinalExamQuestions(Long courseId) {
-        // Get all modules for the course
-        List<com.itas.model.Module> modules = moduleRepository.findByCourseIdOrderByModuleOrderAsc(courseId);
+        if (isSampledFinalExam(courseId)) {
+            throw new RuntimeException("This final exam draws questions per attempt; start the exam to get them");
+        }
+        return allFinalExamQuestions(courseId);
+    }
+
+    private List<Question> allFinalExamQuestions(Long courseId) {
+        return examQuestionPoolService.loadQuestions(examQuestionPoolService.allQuestionIds(courseId));
+    }
+
+    private boolean isSampledFinalExam(Long courseId) {
+        return assessmentDefinitionRepository.findByCourseIdAndIsFinalExam(courseId, true).stream()
+                .anyMatch(d -> d.getQuestionsPerModule() != null && d.getQuestionsPerModule() > 0);
+    }
+    
+    /**
+     * Start (or resume) a final exam attempt.
+     * When the course's final exam samples questions per module, the candidate receives
+     * the sampled subset and the attempt records its question ids for grading.
+     */
+    @Transactional
+    public Map<String, Object> startFinalExam(Long userId, Long courseId) {
+        AssessmentDefinition definition = assessmentDefinitionRepository
+                .findByCourseIdAndIsFinalExam(courseId, true).stream().findFirst()
+                .orElseThrow(() -> new RuntimeException("No final exam defined for this course"));
         
-        // Get quiz questions (not practice) from all modules
-        List<Question> allQuestions = new java.util.ArrayList<>();
-        for (com.itas.model.Module module : modules) {
-            List<Question> moduleQuestions = questionRepository.findByModuleIdAndIsPracticeFalseOrderByOrderAsc(module.getId());
-            allQuestions.addAll(moduleQuestions);
+        AssessmentAttempt attempt = assessmentAttemptRepository
+                .findTopByUserIdAndAssessmentDefinitionIdAndCompletedAtIsNullOrderByAttemptNumberDesc(userId, definition.getId())
+                .orElse(null);
+        
+        if (attempt == null) {
+            Integer attemptCount = assessmentAttemptRepository
+                    .countByUserIdAndAssessmentDefinitionId(userId, definition.getId());
+            if (attemptCount >= definition.getMaxAttempts()) {
+                throw new RuntimeException("Maximum attempts (" + definition.getMaxAttempts() + ") reached");
+            }
+            attempt = new AssessmentAttempt();
+            attempt.setUserId(userId);
+            attempt.setAssessmentDefinitionId(definition.getId());
+            attempt.setAttemptNumber(attemptCount + 1);
+            attempt.setStartedAt(LocalDateTime.now());
+            attempt.setQuestionSeed(examQuestionPoolService.newSeed());
+            int perModule = definition.getQuestionsPerModule() != null ? definition.getQuestionsPerModule() : 0;
+            if (perModule > 0) {
+                // Questions added to the bank later could outrank these, so the served set is kept
+                attempt.setQuestionIds(examQuestionPoolService.sampleQuestionIds(courseId, attempt.getQuestionSeed(), perModule)
+                        .stream().map(String::valueOf).collect(Collectors.joining(",")));
+            }
+            attempt = assessmentAttemptRepository.save(attempt);
         }
         
-        return allQuestions;
+        List<Question> questions = getAttemptQuestions(courseId, definition, attempt);
+        List<Map<String, Object>> questionDtos = new java.util.ArrayList<>();
+        for (Question question : questions) {
+            questionDtos.add(toExamDto(question));
+        }
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("attemptId", attempt.getId());
+        result.put("attemptNumber", attempt.getAttemptNumber());
+        result.put("timeLimitMinutes", definition.getTimeLimitMinutes());
+        result.put("questions", questionDtos);
+        return result;
+    }
+    
+    /**
+     * The questions served to an attempt: its recorded ids, or for attempts started before
+     * those were recorded, the sample rebuilt from its seed and the current bank
+     */
+    private List<Question> getAttemptQuestions(Long courseId, AssessmentDefinition definition, AssessmentAttempt attempt) {
+        if (attempt.getQuestionIds() != null && !attempt.getQuestionIds().isBlank()) {
+            return examQuestionPoolService.loadQuestions(Arrays.stream(attempt.getQuestionIds().split(","))
+                    .map(Long::valueOf).collect(Collectors.toList()));
+        }
+        int perModule = definition.getQuestionsPerModule() != null ? definition.getQuestionsPerModule() : 0;
+        if (attempt.getQuestionSeed() == null || perModule <= 0) {
+            return allFinalExamQuestions(courseId);
+        }
+        return examQuestionPoolService.loadQuestions(
+                examQuestionPoolService.sampleQuestionIds(courseId, attempt.getQuestionSeed(), perModule));
+    }
+    
+    /**
+     * Exam view of a question - answer options without the correct flag
+     */
+    private Map<String, Object> toExamDto(Question question) {
+        Map<String, Object> dto = new HashMap<>();
+        dto.put("id", question.getId());
+        dto.put("questionText", question.getQuestionText());
+        dto.put("questionType", question.getQuestionType() != null ? question.getQuestionType().name() : "MULTIPLE_CHOICE");
+        dto.put("points", question.getPoints());
+        dto.put("moduleId", question.getModule() != null ? question.getModule().getId() : null);
+        List<Map<String, Object>> answers = new java.util.ArrayList<>();
+        for (Answer answer : question.getAnswers()) {
+            Map<String, Object> answerDto = new HashMap<>();
+            answerDto.put("id", answer.getId());
+            answerDto.put("answerText", answer.getAnswerText());
+            answerDto.put("order", answer.getOrder());
+            answers.add(answerDto);
+        }
+        dto.put("answers", answers);
+        return dto;
     }
     
     /**
-     * Submit final exam and generate certificate if passed
+     * Submit final exam and generate certificate if passed.
+     * With an attemptId, sampled attempts are graded against the questions
+     * reconstructed from the attempt's seed.
      */
     @Transactional
-    public Map<String, Object> submitFinalExam(Long userId, Long courseId, Map<String, Object> rawAnswers) {
+    public Map<String, Object> submitFinalExam(Long userId, Long courseId, Map<String, Object> rawAnswers, Long attemptId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
@@ -235,8 +337,30 @@ public class AssessmentService {
             }
         }
 
-        // Get all quiz questions from the course
-        List<Question> questions = getFinalExamQuestions(courseId);
+        AssessmentAttempt attempt = null;
+        List<Question> questions;
+        if (attemptId != null) {
+            attempt = assessmentAttemptRepository.findById(attemptId)
+                    .orElseThrow(() -> new RuntimeException("Exam attempt not found"));
+            if (!attempt.getUserId().equals(userId)) {
+                throw new RuntimeException("Exam attempt does not belong to this user");
+            }
+            if (attempt.getCompletedAt() != null) {
+                throw new RuntimeException("Exam attempt already submitted");
+            }
+            AssessmentDefinition definition = assessmentDefinitionRepository.findById(attempt.getAssessmentDefinitionId())
+                    .orElseThrow(() -> new RuntimeException("Final exam definition not found"));
+            if (!definition.getCourseId().equals(courseId)) {
+                throw new RuntimeException("Exam attempt does not belong to this course");
+            }
+            questions = getAttemptQuestions(courseId, definition, attempt);
+        } else if (isSampledFinalExam(courseId)) {
+            // Grading against the whole bank would not match the questions the candidate was given
+            throw new RuntimeException("This final exam draws questions per attempt; submit it with its attemptId");
+        } else {
+            // Get all quiz questions from the course
+            questions = allFinalExamQuestions(courseId);
+        }
 
         if (questions.isEmpty()) {
             throw new RuntimeException("No exam questions found for this course. Please add quiz questions to the modules first.");
@@ -244,22 +368,36 @@ public class AssessmentService {
 
         int totalPoints = 0;
         int earnedPoints = 0;
+        Map<Long, Boolean> results = new HashMap<>();
 
         for (Question question : questions) {
             totalPoints += question.getPoints();
+            boolean correct = false;
             Long userAnswerId = answers.get(question.getId());
             if (userAnswerId != null) {
                 for (Answer answer : question.getAnswers()) {
                     if (answer.getId().equals(userAnswerId) && answer.getIsCorrect()) {
                         earnedPoints += question.getPoints();
+                        correct = true;
                         break;
                     }
                 }
             }
+            results.put(question.getId(), correct);
         }
 
         double percentage = totalPoints > 0 ? (earnedPoints * 100.0 / totalPoints) : 0;
         boolean passed = percentage >= 70;
+        itemStatisticsService.recordAttempt("exam:" + courseId, percentage, results);
+
+        if (attempt != null) {
+            attempt.setScore((double) earnedPoints);
+            attempt.setTotalPoints((double) totalPoints);
+            attempt.setPercentage(percentage);
+            attempt.setPassed(passed);
+            attempt.setCompletedAt(LocalDateTime.now());
+            assessmentAttemptRepository.save(attempt);
+        }
 
         Map<String, Object> result = new HashMap<>();
         result.put("totalPoints", totalPoints);
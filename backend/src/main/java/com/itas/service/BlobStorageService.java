@@ -0,0 +1,159 @@
+package com.itas.service;
+
+import com.itas.model.StoredBlob;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressable upload storage.
+ *
+ * Uploads are hashed while they are streamed to a local temp file, then stored
+ * once in the StorageBackend under blobs/xx/yy/&lt;sha256&gt; with a reference
+ * count in stored_blobs (see RefCountedObjectStore). Storing content that
+ * already exists only bumps the count; a released file, and its thumbnail, is
+ * deleted by the collector once the grace period has passed.
+ */
+@Service
+public class BlobStorageService {
+
+    private static final String BLOB_DIR = "blobs";
+    private static final Pattern DIGEST = Pattern.compile("[0-9a-f]{64}");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.storage.blob-gc-grace-minutes:60}")
+    private long gcGraceMinutes;
+
+    private final Path root;
+    private final Path blobRoot;
+    private final Path incoming;
+    private RefCountedObjectStore blobs;
+
+    public BlobStorageService(@Value("${file.upload-dir:uploads}") String uploadDir) {
+        this.root = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.blobRoot = root.resolve(BLOB_DIR);
+        this.incoming = root.resolve(".incoming");
+        try {
+            Files.createDirectories(incoming);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create the blob storage directories.", e);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        blobs = new RefCountedObjectStore("stored_blobs", "storage_path", BlobStorageService::blobKey,
+                key -> List.of(ThumbnailService.thumbnailKey(key)), jdbcTemplate, storageBackend, transactionManager);
+    }
+
+    /**
+     * Stream content into the store and take one reference on it.
+     */
+    public StoredBlob store(InputStream content) throws IOException {
+        Path temp = Files.createTempFile(incoming, "upload-", ".part");
+        try {
+            MessageDigest sha256 = sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(content, sha256)) {
+                size = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return adopt(temp, HexFormat.of().formatHex(sha256.digest()), size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Take one reference on a fully written file whose digest is already known.
+     * The file is moved (not copied) into the store, or deleted if the content is already there.
+     */
+    public StoredBlob adopt(Path file, String digest, long size) throws IOException {
+        try {
+            blobs.acquire(digest, size, key -> storageBackend.put(key, file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        StoredBlob blob = new StoredBlob();
+        blob.setDigest(digest);
+        blob.setSizeBytes(size);
+        blob.setStoragePath(blobKey(digest));
+        return blob;
+    }
+
+    /** Local directory for partially received uploads (on the same file system as the blobs when stored locally). */
+    public Path incomingDir() {
+        return incoming;
+    }
+
+    /**
+     * Drop one reference. The last one marks the blob released; its file is deleted
+     * by collectReleased() unless the content is stored again within the grace period.
+     */
+    public void release(String digest) {
+        blobs.release(digest);
+    }
+
+    /**
+     * Delete the files of blobs released longer than the grace period ago, with their rows.
+     */
+    @Scheduled(fixedDelayString = "${app.storage.blob-gc-interval-ms:600000}", initialDelay = 120000)
+    public void collectReleased() {
+        int collected = blobs.collectReleased(gcGraceMinutes);
+        if (collected > 0) {
+            System.out.println("Blob collection: " + collected + " released blobs deleted");
+        }
+    }
+
+    /**
+     * Digest of a stored file path (relative to the upload directory or absolute), or null if it is not a blob.
+     */
+    public String digestOf(String filePath) {
+        if (filePath == null) return null;
+        Path path = Paths.get(filePath);
+        Path absolute = path.isAbsolute() ? path.normalize() : root.resolve(path).normalize();
+        if (!absolute.startsWith(blobRoot)) {
+            absolute = path.toAbsolutePath().normalize();
+            if (!absolute.startsWith(blobRoot)) return null;
+        }
+        String name = absolute.getFileName().toString();
+        return DIGEST.matcher(name).matches() ? name : null;
+    }
+
+    static String blobKey(String digest) {
+        return BLOB_DIR + "/" + digest.substring(0, 2) + "/" + digest.substring(2, 4) + "/" + digest;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
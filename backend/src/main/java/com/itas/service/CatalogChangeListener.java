@@ -0,0 +1,26 @@
+package com.itas.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener on Course and Module that invalidates the catalog snapshots.
+ */
+@Component
+public class CatalogChangeListener {
+
+    @Autowired
+    @Lazy
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Object entity) {
+        catalogSnapshotService.changed();
+    }
+}
@@ -0,0 +1,113 @@
+package com.itas.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itas.dto.ApiResponse;
+import com.itas.repository.ModuleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serialized snapshots of the public course catalog.
+ *
+ * GET /courses and GET /modules/course/{id} are answered from ready-made JSON
+ * bytes. Every course or module write bumps a catalog revision (after commit);
+ * a snapshot built at an older revision is rebuilt on its next request. The
+ * ETag is a hash of the bytes, so it is strong and identical on every node.
+ * Snapshots also expire after a TTL, which bounds staleness when another node
+ * made the write.
+ */
+@Service
+public class CatalogSnapshotService {
+
+    // Module lists are cached per course id; ids beyond this many are served uncached
+    private static final int MAX_COURSE_SNAPSHOTS = 1024;
+
+    public record Snapshot(long revision, long builtAt, byte[] body, String etag) {}
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.catalog.snapshot-ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final AtomicLong revision = new AtomicLong();
+    private volatile Snapshot courses;
+    private final Map<Long, Snapshot> modulesByCourse = new ConcurrentHashMap<>();
+
+    public long getRevision() {
+        return revision.get();
+    }
+
+    @Transactional(readOnly = true)
+    public Snapshot courses() {
+        Snapshot current = courses;
+        if (isFresh(current)) return current;
+        // Read the revision first: a write committing during the build leaves this snapshot already stale
+        long rev = revision.get();
+        Snapshot built = build(rev, new ApiResponse<>("Success", courseService.getAllCourses()));
+        courses = built;
+        return built;
+    }
+
+    @Transactional(readOnly = true)
+    public Snapshot modules(Long courseId) {
+        Snapshot current = modulesByCourse.get(courseId);
+        if (isFresh(current)) return current;
+        long rev = revision.get();
+        Snapshot built = build(rev, new ApiResponse<>("Success", moduleRepository.findByCourseIdOrderByModuleOrderAsc(courseId)));
+        if (current != null || modulesByCourse.size() < MAX_COURSE_SNAPSHOTS) {
+            modulesByCourse.put(courseId, built);
+        }
+        return built;
+    }
+
+    /**
+     * A course or module changed; snapshots are invalidated once the change is committed.
+     */
+    public void changed() {
+        Runnable bump = () -> {
+            revision.incrementAndGet();
+            // Entries for deleted or never-viewed courses would otherwise linger
+            modulesByCourse.clear();
+        };
+        AfterCommit.run(bump);
+    }
+
+    private boolean isFresh(Snapshot snapshot) {
+        return snapshot != null && snapshot.revision() == revision.get()
+                && System.currentTimeMillis() - snapshot.builtAt() < ttlSeconds * 1000;
+    }
+
+    private Snapshot build(long rev, Object body) {
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(body);
+            return new Snapshot(rev, System.currentTimeMillis(), bytes, "\"" + sha256(bytes).substring(0, 32) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize the course catalog", e);
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.itas.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold storage for archived resource files.
+ *
+ * Files are copied out of hot storage compressed with gzip, except formats
+ * that are already compressed (video, audio, most images, zip-based Office
+ * documents), which are stored as they are. With the local storage backend
+ * cold storage is its own directory (app.archive.dir), so the upload
+ * directory only holds live content; with S3 it is the "archive/" prefix of
+ * the bucket, which a lifecycle rule can move to a colder storage class.
+ * Restores decompress while streaming; nothing is inflated on disk or on the heap.
+ */
+@Service
+public class ColdStorageService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String S3_PREFIX = "archive/";
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Value("${app.storage.backend:local}")
+    private String backendType;
+
+    @Value("${app.archive.dir:archive}")
+    private String archiveDir;
+
+    private StorageBackend coldStore;
+    private String prefix;
+
+    /** Where an archived file went and how many bytes it takes there. */
+    public record ColdObject(String key, long storedBytes) {}
+
+    @PostConstruct
+    public void init() {
+        if ("local".equalsIgnoreCase(backendType)) {
+            // Fail at startup rather than on the first archive, after the resource is gone
+            Path dir = Paths.get(archiveDir).toAbsolutePath().normalize();
+            try {
+                Files.createDirectories(dir);
+            } catch (IOException e) {
+                throw new RuntimeException("Could not create the archive directory " + dir + ".", e);
+            }
+            if (!Files.isWritable(dir)) {
+                throw new RuntimeException("The archive directory " + dir + " is not writable.");
+            }
+            coldStore = new LocalStorageBackend(archiveDir);
+            prefix = "";
+        } else {
+            coldStore = storageBackend;
+            prefix = S3_PREFIX;
+        }
+    }
+
+    /**
+     * Copy a stored file into cold storage. The hot copy is left alone; callers release it.
+     */
+    public ColdObject freeze(String filePath, String mimeType) throws IOException {
+        boolean compress = worthCompressing(mimeType);
+        String key = prefix + "resources/" + UUID.randomUUID() + (compress ? ".gz" : "");
+        Path temp = Files.createTempFile("archive-", compress ? ".gz" : ".bin");
+        try {
+            try (InputStream in = storageBackend.get(fileStorageService.storageKey(filePath));
+                 OutputStream out = compress
+                         ? new GZIPOutputStream(Files.newOutputStream(temp), BUFFER_SIZE)
+                         : Files.newOutputStream(temp)) {
+                in.transferTo(out);
+            }
+            long storedBytes = Files.size(temp);
+            coldStore.put(key, temp);
+            return new ColdObject(key, storedBytes);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * The original content of a cold object, decompressed on the fly.
+     */
+    public InputStream thaw(String key) throws IOException {
+        InputStream in = coldStore.get(key);
+        return key.endsWith(".gz") ? new GZIPInputStream(in, BUFFER_SIZE) : in;
+    }
+
+    public void delete(String key) throws IOException {
+        coldStore.delete(key);
+    }
+
+    static boolean worthCompressing(String mimeType) {
+        if (mimeType == null) return true;
+        String type = mimeType.toLowerCase();
+        if (type.startsWith("video/") || type.startsWith("audio/")) return false;
+        if (type.startsWith("image/")) return type.equals("image/svg+xml") || type.equals("image/bmp");
+        return !(type.equals("application/zip") || type.equals("application/gzip")
+                || type.equals("application/x-7z-compressed") || type.equals("application/vnd.rar")
+                || type.startsWith("application/vnd.openxmlformats-officedocument"));
+    }
+}
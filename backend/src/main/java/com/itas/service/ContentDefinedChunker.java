@@ -0,0 +1,106 @@
+package com.itas.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.SplittableRandom;
+
+/**
+ * Splits a stream into content-defined chunks (FastCDC-style gear hash).
+ *
+ * A boundary depends only on the last 64 bytes before it, so inserting or
+ * removing bytes in a file only changes the chunks around the edit; the rest
+ * re-synchronises and keeps the same digests. Cut points use a stricter mask
+ * below the average size and a looser one above it, which keeps chunk sizes
+ * close to the average without a hard cut at maxSize in most cases.
+ */
+public class ContentDefinedChunker {
+
+    @FunctionalInterface
+    public interface ChunkConsumer {
+        void accept(byte[] buffer, int offset, int length) throws IOException;
+    }
+
+    private static final long[] GEAR = new long[256];
+
+    static {
+        // Fixed seed: chunk boundaries must be the same on every node and after every restart
+        SplittableRandom random = new SplittableRandom(0x6765617243444346L);
+        for (int i = 0; i < GEAR.length; i++) GEAR[i] = random.nextLong();
+    }
+
+    private final int minSize;
+    private final int avgSize;
+    private final int maxSize;
+    private final long strictMask;
+    private final long looseMask;
+
+    public ContentDefinedChunker(int minSize, int avgSize, int maxSize) {
+        if (minSize <= 0 || minSize >= avgSize || avgSize >= maxSize) {
+            throw new IllegalArgumentException("Chunk sizes must satisfy 0 < min < avg < max");
+        }
+        int bits = 31 - Integer.numberOfLeadingZeros(avgSize);
+        this.minSize = minSize;
+        this.avgSize = avgSize;
+        this.maxSize = maxSize;
+        this.strictMask = highBits(bits + 1);
+        this.looseMask = highBits(bits - 1);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Read the stream to its end, handing each chunk to the consumer in order.
+     * The buffer passed to the consumer is reused; copy what must be kept.
+     */
+    public void split(InputStream in, ChunkConsumer consumer) throws IOException {
+        byte[] buffer = new byte[maxSize * 2];
+        int start = 0;
+        int end = 0;
+        boolean eof = false;
+        while (true) {
+            if (!eof && end - start < maxSize) {
+                System.arraycopy(buffer, start, buffer, 0, end - start);
+                end -= start;
+                start = 0;
+                while (end < buffer.length) {
+                    int read = in.read(buffer, end, buffer.length - end);
+                    if (read < 0) {
+                        eof = true;
+                        break;
+                    }
+                    end += read;
+                }
+            }
+            int available = end - start;
+            if (available == 0) return;
+            int length = cut(buffer, start, available);
+            consumer.accept(buffer, start, length);
+            start += length;
+        }
+    }
+
+    /** Length of the chunk starting at offset, given that length bytes are available. */
+    int cut(byte[] buffer, int offset, int length) {
+        if (length <= minSize) return length;
+        int limit = Math.min(length, maxSize);
+        int normal = Math.min(avgSize, limit);
+        long hash = 0;
+        int i = minSize;
+        for (; i < normal; i++) {
+            hash = (hash << 1) + GEAR[buffer[offset + i] & 0xff];
+            if ((hash & strictMask) == 0) return i + 1;
+        }
+        for (; i < limit; i++) {
+            hash = (hash << 1) + GEAR[buffer[offset + i] & 0xff];
+            if ((hash & looseMask) == 0) return i + 1;
+        }
+        return limit;
+    }
+
+    // The high bits of a gear hash depend on the most bytes, so the masks test those
+    private static long highBits(int bits) {
+        return bits <= 0 ? 0 : -1L << (64 - bits);
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -37,6 +38,36 @@ public class CourseService {
     @Autowired
     private com.itas.repository.ModuleProgressRepository moduleProgressRepository;
     
+    @Autowired
+    private ModuleUnlockService moduleUnlockService;
+    
+    @Autowired
+    private com.itas.repository.QuestionRepository questionRepository;
+    
+    @Autowired
+    private com.itas.repository.QuestionStatRepository questionStatRepository;
+    
+    @Autowired
+    private com.itas.repository.AnswerRepository answerRepository;
+    
+    @Autowired
+    private com.itas.repository.AssessmentRepository assessmentRepository;
+    
+    @Autowired
+    private com.itas.repository.AssessmentDefinitionRepository assessmentDefinitionRepository;
+    
+    @Autowired
+    private com.itas.repository.AssessmentAttemptRepository assessmentAttemptRepository;
+    
+    @Autowired
+    private com.itas.repository.CertificateRepository certificateRepository;
+    
+    @Autowired
+    private SearchIndexService searchIndexService;
+    
+    @Autowired
+    private ItemStatisticsService itemStatisticsService;
+    
     public List<Map<String, Object>> getAllCourses() {
         List<Course> courses = courseRepository.findAll();
         if (courses.isEmpty()) return java.util.Collections.emptyList();
@@ -96,31 +127,36 @@ public class CourseService {
         return courseRepository.save(course);
     }
     
+    /**
+     * Delete a course and everything that hangs off it with one set-based DELETE per table
+     * (children first), instead of loading and removing rows one by one. Returns the rows removed per table.
+     */
     @Transactional
-    public void deleteCourse(Long id) {
+    public Map<String, Integer> deleteCourse(Long id) {
         Course course = getCourseById(id);
-        
-        // Delete related records first to avoid foreign key constraint violations
-        
-        // 1. Delete all module progress records for modules in this course
+        // Only ids are needed afterwards, to drop the modules from the search index
         List<com.itas.model.Module> modules = moduleRepository.findByCourseIdOrderByModuleOrderAsc(id);
-        for (com.itas.model.Module module : modules) {
-            moduleProgressRepository.deleteByModuleId(module.getId());
-        }
+        List<Long> questionIds = questionRepository.findIdsByCourseId(id);
         
-        // 2. Delete all enrollments for this course
-        List<Enrollment> enrollments = enrollmentRepository.findByCourseId(id);
-        enrollmentRepository.deleteAll(enrollments);
+        Map<String, Integer> deleted = new LinkedHashMap<>();
+        deleted.put("questionStats", questionStatRepository.bulkDeleteByCourseId(id));
+        deleted.put("answers", answerRepository.bulkDeleteByCourseId(id));
+        deleted.put("questions", questionRepository.bulkDeleteByCourseId(id));
+        deleted.put("assessmentAttempts", assessmentAttemptRepository.bulkDeleteByCourseId(id));
+        deleted.put("assessmentDefinitions", assessmentDefinitionRepository.bulkDeleteByCourseId(id));
+        deleted.put("assessments", assessmentRepository.bulkDeleteByCourseId(id));
+        deleted.put("moduleProgress", moduleProgressRepository.bulkDeleteByCourseId(id));
+        deleted.put("certificates", certificateRepository.bulkDeleteByCourseId(id));
+        deleted.put("enrollments", enrollmentRepository.bulkDeleteByCourseId(id));
+        deleted.put("modules", moduleRepository.bulkDeleteByCourseId(id));
         
-        // 3. Delete all modules for this course
-        moduleRepository.deleteAll(modules);
-        
-        // 4. Delete certificates for this course (if any)
-        // Note: CertificateRepository should have a method to delete by courseId
-        // For now, we'll let the database handle this with ON DELETE CASCADE if configured
-        
-        // 5. Finally, delete the course
+        // Bulk deletes bypass the entity listeners; the course itself goes through them
+        modules.forEach(searchIndexService::deleted);
         courseRepository.delete(course);
+        
+        // question_stats has no foreign key; unflushed deltas would re-create rows for the deleted questions
+        AfterCommit.run(() -> itemStatisticsService.forget(questionIds));
+        return deleted;
     }
     
     @Transactional
@@ -236,6 +272,7 @@ public class CourseService {
         moduleProgress.setProgress(100.0);
         moduleProgress.setCompletedAt(LocalDateTime.now());
         moduleProgressRepository.save(moduleProgress);
+        moduleUnlockService.onProgressChanged(userId, courseId);
         
         // Calculate overall course progress
         List<com.itas.model.Module> allModules = moduleRepository.findByCourseIdOrderByModuleOrderAsc(courseId);
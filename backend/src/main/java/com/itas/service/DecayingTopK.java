@@ -0,0 +1,104 @@
+package com.itas.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Approximate top-K of the most frequent keys (weighted Space-Saving) with
+ * optional exponential time decay.
+ *
+ * At most {@code capacity} keys are tracked. A key that is not tracked when the
+ * table is full takes over the slot with the smallest score and inherits that
+ * score as its possible overestimate, so any key hit more often than
+ * total/capacity is guaranteed to be present.
+ *
+ * Decay uses forward weighting: a hit at time t adds 2^((t - landmark) / halfLife)
+ * instead of 1, which ranks keys exactly as if every older hit had halved each
+ * half-life, without touching the other counters. Scores are rescaled and the
+ * landmark moved forward before the weights could overflow. A half-life of 0
+ * disables decay (all-time counts).
+ *
+ * Thread-safe: all methods synchronize on the instance.
+ */
+public class DecayingTopK {
+
+    private static final double MAX_EXPONENT = 60;
+
+    private final int capacity;
+    private final double halfLifeMillis;
+    private final Map<Long, Counter> counters = new HashMap<>();
+    private long landmark;
+
+    private static final class Counter {
+        double score;
+        double error;
+    }
+
+    public DecayingTopK(int capacity, long halfLifeMillis, long now) {
+        this.capacity = Math.max(1, capacity);
+        this.halfLifeMillis = halfLifeMillis;
+        this.landmark = now;
+    }
+
+    public synchronized void add(Long key, double count, long now) {
+        double weight = count * weight(now);
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            counter = new Counter();
+            if (counters.size() >= capacity) {
+                Map.Entry<Long, Counter> min = null;
+                for (Map.Entry<Long, Counter> entry : counters.entrySet()) {
+                    if (min == null || entry.getValue().score < min.getValue().score) min = entry;
+                }
+                counters.remove(min.getKey());
+                counter.score = min.getValue().score;
+                counter.error = min.getValue().score;
+            }
+            counters.put(key, counter);
+        }
+        counter.score += weight;
+    }
+
+    public synchronized void remove(Long key) {
+        counters.remove(key);
+    }
+
+    /**
+     * Up to {@code limit} keys, highest (decayed) score first.
+     */
+    public synchronized List<Long> top(int limit) {
+        List<Map.Entry<Long, Counter>> entries = new ArrayList<>(counters.entrySet());
+        entries.sort((a, b) -> Double.compare(b.getValue().score, a.getValue().score));
+        List<Long> keys = new ArrayList<>();
+        for (Map.Entry<Long, Counter> entry : entries) {
+            if (keys.size() >= limit) break;
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+
+    /**
+     * Current score of a key in hits (decayed to now), or 0 if it is not tracked.
+     */
+    public synchronized double score(Long key, long now) {
+        Counter counter = counters.get(key);
+        return counter == null ? 0 : counter.score / weight(now);
+    }
+
+    private double weight(long now) {
+        if (halfLifeMillis <= 0) return 1;
+        double exponent = (now - landmark) / halfLifeMillis;
+        if (exponent > MAX_EXPONENT) {
+            double scale = Math.pow(2, -exponent);
+            for (Counter counter : counters.values()) {
+                counter.score *= scale;
+                counter.error *= scale;
+            }
+            landmark = now;
+            exponent = 0;
+        }
+        return Math.pow(2, exponent);
+    }
+}
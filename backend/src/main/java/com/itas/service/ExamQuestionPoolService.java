@@ -0,0 +1,132 @@
+package com.itas.service;
+
+import com.itas.model.Question;
+import com.itas.repository.QuestionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Final exam question pools with seeded per-attempt sampling.
+ *
+ * The bank for a course (non-practice question ids grouped by module, in module
+ * order) is cached. An attempt draws its exam with a 64-bit seed by picking, per
+ * module, the N questions with the smallest hash(seed, questionId). The same seed
+ * and bank give the same exam, but a question added to the bank can outrank one
+ * already served, so attempts record the ids they were served and are graded
+ * against those rather than a fresh sample.
+ */
+@Service
+public class ExamQuestionPoolService {
+
+    public static final String CACHE_NAME = "examBanks";
+
+    private static final SecureRandom SEED_SOURCE = new SecureRandom();
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    public long newSeed() {
+        return SEED_SOURCE.nextLong();
+    }
+
+    /**
+     * Non-practice question ids of the course, grouped by module in module order.
+     */
+    public Map<Long, List<Long>> getBank(Long courseId) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return loadBank(courseId);
+        }
+        return cache.get(courseId, () -> loadBank(courseId));
+    }
+
+    /**
+     * All question ids of the bank in module/question order (no sampling).
+     */
+    public List<Long> allQuestionIds(Long courseId) {
+        List<Long> ids = new ArrayList<>();
+        for (List<Long> moduleIds : getBank(courseId).values()) {
+            ids.addAll(moduleIds);
+        }
+        return ids;
+    }
+
+    /**
+     * Deterministically sample up to perModule questions from every module.
+     * The same seed and bank always yield the same ids in the same order.
+     */
+    public List<Long> sampleQuestionIds(Long courseId, long seed, int perModule) {
+        if (perModule <= 0) {
+            return allQuestionIds(courseId);
+        }
+
+        Comparator<Long> byRank = (a, b) -> Long.compareUnsigned(rank(seed, a), rank(seed, b));
+        List<Long> sampled = new ArrayList<>();
+        for (List<Long> moduleIds : getBank(courseId).values()) {
+            // Bounded max-heap keeps the perModule lowest-ranked ids
+            PriorityQueue<Long> heap = new PriorityQueue<>(perModule + 1, byRank.reversed());
+            for (Long id : moduleIds) {
+                heap.offer(id);
+                if (heap.size() > perModule) heap.poll();
+            }
+            List<Long> picked = new ArrayList<>(heap);
+            picked.sort(byRank);
+            sampled.addAll(picked);
+        }
+        return sampled;
+    }
+
+    /**
+     * Load questions by id, preserving the given order and skipping ids that no longer exist.
+     */
+    public List<Question> loadQuestions(List<Long> ids) {
+        if (ids.isEmpty()) return Collections.emptyList();
+        Map<Long, Question> byId = new HashMap<>();
+        for (Question question : questionRepository.findAllById(ids)) {
+            byId.put(question.getId(), question);
+        }
+        List<Question> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Question question = byId.get(id);
+            if (question != null) ordered.add(question);
+        }
+        return ordered;
+    }
+
+    private Map<Long, List<Long>> loadBank(Long courseId) {
+        Map<Long, List<Long>> bank = new LinkedHashMap<>();
+        for (Object[] row : questionRepository.findExamBankRows(courseId)) {
+            Long moduleId = ((Number) row[0]).longValue();
+            Long questionId = ((Number) row[1]).longValue();
+            bank.computeIfAbsent(moduleId, k -> new ArrayList<>()).add(questionId);
+        }
+        bank.replaceAll((k, v) -> Collections.unmodifiableList(v));
+        return Collections.unmodifiableMap(bank);
+    }
+
+    static long rank(long seed, long questionId) {
+        return mix64(seed ^ mix64(questionId));
+    }
+
+    // SplitMix64 finalizer
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
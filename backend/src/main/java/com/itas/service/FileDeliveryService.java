@@ -0,0 +1,423 @@
+package com.itas.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Shared file delivery for download, view and stream endpoints.
+ *
+ * Files are written straight from disk: single ranges use Tomcat's sendfile
+ * when the connector offers it, otherwise FileChannel.transferTo through a
+ * small buffer, so no request ever holds a whole file on the heap. Files that
+ * HotFileCache has admitted are written from their memory mapping instead. Handles
+ * conditional GET (If-None-Match / If-Modified-Since -> 304), single and
+ * multipart byte ranges (206 / 416) with If-Range, and sends Accept-Ranges,
+ * Content-Length, ETag and Last-Modified on every response.
+ *
+ * With app.file.accel-redirect.enabled the backend only authorizes the request
+ * and answers with an X-Accel-Redirect header; nginx then serves the bytes
+ * (ranges and conditional requests included) from its internal location.
+ *
+ * sendStored delivers by StorageBackend key: local objects as above, objects in
+ * a remote store by streaming ranged reads through, one request per range.
+ */
+@Service
+public class FileDeliveryService {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Below this size sendfile setup costs more than a plain copy (Tomcat's own default threshold)
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    @Autowired
+    private HotFileCache hotFileCache;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Value("${app.file.accel-redirect.enabled:false}")
+    private boolean accelRedirectEnabled;
+
+    // Internal nginx location that maps to the upload root
+    @Value("${app.file.accel-redirect.prefix:/protected-files/}")
+    private String accelRedirectPrefix;
+
+    @Value("${app.file.upload-dir:./uploads}")
+    private String uploadRoot;
+
+    /**
+     * What was sent: the HTTP status and the first byte of the body (0 for a full response).
+     */
+    public record Delivery(int status, long firstByte) {
+        /** A fresh read of the file, as opposed to a 304, an error, or a seek into the middle. */
+        public boolean isNewRead() {
+            return (status == HttpServletResponse.SC_OK || status == HttpServletResponse.SC_PARTIAL_CONTENT)
+                    && firstByte == 0;
+        }
+    }
+
+    /**
+     * Write the file (or the requested ranges of it) to the response.
+     */
+    public Delivery send(HttpServletRequest request, HttpServletResponse response, Path file,
+                         String contentType, String filename, boolean inline) throws IOException {
+        return send(request, response, file, contentType, filename, inline, null);
+    }
+
+    /**
+     * As above, with a caller-supplied strong ETag (e.g. the content digest of a stored blob).
+     * When null the ETag is derived from the file's identity, size and modification time.
+     */
+    public Delivery send(HttpServletRequest request, HttpServletResponse response, Path file,
+                         String contentType, String filename, boolean inline, String etag) throws IOException {
+        String mimeType = contentType != null && !contentType.isBlank() ? contentType : "application/octet-stream";
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(filename, inline));
+
+        if (accelRedirectEnabled) {
+            String internalUri = internalUri(file);
+            if (internalUri != null) {
+                response.setContentType(mimeType);
+                response.setHeader("X-Accel-Redirect", internalUri);
+                response.setStatus(HttpServletResponse.SC_OK);
+                return new Delivery(HttpServletResponse.SC_OK, firstByteRequested(request));
+            }
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        if (etag == null) etag = etag(attributes);
+        return deliver(request, response, file, null, attributes.size(),
+                attributes.lastModifiedTime().toMillis(), etag, mimeType);
+    }
+
+    /**
+     * Write a StorageBackend object (or the requested ranges of it) to the response.
+     * Throws NoSuchFileException when there is no such object.
+     */
+    public Delivery sendStored(HttpServletRequest request, HttpServletResponse response, String key,
+                               String contentType, String filename, boolean inline, String etag) throws IOException {
+        Path local = storageBackend.localPath(key);
+        if (local != null) {
+            if (!Files.isRegularFile(local)) throw new NoSuchFileException(key);
+            return send(request, response, local, contentType, filename, inline, etag);
+        }
+
+        StorageBackend.ObjectInfo info = storageBackend.stat(key);
+        if (info == null) throw new NoSuchFileException(key);
+        String mimeType = contentType != null && !contentType.isBlank() ? contentType : "application/octet-stream";
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(filename, inline));
+        if (etag == null) {
+            etag = "\"" + Long.toHexString(info.size()) + "-" + Long.toHexString(info.lastModified()) + "\"";
+        }
+        return deliver(request, response, null, key, info.size(), info.lastModified(), etag, mimeType);
+    }
+
+    /**
+     * Conditional and range handling shared by local files (file set) and remote objects (key set).
+     */
+    private Delivery deliver(HttpServletRequest request, HttpServletResponse response, Path file, String key,
+                             long length, long lastModified, String etag, String mimeType) throws IOException {
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return new Delivery(HttpServletResponse.SC_NOT_MODIFIED, 0);
+        }
+
+        List<HttpRange> ranges;
+        try {
+            ranges = requestedRanges(request, etag, lastModified);
+            validate(ranges, length);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.setContentLength(0);
+            return new Delivery(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, 0);
+        }
+
+        boolean head = "HEAD".equalsIgnoreCase(request.getMethod());
+        ByteBuffer hot = head || file == null ? null : hotFileCache.get(file, length, lastModified);
+
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(mimeType);
+            response.setContentLengthLong(length);
+            if (!head) writeRange(request, response, file, key, hot, 0, length - 1);
+            return new Delivery(HttpServletResponse.SC_OK, 0);
+        }
+
+        long firstByte = ranges.get(0).getRangeStart(length);
+        if (ranges.size() == 1) {
+            long end = ranges.get(0).getRangeEnd(length);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setContentType(mimeType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + firstByte + "-" + end + "/" + length);
+            response.setContentLengthLong(end - firstByte + 1);
+            if (!head) writeRange(request, response, file, key, hot, firstByte, end);
+        } else {
+            writeMultipart(response, file, key, hot, mimeType, length, ranges, head);
+        }
+        return new Delivery(HttpServletResponse.SC_PARTIAL_CONTENT, firstByte);
+    }
+
+    /**
+     * Quotes and escapes the name, and adds an RFC 5987 filename* for non-ASCII names
+     * (Amharic titles), so a name with quotes or line breaks cannot break the header.
+     */
+    static String contentDisposition(String filename, boolean inline) {
+        ContentDisposition.Builder builder = inline ? ContentDisposition.inline() : ContentDisposition.attachment();
+        String name = filename.replaceAll("\\p{Cntrl}", "_");
+        if (StandardCharsets.US_ASCII.newEncoder().canEncode(name)) {
+            builder.filename(name);
+        } else {
+            // The encoded-word fallback Spring writes for a charset leaves quotes unescaped
+            builder.filename(name.replace('"', '\''), StandardCharsets.UTF_8);
+        }
+        return builder.build().toString();
+    }
+
+    /**
+     * Every range must start inside the content, and several ranges together must not cover it all.
+     */
+    private static void validate(List<HttpRange> ranges, long length) {
+        long total = 0;
+        for (HttpRange range : ranges) {
+            long start = range.getRangeStart(length);
+            long end = range.getRangeEnd(length);
+            if (start >= length) {
+                throw new IllegalArgumentException("Range start " + start + " exceeds the length " + length);
+            }
+            total += end - start + 1;
+        }
+        if (ranges.size() > 1 && total >= length) {
+            throw new IllegalArgumentException("The sum of all ranges should be less than the length " + length);
+        }
+    }
+
+    /**
+     * Strong validator derived from the file key (device/inode where the file system has one),
+     * size and modification time; cheap, and stable across restarts.
+     */
+    private String etag(BasicFileAttributes attributes) {
+        StringBuilder tag = new StringBuilder("\"");
+        Object fileKey = attributes.fileKey();
+        if (fileKey != null) {
+            tag.append(Integer.toHexString(fileKey.hashCode())).append('-');
+        }
+        return tag.append(Long.toHexString(attributes.size())).append('-')
+                .append(Long.toHexString(attributes.lastModifiedTime().toMillis())).append('"').toString();
+    }
+
+    private boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        if (!"GET".equalsIgnoreCase(request.getMethod()) && !"HEAD".equalsIgnoreCase(request.getMethod())) {
+            return false;
+        }
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            // Weak comparison, as required for If-None-Match
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || stripWeak(tag).equals(etag)) return true;
+            }
+            return false;
+        }
+        long since;
+        try {
+            since = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return since != -1 && lastModified / 1000 <= since / 1000;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private List<HttpRange> requestedRanges(HttpServletRequest request, String etag, long lastModified) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || rangeHeader.isBlank()) return List.of();
+
+        // If-Range: only honour the Range when the client's copy is still current (strong comparison)
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.isBlank()) {
+            if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+                if (!ifRange.equals(etag)) return List.of();
+            } else {
+                long since = request.getDateHeader(HttpHeaders.IF_RANGE);
+                if (since == -1 || lastModified / 1000 > since / 1000) return List.of();
+            }
+        }
+        return HttpRange.parseRanges(rangeHeader);
+    }
+
+    private long firstByteRequested(HttpServletRequest request) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || rangeHeader.isBlank()) return 0;
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.isEmpty() ? 0 : ranges.get(0).getRangeStart(Long.MAX_VALUE);
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * URI of the file inside the nginx internal location, or null if it lies outside the upload root.
+     */
+    private String internalUri(Path file) {
+        Path root = Paths.get(uploadRoot).toAbsolutePath().normalize();
+        Path absolute = file.toAbsolutePath().normalize();
+        if (!absolute.startsWith(root)) return null;
+
+        StringBuilder uri = new StringBuilder(accelRedirectPrefix.endsWith("/")
+                ? accelRedirectPrefix.substring(0, accelRedirectPrefix.length() - 1)
+                : accelRedirectPrefix);
+        for (Path segment : root.relativize(absolute)) {
+            uri.append('/').append(UriUtils.encodePathSegment(segment.toString(), StandardCharsets.UTF_8));
+        }
+        return uri.toString();
+    }
+
+    private void writeRange(HttpServletRequest request, HttpServletResponse response, Path file, String key,
+                            ByteBuffer hot, long start, long end) throws IOException {
+        long count = end - start + 1;
+        if (count <= 0) return;
+
+        if (file == null) {
+            OutputStream out = response.getOutputStream();
+            try (InputStream in = storageBackend.get(key, start, count)) {
+                in.transferTo(out);
+            }
+            out.flush();
+            return;
+        }
+
+        if (hot != null) {
+            OutputStream out = response.getOutputStream();
+            write(hot, start, end, Channels.newChannel(out));
+            out.flush();
+            return;
+        }
+
+        if (count >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file region itself after the servlet returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        OutputStream out = response.getOutputStream();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            transfer(channel, start, count, Channels.newChannel(out));
+        }
+        out.flush();
+    }
+
+    private void writeMultipart(HttpServletResponse response, Path file, String key, ByteBuffer hot, String mimeType,
+                                long length, List<HttpRange> ranges, boolean head) throws IOException {
+        String boundary = UUID.randomUUID().toString();
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (HttpRange range : ranges) {
+            long start = range.getRangeStart(length);
+            long end = range.getRangeEnd(length);
+            byte[] header = ("\r\n--" + boundary + "\r\n"
+                    + "Content-Type: " + mimeType + "\r\n"
+                    + "Content-Range: bytes " + start + "-" + end + "/" + length + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(header);
+            contentLength += header.length + (end - start + 1);
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (head) return;
+
+        OutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        if (hot != null) {
+            for (int i = 0; i < ranges.size(); i++) {
+                out.write(partHeaders.get(i));
+                write(hot, ranges.get(i).getRangeStart(length), ranges.get(i).getRangeEnd(length), target);
+            }
+            out.write(closing);
+            out.flush();
+            return;
+        }
+        if (file == null) {
+            for (int i = 0; i < ranges.size(); i++) {
+                long start = ranges.get(i).getRangeStart(length);
+                long end = ranges.get(i).getRangeEnd(length);
+                out.write(partHeaders.get(i));
+                try (InputStream in = storageBackend.get(key, start, end - start + 1)) {
+                    in.transferTo(out);
+                }
+            }
+            out.write(closing);
+            out.flush();
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int i = 0; i < ranges.size(); i++) {
+                long start = ranges.get(i).getRangeStart(length);
+                long end = ranges.get(i).getRangeEnd(length);
+                out.write(partHeaders.get(i));
+                transfer(channel, start, end - start + 1, target);
+            }
+        }
+        out.write(closing);
+        out.flush();
+    }
+
+    /** Write bytes start..end (inclusive) of a cached mapping; the mapping itself is never copied whole. */
+    private void write(ByteBuffer hot, long start, long end, WritableByteChannel target) throws IOException {
+        ByteBuffer slice = hot.duplicate();
+        slice.limit((int) end + 1).position((int) start);
+        while (slice.hasRemaining()) {
+            target.write(slice);
+        }
+    }
+
+    private void transfer(FileChannel channel, long position, long count, WritableByteChannel target) throws IOException {
+        while (count > 0) {
+            long written = channel.transferTo(position, count, target);
+            if (written <= 0) break;
+            position += written;
+            count -= written;
+        }
+    }
+}
@@ -1,24 +1,29 @@
 package com.itas.service;
 
+import com.itas.model.StoredBlob;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.UUID;
 
 @Service
 public class FileStorageService {
     
     private final Path fileStorageLocation;
     
+    @Autowired
+    private BlobStorageService blobStorageService;
+    
+    @Autowired
+    private StorageBackend storageBackend;
+    
     public FileStorageService(@Value("${file.upload-dir:uploads}") String uploadDir) {
         this.fileStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
         
@@ -29,75 +34,88 @@ public class FileStorageService {
         }
     }
     
-    public String storeFile(MultipartFile file, String category) {
-        // Normalize file name
-        String originalFileName = StringUtils.cleanPath(file.getOriginalFilename());
-        
-        try {
-            // Check if the file's name contains invalid characters
-            if(originalFileName.contains("..")) {
-                throw new RuntimeException("Sorry! Filename contains invalid path sequence " + originalFileName);
-            }
-            
-            // Generate unique filename
-            String fileExtension = "";
-            int dotIndex = originalFileName.lastIndexOf('.');
-            if (dotIndex > 0) {
-                fileExtension = originalFileName.substring(dotIndex);
-            }
-            
-            String uniqueFileName = UUID.randomUUID().toString() + fileExtension;
-            
-            // Create category directory if it doesn't exist
-            Path categoryPath = this.fileStorageLocation.resolve(category);
-            Files.createDirectories(categoryPath);
-            
-            // Copy file to the target location
-            Path targetLocation = categoryPath.resolve(uniqueFileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-            
-            return category + "/" + uniqueFileName;
+    /**
+     * Store an upload in the content-addressable blob store (hashed while streaming).
+     */
+    public StoredBlob storeBlob(MultipartFile file) {
+        String originalFileName = StringUtils.cleanPath(file.getOriginalFilename() != null ? file.getOriginalFilename() : "");
+        try (InputStream in = file.getInputStream()) {
+            return blobStorageService.store(in);
         } catch (IOException ex) {
             throw new RuntimeException("Could not store file " + originalFileName + ". Please try again!", ex);
         }
     }
     
+    // Category no longer affects the location: identical content is stored once
+    public String storeFile(MultipartFile file, String category) {
+        return storeBlob(file).getStoragePath();
+    }
+    
+    /**
+     * Absolute path of a stored file; rejects paths that escape the upload directory.
+     */
+    public Path resolveFile(String filePath) {
+        Path file = this.fileStorageLocation.resolve(filePath).normalize();
+        if (!file.startsWith(this.fileStorageLocation)) {
+            throw new RuntimeException("Invalid file path " + filePath);
+        }
+        return file;
+    }
+    
+    /**
+     * A stored file path as saved on a resource: absolute, relative to the working
+     * directory, or relative to the upload directory.
+     */
+    public Path locate(String filePath) {
+        Path file = Paths.get(filePath);
+        if (!file.isAbsolute() && !Files.exists(file)) {
+            file = this.fileStorageLocation.resolve(filePath).normalize();
+        }
+        return file;
+    }
+    
+    /**
+     * Storage backend key of a stored file path (as in locate); rejects paths that escape the upload directory.
+     */
+    public String storageKey(String filePath) {
+        Path path = Paths.get(filePath);
+        Path absolute = path.isAbsolute() ? path.normalize() : path.toAbsolutePath().normalize();
+        if (!absolute.startsWith(this.fileStorageLocation)) {
+            absolute = this.fileStorageLocation.resolve(path).normalize();
+        }
+        if (!absolute.startsWith(this.fileStorageLocation) || absolute.equals(this.fileStorageLocation)) {
+            throw new RuntimeException("Invalid file path " + filePath);
+        }
+        return this.fileStorageLocation.relativize(absolute).toString().replace('\\', '/');
+    }
+    
     public byte[] loadFileAsBytes(String filePath) {
-        try {
-            Path file = this.fileStorageLocation.resolve(filePath).normalize();
-            return Files.readAllBytes(file);
+        try (InputStream in = storageBackend.get(storageKey(filePath))) {
+            return in.readAllBytes();
         } catch (IOException ex) {
             throw new RuntimeException("File not found " + filePath, ex);
         }
     }
     
+    /**
+     * Delete a stored file. Blobs only lose one reference; legacy per-upload files
+     * (relative to the upload directory or to the working directory) are removed.
+     */
     public void deleteFile(String filePath) {
+        String digest = blobStorageService.digestOf(filePath);
+        if (digest != null) {
+            blobStorageService.release(digest);
+            return;
+        }
         try {
-            Path file = this.fileStorageLocation.resolve(filePath).normalize();
-            Files.deleteIfExists(file);
+            String key = storageKey(filePath);
+            storageBackend.delete(key);
+            storageBackend.delete(ThumbnailService.thumbnailKey(key));
         } catch (IOException ex) {
             throw new RuntimeException("Could not delete file " + filePath, ex);
         }
     }
     
-    public String calculateFileHash(MultipartFile file) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(file.getBytes());
-            StringBuilder hexString = new StringBuilder();
-            
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if(hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
-            }
-            
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException | IOException ex) {
-            throw new RuntimeException("Could not calculate file hash", ex);
-        }
-    }
-    
     public String getMimeType(String fileName) {
         try {
             Path path = Paths.get(fileName);
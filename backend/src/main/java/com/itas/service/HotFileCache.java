@@ -0,0 +1,175 @@
+package com.itas.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Size-bounded cache of hot resource files, held as read-only memory mappings.
+ *
+ * The bytes live in the OS page cache outside the Java heap; a hit hands out a
+ * duplicate of the mapping, so serving never copies the file onto the heap.
+ * Admission is TinyLFU-style: every request is counted in a small count-min
+ * sketch, and a file only displaces cached ones (LRU order) when it has been
+ * requested more often than each of them. One-off downloads of large files
+ * therefore never flush the campaign-week favourites.
+ *
+ * Entries are keyed by path and checked against size and modification time;
+ * ResourceService invalidates a path when its file is replaced or deleted.
+ * Evicted mappings are released by the garbage collector.
+ */
+@Service
+public class HotFileCache {
+
+    private final long maxBytes;
+    private final long maxFileBytes;
+    private final FrequencySketch sketch;
+
+    // Access-ordered: the eldest entry is the least recently used
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long usedBytes;
+
+    private record Entry(MappedByteBuffer buffer, long length, long lastModified) {}
+
+    public HotFileCache(@Value("${app.file.hot-cache.max-bytes:268435456}") long maxBytes,
+                        @Value("${app.file.hot-cache.max-file-bytes:33554432}") long maxFileBytes) {
+        this.maxBytes = maxBytes;
+        this.maxFileBytes = Math.min(maxFileBytes, Integer.MAX_VALUE); // a single mapping is int-indexed
+        this.sketch = new FrequencySketch(4096);
+    }
+
+    /**
+     * Record a request for the file and return its cached contents, mapping and
+     * admitting it if it is now popular enough. Returns null when the file is served from disk.
+     */
+    public ByteBuffer get(Path file, long length, long lastModified) {
+        if (maxBytes <= 0 || length <= 0 || length > Math.min(maxFileBytes, maxBytes)) return null;
+        Path key = file.toAbsolutePath().normalize();
+
+        synchronized (this) {
+            sketch.increment(key);
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.length == length && entry.lastModified == lastModified) {
+                    return entry.buffer.duplicate();
+                }
+                remove(key);
+            }
+            if (victims(key, length) == null) return null;
+        }
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(key, StandardOpenOption.READ)) {
+            if (channel.size() != length) return null; // changed since the caller's stat
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        } catch (IOException e) {
+            System.err.println("Could not map hot file " + key + ": " + e.getMessage());
+            return null;
+        }
+
+        synchronized (this) {
+            if (entries.containsKey(key)) remove(key); // another request mapped it meanwhile
+            List<Path> victims = victims(key, length);
+            if (victims == null) return null;
+            for (Path victim : victims) remove(victim);
+            entries.put(key, new Entry(buffer, length, lastModified));
+            usedBytes += length;
+        }
+        return buffer.duplicate();
+    }
+
+    public synchronized void invalidate(Path file) {
+        remove(file.toAbsolutePath().normalize());
+    }
+
+    /**
+     * Entries that must go to make room for the candidate, or null if the candidate
+     * is not requested more often than every one of them.
+     */
+    private List<Path> victims(Path candidate, long length) {
+        List<Path> victims = new ArrayList<>();
+        long free = maxBytes - usedBytes;
+        if (free >= length) return victims;
+
+        int candidateFrequency = sketch.frequency(candidate);
+        Iterator<Map.Entry<Path, Entry>> eldest = entries.entrySet().iterator();
+        while (free < length && eldest.hasNext()) {
+            Map.Entry<Path, Entry> next = eldest.next();
+            if (sketch.frequency(next.getKey()) >= candidateFrequency) return null;
+            victims.add(next.getKey());
+            free += next.getValue().length;
+        }
+        return free >= length ? victims : null;
+    }
+
+    private void remove(Path key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) usedBytes -= removed.length;
+    }
+
+    /**
+     * Count-min sketch of 4-bit counters (4 rows) that halves itself every
+     * 10 x width increments, so old popularity fades.
+     */
+    static final class FrequencySketch {
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+        private static final int MAX_COUNT = 15;
+
+        private final byte[][] rows;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int width) {
+            int size = Integer.highestOneBit(Math.max(16, width - 1)) << 1;
+            this.rows = new byte[SEEDS.length][size];
+            this.mask = size - 1;
+            this.sampleSize = 10 * size;
+        }
+
+        void increment(Object key) {
+            int hash = key.hashCode();
+            boolean added = false;
+            for (int i = 0; i < rows.length; i++) {
+                int index = index(hash, i);
+                if (rows[i][index] < MAX_COUNT) {
+                    rows[i][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) reset();
+        }
+
+        int frequency(Object key) {
+            int hash = key.hashCode();
+            int min = MAX_COUNT;
+            for (int i = 0; i < rows.length; i++) {
+                min = Math.min(min, rows[i][index(hash, i)]);
+            }
+            return min;
+        }
+
+        private int index(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * SEEDS[(row + 1) % SEEDS.length];
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private void reset() {
+            for (byte[] row : rows) {
+                for (int i = 0; i < row.length; i++) row[i] >>= 1;
+            }
+            additions /= 2;
+        }
+    }
+}
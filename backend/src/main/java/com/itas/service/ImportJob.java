@@ -0,0 +1,149 @@
+package com.itas.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.itas.model.Question;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * State of one asynchronous question import. Written by the import worker,
+ * read by polling requests; every accessor is synchronized on the job.
+ */
+public class ImportJob {
+
+    public enum Status { QUEUED, PARSING, PREVIEW_READY, SAVING, COMPLETED, FAILED }
+
+    /** Only the first skipped blocks are kept with their reasons. */
+    private static final int MAX_SKIPPED_DETAILS = 200;
+
+    private final String id;
+    private final String filename;
+    private final Long moduleId;
+    private final Long courseId;
+    private final String questionCategory;
+    private final boolean previewOnly;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private Status status = Status.QUEUED;
+    private int pagesParsed;
+    private int totalPages;
+    private int accepted;
+    private int skipped;
+    private int imported;
+    private Map<String, Object> report;
+    private String error;
+    private LocalDateTime finishedAt;
+    private final List<Map<String, Object>> skippedBlocks = new ArrayList<>();
+
+    private Path spooledFile;
+    private List<Question> questions;
+
+    public ImportJob(String id, String filename, Long moduleId, Long courseId, String questionCategory,
+                     boolean previewOnly) {
+        this.id = id;
+        this.filename = filename;
+        this.moduleId = moduleId;
+        this.courseId = courseId;
+        this.questionCategory = questionCategory;
+        this.previewOnly = previewOnly;
+    }
+
+    public String getId() { return id; }
+    public String getFilename() { return filename; }
+    public Long getModuleId() { return moduleId; }
+    public Long getCourseId() { return courseId; }
+    public String getQuestionCategory() { return questionCategory; }
+    public boolean isPreviewOnly() { return previewOnly; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    public synchronized Status getStatus() { return status; }
+    public synchronized void setStatus(Status status) { this.status = status; }
+
+    public synchronized LocalDateTime getFinishedAt() { return finishedAt; }
+
+    public synchronized boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED || status == Status.PREVIEW_READY;
+    }
+
+    synchronized void onPages(int pagesParsed, int totalPages) {
+        this.pagesParsed = pagesParsed;
+        this.totalPages = totalPages;
+    }
+
+    synchronized void onQuestion() {
+        accepted++;
+    }
+
+    synchronized void onSkipped(int blockNumber, String reason) {
+        skipped++;
+        if (skippedBlocks.size() < MAX_SKIPPED_DETAILS) {
+            Map<String, Object> detail = new LinkedHashMap<>();
+            detail.put("block", blockNumber);
+            detail.put("reason", reason);
+            skippedBlocks.add(detail);
+        }
+    }
+
+    synchronized void parsed(List<Question> questions) {
+        this.questions = questions;
+        if (previewOnly) {
+            status = Status.PREVIEW_READY;
+            finishedAt = LocalDateTime.now();
+        }
+    }
+
+    synchronized void completed(ImportReport report) {
+        report.setSkipped(skipped);
+        this.imported = report.getCreated().size() + report.getUpdated().size();
+        this.report = report.toSummary();
+        this.questions = null;
+        status = Status.COMPLETED;
+        finishedAt = LocalDateTime.now();
+    }
+
+    synchronized void failed(String error) {
+        this.error = error;
+        this.questions = null;
+        status = Status.FAILED;
+        finishedAt = LocalDateTime.now();
+    }
+
+    @JsonIgnore
+    synchronized Path getSpooledFile() { return spooledFile; }
+    synchronized void setSpooledFile(Path spooledFile) { this.spooledFile = spooledFile; }
+
+    /** Parsed questions held for a preview job until it is confirmed or expires. */
+    @JsonIgnore
+    public synchronized List<Question> getQuestions() {
+        return questions != null ? Collections.unmodifiableList(questions) : Collections.emptyList();
+    }
+
+    /** Snapshot for the polling endpoint. */
+    public synchronized Map<String, Object> toStatus() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("jobId", id);
+        result.put("status", status);
+        result.put("filename", filename);
+        result.put("moduleId", moduleId);
+        result.put("courseId", courseId);
+        result.put("questionCategory", questionCategory);
+        result.put("previewOnly", previewOnly);
+        result.put("pagesParsed", pagesParsed);
+        result.put("totalPages", totalPages);
+        result.put("accepted", accepted);
+        result.put("skipped", skipped);
+        result.put("skippedBlocks", new ArrayList<>(skippedBlocks));
+        result.put("imported", imported);
+        result.put("report", report);
+        result.put("error", error);
+        result.put("createdAt", createdAt);
+        result.put("finishedAt", finishedAt);
+        return result;
+    }
+}
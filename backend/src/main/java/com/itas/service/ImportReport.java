@@ -0,0 +1,51 @@
+package com.itas.service;
+
+import com.itas.model.Question;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of merging an imported question bank into the existing questions.
+ */
+public class ImportReport {
+
+    private final List<Question> created = new ArrayList<>();
+    private final List<Question> updated = new ArrayList<>();
+    private int unchanged;
+    private int duplicates;
+    private int skipped;
+
+    void addCreated(Question question) { created.add(question); }
+    void addUpdated(Question question) { updated.add(question); }
+    void addUnchanged() { unchanged++; }
+    void addDuplicate() { duplicates++; }
+    void setSkipped(int skipped) { this.skipped = skipped; }
+
+    public List<Question> getCreated() { return created; }
+    public List<Question> getUpdated() { return updated; }
+    public int getUnchanged() { return unchanged; }
+    /** Questions skipped because an earlier question in the same file has the same stem. */
+    public int getDuplicates() { return duplicates; }
+    /** Blocks of the file that could not be parsed as a question. */
+    public int getSkipped() { return skipped; }
+
+    /** Questions written by the import, new ones first. */
+    public List<Question> getSaved() {
+        List<Question> saved = new ArrayList<>(created);
+        saved.addAll(updated);
+        return saved;
+    }
+
+    public Map<String, Object> toSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("new", created.size());
+        summary.put("changed", updated.size());
+        summary.put("unchanged", unchanged);
+        summary.put("duplicates", duplicates);
+        summary.put("skipped", skipped);
+        return summary;
+    }
+}
@@ -0,0 +1,258 @@
+package com.itas.service;
+
+import com.itas.model.QuestionStat;
+import com.itas.repository.QuestionStatRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Incremental item analysis (difficulty and discrimination) for question banks.
+ *
+ * Grading paths call recordAttempt once per submission; it is counted when the
+ * submission's transaction commits. Per-question deltas are
+ * kept in WriteBehindDeltas accumulators and flushed to question_stats
+ * as batched "col = col + ?" updates, so no request ever scans historical attempts.
+ *
+ * Top/bottom quartile membership is decided against an in-memory score histogram
+ * per paper (module quiz or course final exam). Until a paper has MIN_QUARTILE_SAMPLE
+ * submissions since startup, candidates only count towards the overall totals.
+ */
+@Service
+public class ItemStatisticsService {
+
+    private static final int MIN_QUARTILE_SAMPLE = 20;
+
+    private static final String UPDATE_SQL =
+            "UPDATE question_stats SET attempts = attempts + ?, correct_count = correct_count + ?, " +
+            "score_sum = score_sum + ?, top_attempts = top_attempts + ?, top_correct = top_correct + ?, " +
+            "top_score_sum = top_score_sum + ?, bottom_attempts = bottom_attempts + ?, " +
+            "bottom_correct = bottom_correct + ?, bottom_score_sum = bottom_score_sum + ?, updated_at = ? " +
+            "WHERE question_id = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO question_stats (attempts, correct_count, score_sum, top_attempts, top_correct, " +
+            "top_score_sum, bottom_attempts, bottom_correct, bottom_score_sum, updated_at, question_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private QuestionStatRepository questionStatRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final WriteBehindDeltas<ItemAccumulator> pending =
+            new WriteBehindDeltas<>("Item statistics", ItemAccumulator::new, ItemAccumulator::merge);
+
+    private final Map<String, ScoreHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Record one graded submission.
+     *
+     * @param paperKey   identifies the question set the candidate sat, e.g. "module:12" or "exam:3"
+     * @param percentage the candidate's overall score on that paper
+     * @param results    question id -> answered correctly
+     */
+    public void recordAttempt(String paperKey, double percentage, Map<Long, Boolean> results) {
+        if (results == null || results.isEmpty()) return;
+        // A submission that rolls back must not be counted
+        AfterCommit.run(() -> count(paperKey, percentage, results));
+    }
+
+    private void count(String paperKey, double percentage, Map<Long, Boolean> results) {
+        ScoreHistogram histogram = histograms.computeIfAbsent(paperKey, k -> new ScoreHistogram());
+        histogram.add(percentage);
+        Band band = histogram.classify(percentage);
+
+        for (Map.Entry<Long, Boolean> entry : results.entrySet()) {
+            boolean isCorrect = Boolean.TRUE.equals(entry.getValue());
+            pending.add(entry.getKey(), accumulator -> accumulator.add(isCorrect, percentage, band));
+        }
+    }
+
+    /**
+     * Difficulty and discrimination for a question.
+     * One primary-key lookup plus the unflushed in-memory deltas.
+     */
+    public Map<String, Object> getQuestionStats(Long questionId) {
+        QuestionStat stat = questionStatRepository.findById(questionId).orElseGet(QuestionStat::new);
+        ItemAccumulator delta = pending.get(questionId);
+
+        long attempts = stat.getAttempts();
+        long correct = stat.getCorrectCount();
+        double scoreSum = stat.getScoreSum();
+        long topAttempts = stat.getTopAttempts();
+        long topCorrect = stat.getTopCorrect();
+        long bottomAttempts = stat.getBottomAttempts();
+        long bottomCorrect = stat.getBottomCorrect();
+        if (delta != null) {
+            attempts += delta.attempts.sum();
+            correct += delta.correct.sum();
+            scoreSum += delta.scoreSum.sum();
+            topAttempts += delta.topAttempts.sum();
+            topCorrect += delta.topCorrect.sum();
+            bottomAttempts += delta.bottomAttempts.sum();
+            bottomCorrect += delta.bottomCorrect.sum();
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("questionId", questionId);
+        result.put("attempts", attempts);
+        result.put("correctCount", correct);
+        result.put("difficulty", attempts > 0 ? (double) correct / attempts : null);
+        result.put("meanCandidateScore", attempts > 0 ? scoreSum / attempts : null);
+        result.put("topAttempts", topAttempts);
+        result.put("topCorrect", topCorrect);
+        result.put("bottomAttempts", bottomAttempts);
+        result.put("bottomCorrect", bottomCorrect);
+        result.put("discrimination", topAttempts > 0 && bottomAttempts > 0
+                ? (double) topCorrect / topAttempts - (double) bottomCorrect / bottomAttempts
+                : null);
+        result.put("updatedAt", stat.getUpdatedAt());
+        return result;
+    }
+
+    /**
+     * Push accumulated deltas to question_stats as batched increments, in one transaction
+     * so a failed flush leaves nothing applied and every delta can be put back.
+     */
+    @Scheduled(fixedDelayString = "${app.item-stats.flush-interval-ms:10000}")
+    public synchronized void flush() {
+        pending.flush(batch -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> updates = new ArrayList<>();
+            batch.forEach((id, accumulator) -> updates.add(accumulator.toParams(now, id)));
+
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                int[] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+
+                List<Object[]> inserts = new ArrayList<>();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) inserts.add(updates.get(i));
+                }
+                if (!inserts.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+                }
+            });
+        });
+    }
+
+    /**
+     * Drop the statistics of deleted questions: their unflushed deltas, and any row
+     * a flush wrote after the questions' own rows were deleted.
+     */
+    public synchronized void forget(Collection<Long> questionIds) {
+        if (questionIds.isEmpty()) return;
+        pending.remove(questionIds);
+        List<Object[]> ids = new ArrayList<>();
+        for (Long id : questionIds) ids.add(new Object[] { id });
+        // Called after the deleting transaction has committed, so in a transaction of its own
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transaction.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate("DELETE FROM question_stats WHERE question_id = ?", ids));
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    enum Band { TOP, MIDDLE, BOTTOM }
+
+    /** Per-question counters; adders so getQuestionStats can read them while they are updated. */
+    private static class ItemAccumulator {
+        final LongAdder attempts = new LongAdder();
+        final LongAdder correct = new LongAdder();
+        final DoubleAdder scoreSum = new DoubleAdder();
+        final LongAdder topAttempts = new LongAdder();
+        final LongAdder topCorrect = new LongAdder();
+        final DoubleAdder topScoreSum = new DoubleAdder();
+        final LongAdder bottomAttempts = new LongAdder();
+        final LongAdder bottomCorrect = new LongAdder();
+        final DoubleAdder bottomScoreSum = new DoubleAdder();
+
+        void add(boolean isCorrect, double percentage, Band band) {
+            attempts.increment();
+            scoreSum.add(percentage);
+            if (isCorrect) correct.increment();
+            if (band == Band.TOP) {
+                topAttempts.increment();
+                topScoreSum.add(percentage);
+                if (isCorrect) topCorrect.increment();
+            } else if (band == Band.BOTTOM) {
+                bottomAttempts.increment();
+                bottomScoreSum.add(percentage);
+                if (isCorrect) bottomCorrect.increment();
+            }
+        }
+
+        ItemAccumulator merge(ItemAccumulator failed) {
+            attempts.add(failed.attempts.sum());
+            correct.add(failed.correct.sum());
+            scoreSum.add(failed.scoreSum.sum());
+            topAttempts.add(failed.topAttempts.sum());
+            topCorrect.add(failed.topCorrect.sum());
+            topScoreSum.add(failed.topScoreSum.sum());
+            bottomAttempts.add(failed.bottomAttempts.sum());
+            bottomCorrect.add(failed.bottomCorrect.sum());
+            bottomScoreSum.add(failed.bottomScoreSum.sum());
+            return this;
+        }
+
+        Object[] toParams(Timestamp now, Long questionId) {
+            return new Object[] { attempts.sum(), correct.sum(), scoreSum.sum(), topAttempts.sum(), topCorrect.sum(),
+                    topScoreSum.sum(), bottomAttempts.sum(), bottomCorrect.sum(), bottomScoreSum.sum(), now, questionId };
+        }
+    }
+
+    /** Whole-percent score histogram; classification is a fixed 101-bucket scan. */
+    static class ScoreHistogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(101);
+        private final LongAdder total = new LongAdder();
+
+        void add(double percentage) {
+            buckets.incrementAndGet(bucket(percentage));
+            total.increment();
+        }
+
+        Band classify(double percentage) {
+            long n = total.sum();
+            if (n < MIN_QUARTILE_SAMPLE) return Band.MIDDLE;
+
+            int b = bucket(percentage);
+            long below = 0;
+            for (int i = 0; i < b; i++) below += buckets.get(i);
+            long above = 0;
+            for (int i = b + 1; i < buckets.length(); i++) above += buckets.get(i);
+
+            if (below >= n * 0.75) return Band.TOP;
+            if (above >= n * 0.75) return Band.BOTTOM;
+            return Band.MIDDLE;
+        }
+
+        private static int bucket(double percentage) {
+            return (int) Math.max(0, Math.min(100, Math.round(percentage)));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.itas.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Objects as files under the local upload directory (the default; single node only).
+ */
+@Service
+@ConditionalOnProperty(name = "app.storage.backend", havingValue = "local", matchIfMissing = true)
+public class LocalStorageBackend implements StorageBackend {
+
+    private final Path root;
+
+    public LocalStorageBackend(@Value("${file.upload-dir:uploads}") String uploadDir) {
+        this.root = Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Source on another file system: copy next to the target first
+            try (InputStream in = Files.newInputStream(source)) {
+                put(key, in, Files.size(source));
+            }
+        }
+    }
+
+    @Override
+    public void put(String key, InputStream content, long length) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        // Written next to the target and moved into place, so readers never see a partial file
+        Path temp = Files.createTempFile(target.getParent(), ".put-", ".tmp");
+        try {
+            Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+            moveIntoPlace(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        Path file = resolve(key);
+        if (!Files.isRegularFile(file)) throw new NoSuchFileException(key);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ).position(offset);
+        InputStream in = Channels.newInputStream(channel);
+        return length < 0 ? in : new LimitedInputStream(in, length);
+    }
+
+    @Override
+    public ObjectInfo stat(String key) throws IOException {
+        Path file = resolve(key);
+        if (!Files.isRegularFile(file)) return null;
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return new ObjectInfo(attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Path localPath(String key) {
+        return resolve(key);
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private Path resolve(String key) {
+        Path file = root.resolve(key).normalize();
+        if (!file.startsWith(root) || file.equals(root)) {
+            throw new IllegalArgumentException("Invalid storage key " + key);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,101 @@
+package com.itas.service;
+
+import com.itas.model.Module;
+import com.itas.repository.ModuleProgressRepository;
+import com.itas.repository.ModuleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-user module unlock state.
+ *
+ * Module.isLocked is treated as course configuration ("this module requires the
+ * previous one") and is never written when a learner passes a quiz. Whether a
+ * module is actually open for a given user is derived from that user's own
+ * module_progress rows, computed lazily and cached per (user, course).
+ */
+@Service
+public class ModuleUnlockService {
+
+    public static final String CACHE_NAME = "moduleUnlocks";
+
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private ModuleProgressRepository moduleProgressRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    /**
+     * Lock state of every module in the course for this user, keyed by module id
+     * in module order (true = locked).
+     */
+    public Map<Long, Boolean> getLockState(Long userId, Long courseId) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return computeLockState(userId, courseId);
+        }
+        return cache.get(cacheKey(userId, courseId), () -> computeLockState(userId, courseId));
+    }
+
+    /**
+     * Check whether a single module is locked for the user.
+     * Falls back to the module's configured flag if it is missing from the cached state.
+     */
+    public boolean isLocked(Long userId, Module module) {
+        Map<Long, Boolean> state = getLockState(userId, module.getCourse().getId());
+        Boolean locked = state.get(module.getId());
+        return locked != null ? locked : Boolean.TRUE.equals(module.getIsLocked());
+    }
+
+    /**
+     * Called after the user's progress for a module in this course has changed.
+     * The cached entry is dropped once the surrounding transaction commits so a
+     * concurrent read cannot re-cache the pre-commit state.
+     */
+    public void onProgressChanged(Long userId, Long courseId) {
+        Object key = cacheKey(userId, courseId);
+        AfterCommit.run(() -> evict(key));
+    }
+
+    private Map<Long, Boolean> computeLockState(Long userId, Long courseId) {
+        List<Module> modules = moduleRepository.findByCourseIdOrderByModuleOrderAsc(courseId);
+        if (modules.isEmpty()) return Collections.emptyMap();
+
+        Set<Long> completed = new HashSet<>(
+                moduleProgressRepository.findCompletedModuleIdsByUserIdAndCourseId(userId, courseId));
+
+        // A gated module opens once the user has completed the module right before it
+        Map<Long, Boolean> state = new LinkedHashMap<>();
+        Long previousId = null;
+        for (Module module : modules) {
+            boolean gated = Boolean.TRUE.equals(module.getIsLocked());
+            boolean locked = gated && previousId != null && !completed.contains(previousId);
+            state.put(module.getId(), locked);
+            previousId = module.getId();
+        }
+        return Collections.unmodifiableMap(state);
+    }
+
+    private Object cacheKey(Long userId, Long courseId) {
+        return userId + ":" + courseId;
+    }
+
+    private void evict(Object key) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.itas.service;
+
+import org.springframework.http.ContentDisposition;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Incremental multipart/form-data parser.
+ *
+ * Parts are handed out one at a time, in request order, each with a body
+ * stream that ends at the next boundary; nothing is buffered beyond one
+ * read buffer, so a part can be copied straight to its destination. Reading
+ * the next part skips whatever is left of the current one.
+ */
+class MultipartStreamReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_BYTES = 8 * 1024;
+
+    static class Part {
+        private final Map<String, String> headers;
+        private final String name;
+        private final String fileName;
+        private final InputStream body;
+
+        Part(Map<String, String> headers, String name, String fileName, InputStream body) {
+            this.headers = headers;
+            this.name = name;
+            this.fileName = fileName;
+            this.body = body;
+        }
+
+        String getName() { return name; }
+        /** Null for plain form fields. */
+        String getFileName() { return fileName; }
+        String getContentType() { return headers.get("content-type"); }
+        boolean isFile() { return fileName != null; }
+        InputStream getBody() { return body; }
+    }
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final byte[] buffer;
+    private int pos;
+    private int limit;
+    private boolean eof;
+    private boolean started;
+    private boolean finished;
+    private PartStream current;
+
+    MultipartStreamReader(InputStream in, String boundary) {
+        if (boundary == null || boundary.isEmpty() || boundary.length() > 70) {
+            throw new IllegalArgumentException("Invalid multipart boundary");
+        }
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.buffer = new byte[BUFFER_SIZE + delimiter.length];
+        // The first boundary has no CRLF in front of it; pretend it has, so every delimiter looks the same
+        this.buffer[0] = '\r';
+        this.buffer[1] = '\n';
+        this.limit = 2;
+    }
+
+    /**
+     * The next part, or null after the closing boundary.
+     */
+    Part nextPart() throws IOException {
+        if (finished) return null;
+        if (!started) {
+            // Preamble before the first boundary is ignored
+            new PartStream().transferTo(OutputStream.nullOutputStream());
+            started = true;
+        } else if (current != null) {
+            current.transferTo(OutputStream.nullOutputStream());
+        }
+        current = null;
+
+        // After a delimiter: "--" closes the body, CRLF starts the part headers
+        if (!ensure(2)) throw new IOException("Unexpected end of multipart body");
+        if (buffer[pos] == '-' && buffer[pos + 1] == '-') {
+            finished = true;
+            return null;
+        }
+        skipLine();
+
+        Map<String, String> headers = readHeaders();
+        String disposition = headers.get("content-disposition");
+        if (disposition == null) throw new IOException("Multipart part without Content-Disposition");
+        ContentDisposition parsed = ContentDisposition.parse(disposition);
+        current = new PartStream();
+        return new Part(headers, parsed.getName(), parsed.getFilename(), current);
+    }
+
+    private Map<String, String> readHeaders() throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        int total = 0;
+        while (true) {
+            String line = readLine();
+            total += line.length() + 2;
+            if (total > MAX_HEADER_BYTES) throw new IOException("Multipart part headers too large");
+            if (line.isEmpty()) return headers;
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            if (!ensure(1)) throw new IOException("Unexpected end of multipart headers");
+            byte b = buffer[pos++];
+            if (b == '\n') {
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r') line.setLength(length - 1);
+                // Header values are UTF-8 in practice (browsers send raw UTF-8 file names)
+                return new String(line.toString().getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8);
+            }
+            if (line.length() > MAX_HEADER_BYTES) throw new IOException("Multipart header line too long");
+            line.append((char) (b & 0xff));
+        }
+    }
+
+    private void skipLine() throws IOException {
+        // Transport padding (spaces/tabs) may follow a boundary before its CRLF
+        while (true) {
+            if (!ensure(1)) throw new IOException("Unexpected end of multipart body");
+            if (buffer[pos++] == '\n') return;
+        }
+    }
+
+    /** Make at least n unread bytes available; false if the stream ends first. */
+    private boolean ensure(int n) throws IOException {
+        while (limit - pos < n) {
+            if (eof) return false;
+            fill();
+        }
+        return true;
+    }
+
+    private void fill() throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    private int indexOfDelimiter() {
+        byte first = delimiter[0];
+        int last = limit - delimiter.length;
+        outer:
+        for (int i = pos; i <= last; i++) {
+            if (buffer[i] != first) continue;
+            for (int j = 1; j < delimiter.length; j++) {
+                if (buffer[i + j] != delimiter[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Body of the current part: bytes up to (not including) the next delimiter, which it consumes at the end.
+     */
+    private class PartStream extends InputStream {
+        private boolean done;
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int n = read(one, 0, 1);
+            return n < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (done) return -1;
+            if (length == 0) return 0;
+            while (true) {
+                int found = indexOfDelimiter();
+                if (found == pos) {
+                    pos += delimiter.length;
+                    done = true;
+                    return -1;
+                }
+                // Bytes that cannot be the start of a delimiter are safe to hand out
+                int available = found >= 0 ? found - pos : limit - pos - (delimiter.length - 1);
+                if (available > 0) {
+                    int n = Math.min(length, available);
+                    System.arraycopy(buffer, pos, target, offset, n);
+                    pos += n;
+                    return n;
+                }
+                if (eof) throw new IOException("Unexpected end of multipart body");
+                fill();
+            }
+        }
+    }
+
+    static String boundaryOf(String contentType) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/")) return null;
+        return Arrays.stream(contentType.split(";"))
+                .map(String::trim)
+                .filter(p -> p.toLowerCase(Locale.ROOT).startsWith("boundary="))
+                .map(p -> p.substring("boundary=".length()))
+                .map(b -> b.length() > 1 && b.startsWith("\"") && b.endsWith("\"") ? b.substring(1, b.length() - 1) : b)
+                .findFirst().orElse(null);
+    }
+}
@@ -0,0 +1,202 @@
+package com.itas.service;
+
+import com.itas.model.Answer;
+import com.itas.model.Module;
+import com.itas.model.Question;
+import com.itas.model.QuestionType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Single-pass tokenizer for imported question banks.
+ *
+ * Text is fed in arbitrary chunks (e.g. one PDF page range at a time); only the
+ * current question block is buffered. Every pattern is compiled once, and the
+ * clean-ups the old importer did with whole-document replaceAll passes (inline
+ * "Correct Answer:"/"Explanation:"/"Points:" markers, "Question1:" headers) are
+ * handled while splitting each line.
+ */
+public class QuestionBlockParser {
+
+    /** Receives parsed questions and skipped blocks in document order. */
+    public interface Listener {
+        void onQuestion(Question question);
+
+        void onSkipped(int blockNumber, String reason);
+    }
+
+    private static final Pattern HEADER = Pattern.compile("(?i)(?:Question\\s*\\d+[:.)]|Q\\s*\\d+[:.)])");
+    private static final Pattern INLINE_MARKER = Pattern.compile("(?i)(?:Correct\\s+Answer:|Explanation:|Points:)");
+    private static final Pattern TYPE = Pattern.compile("(?i)Type:\\s*");
+    private static final Pattern OPTION = Pattern.compile("[A-D][).]");
+    private static final Pattern CORRECT_ANSWER = Pattern.compile("(?i)Correct\\s+Answer:\\s*([A-D])?");
+    private static final Pattern EXPLANATION = Pattern.compile("(?i)Explanation:\\s*");
+    private static final Pattern POINTS = Pattern.compile("(?i)Points:\\s*(\\d+)?");
+
+    private final Module module;
+    private final Long courseId;
+    private final String questionCategory;
+    private final Listener listener;
+
+    private final StringBuilder carry = new StringBuilder();
+    private List<String> blockLines;
+    private int blockNumber;
+    private int nextOrder;
+
+    public QuestionBlockParser(Module module, Long courseId, String questionCategory, int firstOrder, Listener listener) {
+        this.module = module;
+        this.courseId = courseId;
+        this.questionCategory = questionCategory != null ? questionCategory : "QUIZ";
+        this.nextOrder = firstOrder;
+        this.listener = listener;
+    }
+
+    /**
+     * Feed the next chunk of text. A trailing partial line is kept until the next chunk.
+     */
+    public void feed(CharSequence chunk) {
+        carry.append(chunk);
+        int start = 0;
+        for (int i = 0; i < carry.length(); i++) {
+            char c = carry.charAt(i);
+            if (c == '\n' || c == '\r') {
+                acceptLine(carry.substring(start, i));
+                if (c == '\r' && i + 1 < carry.length() && carry.charAt(i + 1) == '\n') i++;
+                start = i + 1;
+            }
+        }
+        carry.delete(0, start);
+    }
+
+    /**
+     * Flush the remaining text and the last open block.
+     */
+    public void finish() {
+        if (carry.length() > 0) {
+            acceptLine(carry.toString());
+            carry.setLength(0);
+        }
+        emitBlock();
+    }
+
+    private void acceptLine(String line) {
+        Matcher header = HEADER.matcher(line);
+        int pos = 0;
+        while (header.find()) {
+            appendSegment(line, pos, header.start());
+            emitBlock();
+            blockLines = new ArrayList<>();
+            blockNumber++;
+            pos = header.end();
+        }
+        appendSegment(line, pos, line.length());
+    }
+
+    /** Add a line segment to the open block, splitting it before inline field markers. */
+    private void appendSegment(String line, int from, int to) {
+        if (blockLines == null || from >= to) return; // text before the first question header is ignored
+        Matcher marker = INLINE_MARKER.matcher(line).region(from, to);
+        int pos = from;
+        while (marker.find()) {
+            if (marker.start() > pos) addLine(line.substring(pos, marker.start()));
+            pos = marker.start();
+        }
+        addLine(line.substring(pos, to));
+    }
+
+    private void addLine(String segment) {
+        String trimmed = segment.trim();
+        if (!trimmed.isEmpty()) blockLines.add(trimmed);
+    }
+
+    private void emitBlock() {
+        if (blockLines == null || blockLines.isEmpty()) return;
+        List<String> lines = blockLines;
+        blockLines = null;
+        try {
+            String reason = parseBlock(lines);
+            if (reason != null) listener.onSkipped(blockNumber, reason);
+        } catch (Exception e) {
+            listener.onSkipped(blockNumber, e.getMessage());
+        }
+    }
+
+    /**
+     * Parse one question block. Returns null on success, otherwise the reason it was skipped.
+     */
+    private String parseBlock(List<String> lines) {
+        StringBuilder questionText = new StringBuilder();
+        List<String> options = new ArrayList<>();
+        String correctAnswerLetter = null;
+        String explanation = null;
+        int points = 1;
+        String questionTypeStr = null;
+        boolean readingQuestion = true;
+
+        for (String line : lines) {
+            Matcher m;
+            if ((m = TYPE.matcher(line)).lookingAt()) {
+                questionTypeStr = line.substring(m.end()).trim().toUpperCase();
+            } else if (OPTION.matcher(line).lookingAt()) {
+                readingQuestion = false;
+                options.add(line);
+            } else if ((m = CORRECT_ANSWER.matcher(line)).lookingAt()) {
+                if (m.group(1) != null) correctAnswerLetter = m.group(1).toUpperCase();
+            } else if ((m = EXPLANATION.matcher(line)).lookingAt()) {
+                explanation = line.substring(m.end()).trim();
+            } else if ((m = POINTS.matcher(line)).lookingAt()) {
+                points = m.group(1) != null ? Integer.parseInt(m.group(1)) : 1;
+            } else if (readingQuestion) {
+                if (questionText.length() > 0) questionText.append(' ');
+                questionText.append(line);
+            }
+        }
+
+        if (questionText.length() == 0) return "Missing question text";
+        if (options.size() < 2) return "Fewer than 2 options";
+        if (correctAnswerLetter == null) return "Missing 'Correct Answer:' line";
+
+        Question question = new Question();
+        if (module != null) question.setModule(module);
+        if (courseId != null) question.setCourseId(courseId);
+        question.setQuestionType(QuestionType.MULTIPLE_CHOICE);
+        question.setQuestionCategory(questionCategory);
+        question.setIsPractice("PRACTICE".equals(questionCategory));
+
+        // Set question type based on Type field
+        if (questionTypeStr != null) {
+            if (questionTypeStr.contains("PRACTICE")) {
+                question.setQuestionCategory("PRACTICE");
+                question.setIsPractice(true);
+            } else if (questionTypeStr.contains("FINAL")) {
+                question.setQuestionCategory("FINAL_EXAM");
+                question.setIsPractice(false);
+            } else {
+                question.setQuestionCategory("QUIZ");
+                question.setIsPractice(false);
+            }
+        }
+
+        question.setQuestionText(questionText.toString());
+        question.setExplanation(explanation);
+        question.setPoints(points);
+        question.setOrder(++nextOrder);
+
+        List<Answer> answers = new ArrayList<>();
+        for (int i = 0; i < options.size(); i++) {
+            Answer answer = new Answer();
+            answer.setQuestion(question);
+            answer.setAnswerText(options.get(i));
+            answer.setOrder(i + 1);
+            answer.setIsCorrect(Character.toUpperCase(options.get(i).charAt(0)) == correctAnswerLetter.charAt(0));
+            answers.add(answer);
+        }
+        question.setAnswers(answers);
+
+        listener.onQuestion(question);
+        return null;
+    }
+}
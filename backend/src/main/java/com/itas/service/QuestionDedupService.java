@@ -0,0 +1,154 @@
+package com.itas.service;
+
+import com.itas.model.Answer;
+import com.itas.model.Question;
+import com.itas.model.QuestionFingerprint;
+import com.itas.repository.QuestionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Merges imported questions into a module (or course-level) bank by fingerprint.
+ *
+ * A parsed question with the same content hash as an existing one is
+ * unchanged and skipped. One whose stem matches exactly one existing question,
+ * not otherwise matched by this import, is an edit of it (updated in place,
+ * keeping its id, order and statistics). Everything else, including questions
+ * that share a generic stem with several others, is new and batch-inserted
+ * after the current last question. A question repeated verbatim within the
+ * file is imported once and its later copies are reported as duplicates.
+ */
+@Service
+public class QuestionDedupService {
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Transactional
+    public ImportReport merge(List<Question> parsed, Long moduleId, Long courseId) {
+        ImportReport report = new ImportReport();
+        Map<String, List<Long>> idsByStem = new HashMap<>();
+        Map<String, List<Long>> idsByContent = new HashMap<>();
+        loadFingerprints(moduleId, courseId, idsByStem, idsByContent);
+
+        // First pass: drop exact repeats within the file and match unchanged questions by content
+        Set<String> seenContent = new HashSet<>();
+        Set<Long> matched = new HashSet<>();
+        List<Question> unmatched = new ArrayList<>();
+        for (Question question : parsed) {
+            QuestionFingerprint.apply(question);
+            if (!seenContent.add(question.getContentHash())) {
+                // Repeated within the same file; the first occurrence wins
+                report.addDuplicate();
+                continue;
+            }
+            Long existingId = firstUnmatched(idsByContent.get(question.getContentHash()), matched);
+            if (existingId != null) {
+                matched.add(existingId);
+                report.addUnchanged();
+            } else {
+                unmatched.add(question);
+            }
+        }
+
+        // Second pass: a stem shared by several questions ("Which of the following is correct?")
+        // does not identify one, so only a single, not yet matched stem match counts as an edit
+        Map<Long, Question> changes = new HashMap<>();
+        List<Question> created = new ArrayList<>();
+        for (Question question : unmatched) {
+            List<Long> sameStem = idsByStem.getOrDefault(question.getStemHash(), List.of());
+            if (sameStem.size() == 1 && matched.add(sameStem.get(0))) {
+                changes.put(sameStem.get(0), question);
+            } else {
+                created.add(question);
+            }
+        }
+
+        if (!created.isEmpty()) {
+            int order = maxOrder(moduleId, courseId);
+            for (Question question : created) {
+                question.setOrder(++order);
+                report.addCreated(question);
+            }
+            questionRepository.batchInsert(created);
+        }
+
+        if (!changes.isEmpty()) {
+            for (Question existing : questionRepository.findAllById(changes.keySet())) {
+                applyChange(existing, changes.get(existing.getId()));
+                report.addUpdated(questionRepository.save(existing));
+            }
+        }
+        return report;
+    }
+
+    private void applyChange(Question existing, Question imported) {
+        existing.setQuestionText(imported.getQuestionText());
+        existing.setQuestionCategory(imported.getQuestionCategory());
+        existing.setIsPractice(imported.getIsPractice());
+        existing.setExplanation(imported.getExplanation());
+        existing.setPoints(imported.getPoints());
+        existing.getAnswers().clear();
+        for (Answer answer : imported.getAnswers()) {
+            answer.setQuestion(existing);
+            existing.getAnswers().add(answer);
+        }
+        QuestionFingerprint.apply(existing);
+    }
+
+    /**
+     * Load the bank's fingerprints, computing them first for rows that predate fingerprinting.
+     * Ids are listed in ascending order, so the earliest question is matched first.
+     */
+    private void loadFingerprints(Long moduleId, Long courseId,
+                                  Map<String, List<Long>> idsByStem, Map<String, List<Long>> idsByContent) {
+        List<Object[]> rows = fingerprintRows(moduleId, courseId);
+        List<Long> missing = new ArrayList<>();
+        for (Object[] row : rows) {
+            if (row[1] == null || row[2] == null) missing.add((Long) row[0]);
+        }
+        if (!missing.isEmpty()) {
+            List<Question> legacy = questionRepository.findAllById(missing);
+            legacy.forEach(QuestionFingerprint::apply);
+            questionRepository.saveAll(legacy);
+            questionRepository.flush();
+            rows = fingerprintRows(moduleId, courseId);
+        }
+
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            idsByStem.computeIfAbsent((String) row[1], k -> new ArrayList<>()).add(id);
+            idsByContent.computeIfAbsent((String) row[2], k -> new ArrayList<>()).add(id);
+        }
+        idsByStem.values().forEach(Collections::sort);
+        idsByContent.values().forEach(Collections::sort);
+    }
+
+    private static Long firstUnmatched(List<Long> ids, Set<Long> matched) {
+        if (ids == null) return null;
+        for (Long id : ids) {
+            if (!matched.contains(id)) return id;
+        }
+        return null;
+    }
+
+    private List<Object[]> fingerprintRows(Long moduleId, Long courseId) {
+        if (moduleId != null) return questionRepository.findFingerprintsByModuleId(moduleId);
+        if (courseId != null) return questionRepository.findCourseLevelFingerprints(courseId);
+        return new ArrayList<>();
+    }
+
+    private int maxOrder(Long moduleId, Long courseId) {
+        if (moduleId != null) return questionRepository.findMaxOrderByModuleId(moduleId);
+        return courseId != null ? questionRepository.findMaxOrderForCourseLevel(courseId) : 0;
+    }
+}
@@ -0,0 +1,199 @@
+package com.itas.service;
+
+import com.itas.model.Question;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous question imports.
+ *
+ * The upload is spooled to a temp file on the request thread and the job id is
+ * returned straight away; parsing and saving run on a small bounded worker pool
+ * so large PDFs no longer hold Tomcat threads. Preview jobs keep their parsed
+ * questions until confirmed, so confirming does not parse the file again.
+ * Finished jobs are dropped after app.import.job-ttl-minutes.
+ */
+@Service
+public class QuestionImportJobService {
+
+    @Autowired
+    private QuestionImportService questionImportService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Value("${app.import.job-ttl-minutes:30}")
+    private long jobTtlMinutes;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    private final ThreadPoolExecutor workers;
+
+    public QuestionImportJobService(@Value("${app.import.job-threads:2}") int threads,
+                                    @Value("${app.import.job-queue-capacity:20}") int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "question-import-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+        for (ImportJob job : jobs.values()) {
+            deleteSpooledFile(job);
+        }
+    }
+
+    /**
+     * Queue an import (or a preview when previewOnly) and return the job immediately.
+     */
+    public ImportJob submit(MultipartFile file, Long moduleId, Long courseId, String questionCategory,
+                            boolean previewOnly) throws IOException {
+        String filename = file.getOriginalFilename();
+        questionImportService.checkFormat(filename);
+
+        String category = questionCategory != null ? questionCategory : "QUIZ";
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), filename, moduleId, courseId, category, previewOnly);
+        job.setSpooledFile(questionImportService.spool(file));
+        jobs.put(job.getId(), job);
+
+        try {
+            workers.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            deleteSpooledFile(job);
+            throw new RuntimeException("Too many imports in progress. Please try again shortly.");
+        }
+        return job;
+    }
+
+    public ImportJob getJob(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Import job not found or expired: " + jobId);
+        }
+        return job;
+    }
+
+    /**
+     * Save the cached questions of a finished preview job.
+     */
+    public ImportJob confirm(String jobId) {
+        ImportJob job = getJob(jobId);
+        synchronized (job) {
+            if (job.getStatus() != ImportJob.Status.PREVIEW_READY) {
+                throw new RuntimeException("Import job is not awaiting confirmation (status " + job.getStatus() + ")");
+            }
+            job.setStatus(ImportJob.Status.SAVING);
+        }
+
+        try {
+            workers.execute(() -> save(job, job.getQuestions()));
+        } catch (RejectedExecutionException e) {
+            job.setStatus(ImportJob.Status.PREVIEW_READY);
+            throw new RuntimeException("Too many imports in progress. Please try again shortly.");
+        }
+        return job;
+    }
+
+    private void run(ImportJob job) {
+        try {
+            job.setStatus(ImportJob.Status.PARSING);
+            List<Question> questions = questionImportService.parseFile(job.getSpooledFile(), job.getFilename(),
+                    job.getModuleId(), job.getCourseId(), job.getQuestionCategory(), new QuestionImportService.Progress() {
+                        @Override
+                        public void onPages(int pagesParsed, int totalPages) {
+                            job.onPages(pagesParsed, totalPages);
+                        }
+
+                        @Override
+                        public void onQuestion(Question question) {
+                            job.onQuestion();
+                        }
+
+                        @Override
+                        public void onSkipped(int blockNumber, String reason) {
+                            job.onSkipped(blockNumber, reason);
+                        }
+                    });
+
+            if (job.isPreviewOnly()) {
+                job.parsed(questions);
+                return;
+            }
+            job.setStatus(ImportJob.Status.SAVING);
+            save(job, questions);
+        } catch (Exception e) {
+            job.failed(e.getMessage());
+        } finally {
+            deleteSpooledFile(job);
+        }
+    }
+
+    private void save(ImportJob job, List<Question> questions) {
+        try {
+            // New questions are numbered after the bank's current last question at save time
+            ImportReport report = questionImportService.saveQuestions(new ArrayList<>(questions),
+                    job.getModuleId(), resolveCourseId(job, questions));
+            job.completed(report);
+
+            Cache examBanks = cacheManager.getCache(ExamQuestionPoolService.CACHE_NAME);
+            if (examBanks != null) examBanks.clear();
+        } catch (Exception e) {
+            job.failed(e.getMessage());
+        }
+    }
+
+    private Long resolveCourseId(ImportJob job, List<Question> questions) {
+        if (job.getCourseId() != null || questions.isEmpty()) return job.getCourseId();
+        return questions.get(0).getCourseId();
+    }
+
+    /**
+     * Drop finished jobs (and their cached previews) once they pass the TTL.
+     */
+    @Scheduled(fixedDelayString = "${app.import.job-cleanup-interval-ms:60000}")
+    public void expireJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(jobTtlMinutes);
+        jobs.values().removeIf(job -> {
+            LocalDateTime finishedAt = job.getFinishedAt();
+            return job.isFinished() && finishedAt != null && finishedAt.isBefore(cutoff);
+        });
+    }
+
+    private void deleteSpooledFile(ImportJob job) {
+        Path spooled = job.getSpooledFile();
+        if (spooled == null) return;
+        try {
+            Files.deleteIfExists(spooled);
+            job.setSpooledFile(null);
+        } catch (IOException e) {
+            System.err.println("Could not delete import temp file " + spooled + ": " + e.getMessage());
+        }
+    }
+}
@@ -1,25 +1,35 @@
 package com.itas.service;
 
-import com.itas.model.Answer;
 import com.itas.model.Module;
 import com.itas.model.Question;
-import com.itas.model.QuestionType;
 import com.itas.repository.ModuleRepository;
 import com.itas.repository.QuestionRepository;
+import jakarta.annotation.PreDestroy;
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.apache.poi.xwpf.usermodel.XWPFParagraph;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class QuestionImportService {
@@ -30,25 +40,86 @@ public class QuestionImportService {
     @Autowired
     private ModuleRepository moduleRepository;
 
+    @Autowired
+    private QuestionDedupService questionDedupService;
+
+    @Value("${app.import.pages-per-task:25}")
+    private int pagesPerTask;
+
+    private final ExecutorService extractionPool;
+
+    private final int extractionThreads;
+
+    public QuestionImportService(@Value("${app.import.extraction-threads:0}") int configuredThreads) {
+        this.extractionThreads = configuredThreads > 0
+                ? configuredThreads
+                : Math.min(4, Runtime.getRuntime().availableProcessors());
+        AtomicInteger counter = new AtomicInteger();
+        this.extractionPool = Executors.newFixedThreadPool(extractionThreads, r -> {
+            Thread t = new Thread(r, "pdf-extract-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        extractionPool.shutdownNow();
+    }
+
+    /**
+     * Receives parse progress. All callbacks run on the thread that drives the parse.
+     */
+    public interface Progress {
+        default void onPages(int pagesParsed, int totalPages) {}
+
+        default void onQuestion(Question question) {}
+
+        default void onSkipped(int blockNumber, String reason) {}
+    }
+
+    private static final Progress NO_PROGRESS = new Progress() {};
+
     /**
      * Import questions from Word or PDF file
      */
+    public ImportReport importFromFile(MultipartFile file, Long moduleId,
+                                       Long courseId, String questionCategory) throws IOException {
+        String category = questionCategory != null ? questionCategory : "QUIZ";
+        int[] skipped = {0};
+        List<Question> questions = parseFile(file, moduleId, courseId, category, new Progress() {
+            @Override
+            public void onSkipped(int blockNumber, String reason) {
+                skipped[0]++;
+            }
+        });
+        ImportReport report = saveQuestions(questions, moduleId, courseId);
+        report.setSkipped(skipped[0]);
+        return report;
+    }
+
     public List<Question> importQuestionsFromFile(MultipartFile file, Long moduleId,
                                                    Long courseId, String questionCategory) throws IOException {
-        String filename = file.getOriginalFilename();
-        String text;
+        return importFromFile(file, moduleId, courseId, questionCategory).getSaved();
+    }
 
-        if (filename != null && filename.endsWith(".docx")) {
-            text = extractTextFromWord(file);
-        } else if (filename != null && (filename.endsWith(".pdf"))) {
-            text = extractTextFromPDF(file);
-        } else {
-            throw new IllegalArgumentException("Unsupported file format. Please upload .docx or .pdf file");
-        }
+    // Keep old signature for backward compatibility
+    public List<Question> importQuestionsFromFile(MultipartFile file, Long moduleId) throws IOException {
+        return importQuestionsFromFile(file, moduleId, null, "QUIZ");
+    }
 
-        String category = questionCategory != null ? questionCategory : "QUIZ";
-        List<Question> questions = parseQuestions(text, moduleId, courseId, category);
+    /**
+     * Preview questions from file without saving
+     */
+    public List<Question> previewQuestionsFromFile(MultipartFile file, Long moduleId) throws IOException {
+        return parseFile(file, moduleId, null, "QUIZ", NO_PROGRESS);
+    }
 
+    /**
+     * Merge parsed questions into the bank: new ones are batch-inserted, edited ones
+     * updated in place and unchanged ones skipped.
+     */
+    public ImportReport saveQuestions(List<Question> questions, Long moduleId, Long courseId) {
         if (questions.isEmpty()) {
             throw new RuntimeException(
                 "No valid questions found in the file. " +
@@ -56,61 +127,48 @@ public class QuestionImportService {
             );
         }
 
-        return questionRepository.saveAll(questions);
+        return questionDedupService.merge(questions, moduleId, courseId);
     }
 
-    // Keep old signature for backward compatibility
-    public List<Question> importQuestionsFromFile(MultipartFile file, Long moduleId) throws IOException {
-        return importQuestionsFromFile(file, moduleId, null, "QUIZ");
+    private List<Question> parseFile(MultipartFile file, Long moduleId, Long courseId, String questionCategory,
+                                     Progress progress) throws IOException {
+        String filename = file.getOriginalFilename();
+        checkFormat(filename);
+        Path tempFile = spool(file);
+        try {
+            return parseFile(tempFile, filename, moduleId, courseId, questionCategory, progress);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
     }
 
     /**
-     * Extract text from Word document
+     * Copy an upload to a temp file so it outlives the request. The caller deletes it.
      */
-    private String extractTextFromWord(MultipartFile file) throws IOException {
-        StringBuilder text = new StringBuilder();
-        try (XWPFDocument document = new XWPFDocument(file.getInputStream())) {
-            for (XWPFParagraph paragraph : document.getParagraphs()) {
-                text.append(paragraph.getText()).append("\n");
-            }
+    public Path spool(MultipartFile file) throws IOException {
+        Path tempFile = Files.createTempFile("question-import-", null);
+        try (InputStream in = file.getInputStream()) {
+            Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
         }
-        return text.toString();
+        return tempFile;
     }
 
-    /**
-     * Extract text from PDF document
-     */
-    private String extractTextFromPDF(MultipartFile file) throws IOException {
-        try (PDDocument document = Loader.loadPDF(file.getBytes())) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            stripper.setSortByPosition(true);
-            stripper.setLineSeparator("\n");
-            String raw = stripper.getText(document);
-
-            // Normalize common PDF extraction issues:
-            // 1. Normalize line endings
-            raw = raw.replace("\r\n", "\n").replace("\r", "\n");
-            // 2. Collapse 3+ blank lines into 2
-            raw = raw.replaceAll("\n{3,}", "\n\n");
-            // 3. Fix "Question1:" → "Question 1:" (no space between word and number)
-            raw = raw.replaceAll("(?i)\\bQuestion(\\d+)", "Question $1");
-            // 4. Ensure "Correct Answer:" is on its own line
-            raw = raw.replaceAll("(?i)(?<!\n)(Correct\\s+Answer:)", "\nCorrect Answer:");
-            // 5. Ensure "Explanation:" is on its own line
-            raw = raw.replaceAll("(?i)(?<!\n)(Explanation:)", "\nExplanation:");
-            // 6. Ensure "Points:" is on its own line
-            raw = raw.replaceAll("(?i)(?<!\n)(Points:)", "\nPoints:");
-
-            return raw;
+    public void checkFormat(String filename) {
+        if (filename == null || (!filename.endsWith(".docx") && !filename.endsWith(".pdf"))) {
+            throw new IllegalArgumentException("Unsupported file format. Please upload .docx or .pdf file");
         }
     }
 
     /**
-     * Parse questions from extracted text.
-     * Skips malformed blocks and continues with the rest.
+     * Stream a spooled file through the tokenizer. Skips malformed blocks, reporting them to
+     * progress, and continues with the rest.
      */
-    private List<Question> parseQuestions(String text, Long moduleId, Long courseId, String questionCategory) {
-        List<Question> questions = new ArrayList<>();
+    public List<Question> parseFile(Path path, String filename, Long moduleId, Long courseId,
+                                    String questionCategory, Progress progress) throws IOException {
+        checkFormat(filename);
 
         Module module = null;
         if (moduleId != null) {
@@ -121,181 +179,95 @@ public class QuestionImportService {
             }
         }
 
-        // Split by "Question X:" pattern (flexible: Question 1:, Question 1., Q1:, etc.)
-        String[] blocks = text.split("(?i)(?:Question\\s+\\d+[:.)]|Q\\s*\\d+[:.)])");
-
-        int order = questionRepository.findAll().size();
-        int skipped = 0;
-
-        for (int i = 1; i < blocks.length; i++) {
-            String block = blocks[i].trim();
-            if (block.isEmpty()) continue;
-            try {
-                Question question = parseQuestionBlock(block, module, courseId, questionCategory, order + i);
-                if (question != null) {
+        List<Question> questions = new ArrayList<>();
+        QuestionBlockParser parser = new QuestionBlockParser(module, courseId, questionCategory,
+            nextOrderBase(moduleId, courseId),
+            new QuestionBlockParser.Listener() {
+                @Override
+                public void onQuestion(Question question) {
                     questions.add(question);
-                } else {
-                    skipped++;
+                    progress.onQuestion(question);
                 }
-            } catch (Exception e) {
-                skipped++;
-                System.err.println("Skipped question block " + i + ": " + e.getMessage());
-            }
-        }
 
-        if (skipped > 0) {
-            System.out.println("Import summary: " + questions.size() + " imported, " + skipped + " skipped");
-        }
+                @Override
+                public void onSkipped(int blockNumber, String reason) {
+                    progress.onSkipped(blockNumber, reason);
+                }
+            });
 
+        if (filename.endsWith(".docx")) {
+            extractTextFromWord(path, parser);
+        } else {
+            extractTextFromPDF(path, parser, progress);
+        }
+        parser.finish();
         return questions;
     }
 
-    /**
-     * Parse a single question block
-     */
-    private Question parseQuestionBlock(String block, Module module, Long courseId,
-                                         String questionCategory, int order) {
-        Question question = new Question();
-        if (module != null) question.setModule(module);
-        if (courseId != null) question.setCourseId(courseId);
-        question.setQuestionType(QuestionType.MULTIPLE_CHOICE);
-        question.setQuestionCategory(questionCategory != null ? questionCategory : "QUIZ");
-        question.setIsPractice("PRACTICE".equals(questionCategory));
-        question.setOrder(order);
-
-        // Extract question text (first line before options)
-        String[] lines = block.split("\n");
-        StringBuilder questionText = new StringBuilder();
-        List<String> options = new ArrayList<>();
-        String correctAnswerLetter = null;
-        String explanation = null;
-        Integer points = 1; // Default points
-        String questionTypeStr = null;
-
-        boolean readingQuestion = true;
-        
-        for (String line : lines) {
-            line = line.trim();
-            if (line.isEmpty()) continue;
-
-            // Check for Type field (Practice or Exam)
-            if (line.matches("(?i)^Type:.*")) {
-                questionTypeStr = line.replaceFirst("(?i)^Type:\\s*", "").trim().toUpperCase();
-                continue;
-            }
-            // Check for options (A), B), C), D) or A., B., C., D.
-            else if (line.matches("^[A-D][).)].*")) {
-                readingQuestion = false;
-                options.add(line);
-            }
-            // Check for correct answer
-            else if (line.matches("(?i)^Correct\\s+Answer:.*")) {
-                correctAnswerLetter = extractCorrectAnswerLetter(line);
-            }
-            // Check for explanation
-            else if (line.matches("(?i)^Explanation:.*")) {
-                explanation = line.replaceFirst("(?i)^Explanation:\\s*", "").trim();
-            }
-            // Check for points
-            else if (line.matches("(?i)^Points:.*")) {
-                points = extractPoints(line);
-            }
-            // Still reading question text
-            else if (readingQuestion) {
-                if (questionText.length() > 0) questionText.append(" ");
-                questionText.append(line);
-            }
-        }
-
-        // Validate required fields
-        if (questionText.length() == 0 || options.size() < 2 || correctAnswerLetter == null) {
-            System.err.println("Invalid question format - missing required fields");
-            return null;
-        }
-
-        // Set question type based on Type field
-        if (questionTypeStr != null) {
-            if (questionTypeStr.contains("PRACTICE")) {
-                question.setQuestionCategory("PRACTICE");
-                question.setIsPractice(true);
-            } else if (questionTypeStr.contains("FINALEXAM") || questionTypeStr.contains("FINAL_EXAM") || questionTypeStr.contains("FINAL")) {
-                question.setQuestionCategory("FINAL_EXAM");
-                question.setIsPractice(false);
-            } else {
-                question.setQuestionCategory("QUIZ");
-                question.setIsPractice(false);
-            }
-        }
-
-        // Set question properties
-        question.setQuestionText(questionText.toString());
-        question.setExplanation(explanation);
-        question.setPoints(points);
-
-        // Create Answer entities for each option
-        List<Answer> answers = new ArrayList<>();
-        for (int i = 0; i < options.size(); i++) {
-            Answer answer = new Answer();
-            answer.setQuestion(question);
-            answer.setAnswerText(options.get(i));
-            answer.setOrder(i + 1);
-            
-            // Check if this is the correct answer
-            String optionLetter = options.get(i).substring(0, 1).toUpperCase();
-            answer.setIsCorrect(optionLetter.equals(correctAnswerLetter));
-            
-            answers.add(answer);
-        }
-        
-        question.setAnswers(answers);
-
-        return question;
+    private int nextOrderBase(Long moduleId, Long courseId) {
+        if (moduleId != null) return questionRepository.findMaxOrderByModuleId(moduleId);
+        return courseId != null ? questionRepository.findMaxOrderForCourseLevel(courseId) : 0;
     }
 
     /**
-     * Extract correct answer letter from line
-     * Supports formats: "Correct Answer: A", "Correct Answer: A)", "Correct Answer: A."
+     * Feed Word paragraphs to the parser
      */
-    private String extractCorrectAnswerLetter(String line) {
-        Pattern pattern = Pattern.compile("(?i)Correct\\s+Answer:\\s*([A-D])", Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(line);
-        
-        if (matcher.find()) {
-            return matcher.group(1).toUpperCase();
+    private void extractTextFromWord(Path path, QuestionBlockParser parser) throws IOException {
+        try (InputStream in = Files.newInputStream(path); XWPFDocument document = new XWPFDocument(in)) {
+            for (XWPFParagraph paragraph : document.getParagraphs()) {
+                parser.feed(paragraph.getText());
+                parser.feed("\n");
+            }
         }
-        
-        return null;
     }
 
     /**
-     * Extract points from line
+     * Extract PDF text in page ranges on the extraction pool and feed it to the parser in page order.
+     * Each worker opens the spooled file itself, so the whole PDF is never held in memory;
+     * at most 2x pool-size ranges are in flight at once.
      */
-    private Integer extractPoints(String line) {
-        Pattern pattern = Pattern.compile("(?i)Points:\\s*(\\d+)");
-        Matcher matcher = pattern.matcher(line);
-        
-        if (matcher.find()) {
-            return Integer.parseInt(matcher.group(1));
+    private void extractTextFromPDF(Path path, QuestionBlockParser parser, Progress progress) throws IOException {
+        int pageCount;
+        try (PDDocument document = Loader.loadPDF(new RandomAccessReadBufferedFile(path.toFile()))) {
+            pageCount = document.getNumberOfPages();
+        }
+        progress.onPages(0, pageCount);
+
+        int step = Math.max(1, pagesPerTask);
+        int window = extractionThreads * 2;
+        Deque<Future<String>> inFlight = new ArrayDeque<>();
+        int nextPage = 1;
+        int pagesParsed = 0;
+        try {
+            while (nextPage <= pageCount || !inFlight.isEmpty()) {
+                while (nextPage <= pageCount && inFlight.size() < window) {
+                    int startPage = nextPage;
+                    int endPage = Math.min(pageCount, startPage + step - 1);
+                    inFlight.add(extractionPool.submit(() -> extractPageRange(path, startPage, endPage)));
+                    nextPage = endPage + 1;
+                }
+                parser.feed(inFlight.poll().get());
+                pagesParsed = Math.min(pageCount, pagesParsed + step);
+                progress.onPages(pagesParsed, pageCount);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("PDF extraction interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to extract PDF text: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            for (Future<String> pending : inFlight) pending.cancel(true);
         }
-        
-        return 1; // Default
     }
 
-    /**
-     * Preview questions from file without saving
-     */
-    public List<Question> previewQuestionsFromFile(MultipartFile file, Long moduleId) throws IOException {
-        String filename = file.getOriginalFilename();
-        String text;
-
-        if (filename != null && filename.endsWith(".docx")) {
-            text = extractTextFromWord(file);
-        } else if (filename != null && (filename.endsWith(".pdf"))) {
-            text = extractTextFromPDF(file);
-        } else {
-            throw new IllegalArgumentException("Unsupported file format. Please upload .docx or .pdf file");
+    private String extractPageRange(Path pdf, int startPage, int endPage) throws IOException {
+        try (PDDocument document = Loader.loadPDF(new RandomAccessReadBufferedFile(pdf.toFile()))) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setSortByPosition(true);
+            stripper.setLineSeparator("\n");
+            stripper.setStartPage(startPage);
+            stripper.setEndPage(endPage);
+            return stripper.getText(document);
         }
-
-        return parseQuestions(text, moduleId, null, "QUIZ");
     }
 }
@@ -0,0 +1,218 @@
+package com.itas.service;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * StorageBackend objects addressed by SHA-256 digest and shared through a
+ * reference count, one row per digest in a table with the columns digest,
+ * size_bytes, ref_count, created_at and released_at (plus the object key
+ * column, if the table has one). Used for upload blobs (stored_blobs) and
+ * version chunks (version_chunks).
+ *
+ * Counts only change in single statements, so the database serializes them
+ * across nodes and transactions: acquire() inserts the row or bumps it with an
+ * upsert, which never fails the caller's transaction on a duplicate key.
+ * Releasing the last reference leaves the row as a tombstone (ref_count 0,
+ * released_at set). collectReleased() deletes the object and the row once the
+ * grace period has passed, holding a row lock, so an acquire of the same
+ * digest either revives the tombstone or waits for the delete; a count of 1
+ * always re-checks that the object exists and writes it back if needed.
+ * Objects written by a transaction that rolls back are recorded as tombstones
+ * so the collector finds them too.
+ */
+public class RefCountedObjectStore {
+
+    private static final int LOCK_STRIPES = 64;
+
+    /** Writes the content of a new object under the given key. */
+    public interface ObjectWriter {
+        void write(String key) throws IOException;
+    }
+
+    private final String table;
+    private final String keyColumn;
+    private final Function<String, String> keyOf;
+    private final Function<String, List<String>> derivedKeys;
+    private final JdbcTemplate jdbcTemplate;
+    private final StorageBackend storageBackend;
+    private final PlatformTransactionManager transactionManager;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private volatile Boolean postgres;
+
+    /**
+     * @param keyColumn   column the object key is stored in, or null if the key is only derived from the digest
+     * @param keyOf       object key of a digest
+     * @param derivedKeys further objects made from an object (e.g. thumbnails), deleted along with it
+     */
+    public RefCountedObjectStore(String table, String keyColumn, Function<String, String> keyOf,
+                                 Function<String, List<String>> derivedKeys, JdbcTemplate jdbcTemplate,
+                                 StorageBackend storageBackend, PlatformTransactionManager transactionManager) {
+        this.table = table;
+        this.keyColumn = keyColumn;
+        this.keyOf = keyOf;
+        this.derivedKeys = derivedKeys;
+        this.jdbcTemplate = jdbcTemplate;
+        this.storageBackend = storageBackend;
+        this.transactionManager = transactionManager;
+        for (int i = 0; i < LOCK_STRIPES; i++) locks[i] = new Object();
+    }
+
+    public String keyOf(String digest) {
+        return keyOf.apply(digest);
+    }
+
+    /**
+     * Take one reference on the digest, writing the object if it is not stored yet.
+     * Returns true if the object was written.
+     */
+    public boolean acquire(String digest, long size, ObjectWriter writer) throws IOException {
+        String key = keyOf(digest);
+        // Only so a second store of the same content on this node cannot return before the object is written
+        synchronized (lockFor(digest)) {
+            // Count 1: a new row or a revived tombstone, whose object may be gone or never written
+            if (upsert(digest, size, key) != 1 || storageBackend.stat(key) != null) return false;
+            writer.write(key);
+            // If the caller's transaction rolls back, the object stays for the collector to find
+            AfterCommit.onRollback(() -> tombstone(digest, size, key));
+            return true;
+        }
+    }
+
+    /**
+     * Drop one reference. The last one marks the digest released; its object is deleted
+     * by collectReleased() unless it is acquired again within the grace period.
+     */
+    public void release(String digest) {
+        jdbcTemplate.update("UPDATE " + table + " SET ref_count = ref_count - 1, "
+                        + "released_at = CASE WHEN ref_count = 1 THEN ? ELSE NULL END WHERE digest = ? AND ref_count > 0",
+                Timestamp.valueOf(LocalDateTime.now()), digest);
+    }
+
+    /**
+     * Delete the objects released longer than graceMinutes ago, with their rows. Returns how many were deleted.
+     */
+    public int collectReleased(long graceMinutes) {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusMinutes(graceMinutes));
+        List<String> digests = jdbcTemplate.queryForList(
+                "SELECT digest FROM " + table + " WHERE ref_count = 0 AND released_at < ?", String.class, cutoff);
+        TransactionTemplate transaction = newTransaction();
+        int collected = 0;
+        for (String digest : digests) {
+            try {
+                if (Boolean.TRUE.equals(transaction.execute(status -> collect(digest, cutoff)))) collected++;
+            } catch (RuntimeException e) {
+                // Left as a tombstone, retried on the next run
+                System.err.println("Could not delete " + keyOf(digest) + ": " + e.getMessage());
+            }
+        }
+        return collected;
+    }
+
+    /**
+     * Insert the row or bump its count in a single statement and return the new count.
+     * A duplicate-key failure would abort the caller's transaction on PostgreSQL, so
+     * there is no insert-then-retry.
+     */
+    private int upsert(String digest, long size, String key) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object> params = new ArrayList<>(List.of(digest, size));
+        if (keyColumn != null) params.add(key);
+        params.add(now);
+        String keyInsert = keyColumn != null ? ", " + keyColumn : "";
+        if (isPostgres()) {
+            return jdbcTemplate.queryForObject(
+                    "INSERT INTO " + table + " (digest, size_bytes" + keyInsert + ", ref_count, created_at) "
+                            + "VALUES (?, ?" + (keyColumn != null ? ", ?" : "") + ", 1, ?) "
+                            + "ON CONFLICT (digest) DO UPDATE SET ref_count = " + table + ".ref_count + 1, released_at = NULL "
+                            + "RETURNING ref_count",
+                    Integer.class, params.toArray());
+        }
+        return jdbcTemplate.queryForObject(
+                "SELECT ref_count FROM FINAL TABLE (MERGE INTO " + table + " t "
+                        + "USING (SELECT CAST(? AS VARCHAR(64)) AS digest, CAST(? AS BIGINT) AS size_bytes"
+                        + (keyColumn != null ? ", CAST(? AS VARCHAR(255)) AS " + keyColumn : "")
+                        + ", CAST(? AS TIMESTAMP) AS created_at) n ON t.digest = n.digest "
+                        + "WHEN MATCHED THEN UPDATE SET ref_count = t.ref_count + 1, released_at = NULL "
+                        + "WHEN NOT MATCHED THEN INSERT (digest, size_bytes" + keyInsert + ", ref_count, created_at) "
+                        + "VALUES (n.digest, n.size_bytes" + (keyColumn != null ? ", n." + keyColumn : "") + ", 1, n.created_at))",
+                Integer.class, params.toArray());
+    }
+
+    private boolean collect(String digest, Timestamp cutoff) {
+        // The row lock makes a concurrent acquire() of this digest wait until the row is gone
+        List<String> locked = jdbcTemplate.queryForList("SELECT digest FROM " + table
+                + " WHERE digest = ? AND ref_count = 0 AND released_at < ? FOR UPDATE", String.class, digest, cutoff);
+        if (locked.isEmpty()) return false;
+        String key = keyOf(digest);
+        try {
+            storageBackend.delete(key);
+            for (String derived : derivedKeys.apply(key)) storageBackend.delete(derived);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        jdbcTemplate.update("DELETE FROM " + table + " WHERE digest = ?", digest);
+        return true;
+    }
+
+    /**
+     * Record an object written by a rolled-back transaction as released, unless the digest is in use again.
+     */
+    private void tombstone(String digest, long size, String key) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object> params = new ArrayList<>(List.of(digest, size));
+        if (keyColumn != null) params.add(key);
+        params.add(now);
+        params.add(now);
+        String keyInsert = keyColumn != null ? ", " + keyColumn : "";
+        String keyValue = keyColumn != null ? ", ?" : "";
+        try {
+            newTransaction().executeWithoutResult(status -> {
+                if (isPostgres()) {
+                    jdbcTemplate.update("INSERT INTO " + table + " (digest, size_bytes" + keyInsert + ", ref_count, created_at, released_at) "
+                            + "VALUES (?, ?" + keyValue + ", 0, ?, ?) ON CONFLICT (digest) DO NOTHING", params.toArray());
+                } else {
+                    jdbcTemplate.update("MERGE INTO " + table + " t USING (SELECT CAST(? AS VARCHAR(64)) AS digest) n "
+                            + "ON t.digest = n.digest WHEN NOT MATCHED THEN "
+                            + "INSERT (digest, size_bytes" + keyInsert + ", ref_count, created_at, released_at) "
+                            + "VALUES (n.digest, ?" + keyValue + ", 0, ?, ?)", params.toArray());
+                }
+            });
+        } catch (RuntimeException e) {
+            System.err.println("Could not record orphaned object " + key + ": " + e.getMessage());
+        }
+    }
+
+    // Called from after-completion callbacks and the collector, so always in a transaction of its own
+    private TransactionTemplate newTransaction() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transaction;
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            result = product != null && product.toLowerCase(Locale.ROOT).contains("postgres");
+            postgres = result;
+        }
+        return result;
+    }
+
+    private Object lockFor(String digest) {
+        return locks[Math.floorMod(digest.hashCode(), LOCK_STRIPES)];
+    }
+}
@@ -0,0 +1,72 @@
+package com.itas.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind view and download counters for resources.
+ *
+ * Hits only bump in-memory counters; every few seconds the deltas are flushed
+ * as one batch of "view_count = view_count + ?" updates, so a popular file no
+ * longer costs a row lock and a full entity save per request. Only resources
+ * hit since the last flush are held, so ids that match no row (a deleted
+ * resource, a made-up id on PUT /views) are dropped after one flush. Unflushed
+ * deltas are lost only if the JVM dies without running the shutdown flush.
+ */
+@Service
+public class ResourceCounterService {
+
+    private static final String UPDATE_SQL =
+            "UPDATE resources SET view_count = view_count + ?, download_count = download_count + ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ResourcePopularityService resourcePopularityService;
+
+    private final WriteBehindDeltas<Counters> pending =
+            new WriteBehindDeltas<>("Resource counter", Counters::new, Counters::merge);
+
+    public void recordView(Long resourceId) {
+        pending.add(resourceId, counters -> counters.views.increment());
+    }
+
+    public void recordDownload(Long resourceId) {
+        pending.add(resourceId, counters -> counters.downloads.increment());
+        resourcePopularityService.recordDownload(resourceId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.resource-counters.flush-interval-ms:5000}")
+    public void flush() {
+        pending.flush(batch -> {
+            List<Object[]> params = new ArrayList<>();
+            batch.forEach((id, counters) -> params.add(new Object[] { counters.views.sum(), counters.downloads.sum(), id }));
+            // Rows for deleted resources simply update nothing
+            jdbcTemplate.batchUpdate(UPDATE_SQL, params);
+        });
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private static class Counters {
+        final LongAdder views = new LongAdder();
+        final LongAdder downloads = new LongAdder();
+
+        Counters merge(Counters failed) {
+            views.add(failed.views.sum());
+            downloads.add(failed.downloads.sum());
+            return this;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.itas.service;
+
+import com.itas.model.Resource;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener that keeps ResourceFacetService in step with resource saves and deletes.
+ */
+@Component
+public class ResourceFacetListener {
+
+    @Autowired
+    @Lazy
+    private ResourceFacetService resourceFacetService;
+
+    @PostPersist
+    @PostUpdate
+    public void saved(Resource resource) {
+        resourceFacetService.saved(resource);
+    }
+
+    @PostRemove
+    public void deleted(Resource resource) {
+        resourceFacetService.deleted(resource);
+    }
+}
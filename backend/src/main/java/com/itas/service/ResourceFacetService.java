@@ -0,0 +1,187 @@
+package com.itas.service;
+
+import com.itas.model.Resource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * In-memory facet counts for the resource library (category, resource type, audience).
+ *
+ * Every non-archived resource contributes one (category, type, audience) cell
+ * to a small count cube, built once at startup from a single scan and then
+ * kept current by ResourceFacetListener after each committed insert, update
+ * or delete (archiving deletes the resource). Facet requests only add up the
+ * cube, never touching the table. Changes that commit while the startup scan
+ * is running are replayed over its result so they are not lost. Counts for
+ * each facet apply the filters on the other facets but not its own, like a
+ * post-filter aggregation, so the UI can show how many results every
+ * alternative choice would give.
+ *
+ * Until the first scan has succeeded (or if it failed), facet requests are
+ * answered with a GROUP BY over the table instead, so they never come back empty.
+ *
+ * Like the search index, the cube only follows writes made on this node;
+ * other nodes' changes are picked up when the cube is rebuilt on restart.
+ */
+@Service
+public class ResourceFacetService {
+
+    public static final String CATEGORY = "category";
+    public static final String RESOURCE_TYPE = "resourceType";
+    public static final String AUDIENCE = "audience";
+
+    private record Cell(String category, String resourceType, String audience) {}
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, Cell> cellsById = new HashMap<>();
+    private final Map<Cell, Integer> counts = new HashMap<>();
+
+    // Changes committed while a rebuild scan is running; replayed over the scan result
+    private List<Runnable> duringRebuild;
+
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            duringRebuild = new ArrayList<>();
+        }
+        Map<Long, Cell> scanned = new HashMap<>();
+        try {
+            jdbcTemplate.query("SELECT id, category, resource_type, audience FROM resources "
+                            + "WHERE archived IS NULL OR archived = FALSE",
+                    rs -> {
+                        scanned.put(rs.getLong("id"), new Cell(rs.getString("category"),
+                                rs.getString("resource_type"), rs.getString("audience")));
+                    });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                duringRebuild = null;
+            }
+            // Facet requests keep using the GROUP BY fallback
+            System.err.println("Could not build resource facets: " + e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            cellsById.clear();
+            counts.clear();
+            scanned.forEach(this::add);
+            // The scan may predate any of these; each change is idempotent, so replaying is safe
+            duringRebuild.forEach(Runnable::run);
+            duringRebuild = null;
+            ready = true;
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Called by ResourceFacetListener after an insert or update.
+     */
+    public void saved(Resource resource) {
+        Long id = resource.getId();
+        Cell cell = new Cell(resource.getCategory(), resource.getResourceType(), resource.getAudience());
+        boolean archived = Boolean.TRUE.equals(resource.getArchived());
+        apply(() -> {
+            remove(id);
+            if (!archived) add(id, cell);
+        });
+    }
+
+    /**
+     * Called by ResourceFacetListener after a delete.
+     */
+    public void deleted(Resource resource) {
+        Long id = resource.getId();
+        apply(() -> remove(id));
+    }
+
+    private void apply(Runnable change) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                change.run();
+                if (duringRebuild != null) duringRebuild.add(change);
+            }
+        });
+    }
+
+    /** Distinct values of one facet, sorted. */
+    public List<String> values(String facet) {
+        return new ArrayList<>(facetCounts(null, null, null).get(facet).keySet());
+    }
+
+    /**
+     * Counts per value for every facet. Each facet is filtered by the other two
+     * selections (null = no filter), so its own selection does not hide the alternatives.
+     */
+    public Map<String, Map<String, Integer>> facetCounts(String category, String resourceType, String audience) {
+        if (!ready) return facetCounts(scanCounts(), category, resourceType, audience);
+        synchronized (this) {
+            return facetCounts(counts, category, resourceType, audience);
+        }
+    }
+
+    private static Map<String, Map<String, Integer>> facetCounts(Map<Cell, Integer> cube, String category,
+                                                                 String resourceType, String audience) {
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        facets.put(CATEGORY, countBy(cube, Cell::category,
+                c -> matches(resourceType, c.resourceType) && matches(audience, c.audience)));
+        facets.put(RESOURCE_TYPE, countBy(cube, Cell::resourceType,
+                c -> matches(category, c.category) && matches(audience, c.audience)));
+        facets.put(AUDIENCE, countBy(cube, Cell::audience,
+                c -> matches(category, c.category) && matches(resourceType, c.resourceType)));
+        return facets;
+    }
+
+    /** The count cube straight from the table, used until the in-memory one is built. */
+    private Map<Cell, Integer> scanCounts() {
+        Map<Cell, Integer> cube = new HashMap<>();
+        jdbcTemplate.query("SELECT category, resource_type, audience, COUNT(*) AS n FROM resources "
+                        + "WHERE archived IS NULL OR archived = FALSE GROUP BY category, resource_type, audience",
+                rs -> {
+                    cube.put(new Cell(rs.getString("category"), rs.getString("resource_type"),
+                            rs.getString("audience")), rs.getInt("n"));
+                });
+        return cube;
+    }
+
+    private static Map<String, Integer> countBy(Map<Cell, Integer> cube, Function<Cell, String> facet,
+                                                Function<Cell, Boolean> filter) {
+        Map<String, Integer> result = new TreeMap<>();
+        for (Map.Entry<Cell, Integer> entry : cube.entrySet()) {
+            String value = facet.apply(entry.getKey());
+            if (value == null || value.isEmpty() || !filter.apply(entry.getKey())) continue;
+            result.merge(value, entry.getValue(), Integer::sum);
+        }
+        return result;
+    }
+
+    private static boolean matches(String selected, String value) {
+        return selected == null || selected.isBlank() || selected.equals(value);
+    }
+
+    private void add(Long id, Cell cell) {
+        cellsById.put(id, cell);
+        counts.merge(cell, 1, Integer::sum);
+    }
+
+    private void remove(Long id) {
+        Cell old = cellsById.remove(id);
+        if (old != null) counts.computeIfPresent(old, (cell, n) -> n > 1 ? n - 1 : null);
+    }
+}
@@ -0,0 +1,91 @@
+package com.itas.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Popular resources by downloads for the "today", "week" and "all" windows.
+ *
+ * "all" is read from download_count, walking idx_resources_popularity, so it
+ * is exact up to the last counter flush and the same on every node. Every
+ * download recorded by ResourceCounterService also feeds two DecayingTopK
+ * tables for "today" and "week", which decay exponentially (configurable
+ * half-lives), so documents trending during a filing season rise within hours
+ * and sink again afterwards. The decayed windows start empty after a restart;
+ * until they fill up, their lists are topped up from the all-time ranking.
+ *
+ * Known limitation with several backend nodes: each node ranks only the
+ * downloads it served itself, so the decayed windows differ between nodes
+ * until a restart reseeds them.
+ */
+@Service
+public class ResourcePopularityService {
+
+    public static final String TODAY = "today";
+    public static final String WEEK = "week";
+    public static final String ALL = "all";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final DecayingTopK today;
+    private final DecayingTopK week;
+
+    public ResourcePopularityService(@Value("${app.popularity.capacity:200}") int capacity,
+                                     @Value("${app.popularity.today-half-life-minutes:360}") long todayHalfLife,
+                                     @Value("${app.popularity.week-half-life-minutes:2880}") long weekHalfLife) {
+        long now = System.currentTimeMillis();
+        this.today = new DecayingTopK(capacity, TimeUnit.MINUTES.toMillis(todayHalfLife), now);
+        this.week = new DecayingTopK(capacity, TimeUnit.MINUTES.toMillis(weekHalfLife), now);
+    }
+
+    public void recordDownload(Long resourceId) {
+        long now = System.currentTimeMillis();
+        today.add(resourceId, 1, now);
+        week.add(resourceId, 1, now);
+    }
+
+    /**
+     * Most downloaded resource ids for the window, best first.
+     */
+    public List<Long> top(String window, int limit) {
+        DecayingTopK table = switch (window == null ? ALL : window.toLowerCase()) {
+            case TODAY -> today;
+            case WEEK -> week;
+            case ALL -> null;
+            default -> throw new IllegalArgumentException("Unknown popularity window: " + window);
+        };
+        if (table == null) return allTime(limit);
+
+        Set<Long> ids = new LinkedHashSet<>(table.top(limit));
+        if (ids.size() < limit) {
+            for (Long id : allTime(limit)) {
+                if (ids.size() >= limit) break;
+                ids.add(id);
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * Stop ranking a resource that no longer exists or was archived.
+     */
+    public void forget(Long resourceId) {
+        today.remove(resourceId);
+        week.remove(resourceId);
+    }
+
+    private List<Long> allTime(int limit) {
+        return jdbcTemplate.queryForList("SELECT id FROM resources WHERE download_count > 0 "
+                        + "AND (archived IS NULL OR archived = FALSE) ORDER BY download_count DESC, id DESC LIMIT ?",
+                Long.class, limit);
+    }
+}
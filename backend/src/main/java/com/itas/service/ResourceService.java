@@ -1,22 +1,25 @@
 package com.itas.service;
 
+import com.itas.dto.ResourcePage;
 import com.itas.model.Resource;
+import com.itas.model.ResourceVersion;
+import com.itas.model.StoredBlob;
 import com.itas.model.User;
 import com.itas.repository.ResourceRepository;
+import com.itas.repository.ResourceSpecifications;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,65 +28,55 @@ public class ResourceService {
     @Autowired
     private ResourceRepository resourceRepository;
     
-    @Value("${app.file.upload-dir:./uploads}")
-    private String uploadDir;
+    @Autowired
+    private ResourceCounterService resourceCounterService;
+    
+    @Autowired
+    private FileStorageService fileStorageService;
+    
+    @Autowired
+    private HotFileCache hotFileCache;
+    
+    @Autowired
+    private ThumbnailService thumbnailService;
+    
+    @Autowired
+    private ResourceFacetService resourceFacetService;
+    
+    @Autowired
+    private ResourcePopularityService resourcePopularityService;
+    
+    @Autowired
+    private VersionStorageService versionStorageService;
+    
+    @Autowired
+    private BlobStorageService blobStorageService;
     
     public List<Resource> getAllResources(String category, String resourceType, String audience) {
-        List<Resource> resources = resourceRepository.findAll();
-        
-        if (category != null) {
-            resources = resources.stream()
-                    .filter(r -> category.equals(r.getCategory()))
-                    .collect(Collectors.toList());
-        }
-        
-        if (resourceType != null) {
-            resources = resources.stream()
-                    .filter(r -> resourceType.equals(r.getResourceType()))
-                    .collect(Collectors.toList());
-        }
-        
-        if (audience != null) {
-            resources = resources.stream()
-                    .filter(r -> audience.equals(r.getAudience()))
-                    .collect(Collectors.toList());
-        }
-        
-        return resources;
+        return resourceRepository.findAll(ResourceSpecifications.filtered(category, resourceType, audience));
+    }
+    
+    /**
+     * One page of resource summaries, filtered and ordered in the database.
+     */
+    @Transactional(readOnly = true)
+    public ResourcePage listResources(String category, String resourceType, String audience,
+                                      String sort, String cursor, int limit) {
+        return resourceRepository.findSummaries(ResourceSpecifications.filtered(category, resourceType, audience),
+                sort, cursor, Math.min(Math.max(1, limit), 100));
     }
     
     public Resource getResourceById(Long id) {
         return resourceRepository.findById(id).orElse(null);
     }
     
-    public List<Resource> searchResources(String query, String category, String resourceType, String audience) {
-        List<Resource> resources;
-        
-        if (query != null && !query.isEmpty()) {
-            resources = resourceRepository.searchByKeyword(query);
-        } else {
-            resources = resourceRepository.findAll();
-        }
-        
-        if (category != null) {
-            resources = resources.stream()
-                    .filter(r -> category.equals(r.getCategory()))
-                    .collect(Collectors.toList());
-        }
-        
-        if (resourceType != null) {
-            resources = resources.stream()
-                    .filter(r -> resourceType.equals(r.getResourceType()))
-                    .collect(Collectors.toList());
-        }
-        
-        if (audience != null) {
-            resources = resources.stream()
-                    .filter(r -> audience.equals(r.getAudience()))
-                    .collect(Collectors.toList());
-        }
-        
-        return resources;
+    /**
+     * Ranked full-text search; filters and paging are applied in the database.
+     */
+    public Page<Resource> searchResources(String query, String category, String resourceType, String audience,
+                                          int page, int size) {
+        return resourceRepository.search(query, category, resourceType, audience,
+                PageRequest.of(Math.max(0, page), Math.min(Math.max(1, size), 100)));
     }
     
     @Transactional
@@ -91,7 +84,9 @@ public class ResourceService {
         resource.setUploadedAt(LocalDateTime.now());
         resource.setViewCount(0);
         resource.setDownloadCount(0);
-        return resourceRepository.save(resource);
+        Resource saved = resourceRepository.save(resource);
+        thumbnailService.generateAfterCommit(saved.getId(), saved.getFilePath(), saved.getMimeType());
+        return saved;
     }
     
     @Transactional
@@ -110,43 +105,41 @@ public class ResourceService {
         return resourceRepository.save(resource);
     }
     
+    /**
+     * Create a resource for a file already taken into the blob store (see StreamingUploadService).
+     */
     @Transactional
-    public Resource uploadResource(MultipartFile file, Resource resource, User uploader) throws IOException {
-        // Create upload directory if it doesn't exist
-        Path uploadPath = Paths.get(uploadDir);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-        }
-        
-        // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
-        String extension = originalFilename != null && originalFilename.contains(".") 
-                ? originalFilename.substring(originalFilename.lastIndexOf(".")) 
-                : "";
-        String uniqueFilename = UUID.randomUUID().toString() + extension;
-        
-        // Save file
-        Path filePath = uploadPath.resolve(uniqueFilename);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-        
+    public Resource uploadResource(StoredBlob blob, String fileName, String mimeType, Resource resource, User uploader) {
         // Set resource properties
-        resource.setFileName(originalFilename);
-        resource.setFilePath(filePath.toString());
-        resource.setFileSize(file.getSize());
-        resource.setMimeType(file.getContentType());
+        resource.setFileName(fileName);
+        resource.setFilePath(blob.getStoragePath());
+        resource.setFileSize(blob.getSizeBytes());
+        resource.setFileHash(blob.getDigest());
+        resource.setMimeType(mimeType);
         resource.setUploadedBy(uploader);
         resource.setUploadedAt(LocalDateTime.now());
         resource.setViewCount(0);
         resource.setDownloadCount(0);
         
-        return resourceRepository.save(resource);
+        Resource saved = resourceRepository.save(resource);
+        thumbnailService.generateAfterCommit(saved.getId(), saved.getFilePath(), saved.getMimeType());
+        return saved;
     }
     
+    /**
+     * Update metadata and, when blob is not null, replace the file with it.
+     */
     @Transactional
-    public Resource updateResource(Long id, MultipartFile file, Resource resourceDetails, User updater) throws IOException {
+    public Resource updateResource(Long id, StoredBlob blob, String fileName, String mimeType,
+                                   Resource resourceDetails, User updater) {
         Resource resource = resourceRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Resource not found"));
         
+        // Keep the outgoing file and metadata as a version before anything changes
+        if (blob != null && resource.getFilePath() != null) {
+            versionStorageService.snapshot(resource, updater, "Replaced by " + fileName);
+        }
+        
         // Update basic properties
         resource.setTitle(resourceDetails.getTitle());
         resource.setDescription(resourceDetails.getDescription());
@@ -156,113 +149,148 @@ public class ResourceService {
         resource.setUpdatedAt(LocalDateTime.now());
         
         // Update file if provided
-        if (file != null && !file.isEmpty()) {
-            // Delete old file
-            if (resource.getFilePath() != null) {
-                try {
-                    Files.deleteIfExists(Paths.get(resource.getFilePath()));
-                } catch (IOException e) {
-                    // Log error but continue
-                }
-            }
-            
-            // Upload new file
-            Path uploadPath = Paths.get(uploadDir);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-            
-            String originalFilename = file.getOriginalFilename();
-            String extension = originalFilename != null && originalFilename.contains(".") 
-                    ? originalFilename.substring(originalFilename.lastIndexOf(".")) 
-                    : "";
-            String uniqueFilename = UUID.randomUUID().toString() + extension;
-            
-            Path filePath = uploadPath.resolve(uniqueFilename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-            
-            resource.setFileName(originalFilename);
-            resource.setFilePath(filePath.toString());
-            resource.setFileSize(file.getSize());
-            resource.setMimeType(file.getContentType());
+        if (blob != null) {
+            replaceFile(resource, blob, fileName, mimeType);
         }
         
         return resourceRepository.save(resource);
     }
     
+    /**
+     * Make an earlier version current again. The current file is versioned first, so a rollback can itself be undone.
+     */
     @Transactional
-    public void deleteResource(Long id) {
+    public Resource rollbackToVersion(Long id, Integer versionNumber, User updater) {
         Resource resource = resourceRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Resource not found"));
         
-        // Delete file
+        VersionStorageService.VersionContent target = versionStorageService.open(id, versionNumber);
+        StoredBlob blob;
+        try (InputStream in = target.content()) {
+            blob = blobStorageService.store(in);
+        } catch (IOException | UncheckedIOException e) {
+            throw new RuntimeException("Could not rebuild version " + versionNumber + ": " + e.getMessage(), e);
+        }
+        ResourceVersion version = target.version();
+        if (version.getFileHash() != null && !version.getFileHash().equals(blob.getDigest())) {
+            blobStorageService.release(blob.getDigest());
+            throw new RuntimeException("Rebuilt version " + versionNumber + " does not match its checksum");
+        }
+        
         if (resource.getFilePath() != null) {
-            try {
-                Files.deleteIfExists(Paths.get(resource.getFilePath()));
-            } catch (IOException e) {
-                // Log error but continue
-            }
+            versionStorageService.snapshot(resource, updater, "Rolled back to version " + versionNumber);
         }
+        resource.setTitle(version.getTitle());
+        resource.setDescription(version.getDescription());
+        resource.setUpdatedAt(LocalDateTime.now());
+        replaceFile(resource, blob, version.getFileName(), version.getMimeType());
         
-        resourceRepository.delete(resource);
+        return resourceRepository.save(resource);
+    }
+    
+    public List<ResourceVersion> getVersions(Long id) {
+        return versionStorageService.getVersions(id);
+    }
+    
+    public VersionStorageService.VersionContent openVersion(Long id, Integer versionNumber) {
+        return versionStorageService.open(id, versionNumber);
     }
     
     @Transactional
-    public void incrementViewCount(Long id) {
+    public void deleteResource(Long id) {
         Resource resource = resourceRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Resource not found"));
-        resource.setViewCount(resource.getViewCount() + 1);
-        resourceRepository.save(resource);
+        
+        // Delete file (or drop this resource's reference to a shared blob)
+        if (resource.getFilePath() != null) {
+            releaseFile(resource.getFilePath());
+        }
+        versionStorageService.deleteVersions(id);
+        
+        resourceRepository.delete(resource);
+    }
+    
+    // Store the new file before releasing the old one, so re-uploading identical content keeps the blob
+    private void replaceFile(Resource resource, StoredBlob blob, String fileName, String mimeType) {
+        String oldFilePath = resource.getFilePath();
+        
+        resource.setFileName(fileName);
+        resource.setFilePath(blob.getStoragePath());
+        resource.setFileSize(blob.getSizeBytes());
+        resource.setFileHash(blob.getDigest());
+        resource.setMimeType(mimeType);
+        resource.setVersion((resource.getVersion() != null ? resource.getVersion() : 1) + 1);
+        
+        if (oldFilePath != null) {
+            releaseFile(oldFilePath);
+        }
+        thumbnailService.fileReplaced(resource.getId(), resource.getFilePath(), resource.getMimeType());
+    }
+    
+    private void releaseFile(String filePath) {
+        if (filePath != null) hotFileCache.invalidate(fileStorageService.locate(filePath));
+        try {
+            fileStorageService.deleteFile(filePath);
+        } catch (RuntimeException e) {
+            // Log error but continue
+            System.err.println("Could not delete file " + filePath + ": " + e.getMessage());
+        }
+    }
+    
+    // Buffered in memory and flushed in batches by ResourceCounterService
+    public void incrementViewCount(Long id) {
+        resourceCounterService.recordView(id);
     }
     
-    @Transactional
     public void incrementDownloadCount(Long id) {
-        Resource resource = resourceRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Resource not found"));
-        resource.setDownloadCount(resource.getDownloadCount() + 1);
-        resourceRepository.save(resource);
+        resourceCounterService.recordDownload(id);
     }
     
-    public List<Resource> getPopularResources(int limit) {
-        return resourceRepository.findAll().stream()
-                .sorted((r1, r2) -> Integer.compare(r2.getDownloadCount(), r1.getDownloadCount()))
-                .limit(limit)
-                .collect(Collectors.toList());
+    /**
+     * Most downloaded resources for the window ("today", "week" or "all"), ranked by
+     * ResourcePopularityService; only the returned rows are loaded.
+     */
+    public List<Resource> getPopularResources(String window, int limit) {
+        List<Long> ids = resourcePopularityService.top(window, Math.min(Math.max(1, limit), 50));
+        Map<Long, Resource> byId = resourceRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Resource::getId, r -> r));
+        List<Resource> popular = new ArrayList<>();
+        for (Long id : ids) {
+            Resource resource = byId.get(id);
+            if (resource == null || Boolean.TRUE.equals(resource.getArchived())) {
+                resourcePopularityService.forget(id);
+            } else {
+                popular.add(resource);
+            }
+        }
+        return popular;
     }
     
     /**
-     * Get all unique categories from existing resources
+     * Get all unique categories from existing resources (served from the in-memory facet counts)
      */
     public List<String> getAllCategories() {
-        return resourceRepository.findAll().stream()
-                .map(Resource::getCategory)
-                .filter(category -> category != null && !category.isEmpty())
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
+        return resourceFacetService.values(ResourceFacetService.CATEGORY);
     }
     
     /**
      * Get all unique audiences from existing resources
      */
     public List<String> getAllAudiences() {
-        return resourceRepository.findAll().stream()
-                .map(Resource::getAudience)
-                .filter(audience -> audience != null && !audience.isEmpty())
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
+        return resourceFacetService.values(ResourceFacetService.AUDIENCE);
     }
     
     /**
      * Get all unique resource types from existing resources
      */
     public List<String> getAllResourceTypes() {
-        return resourceRepository.findAll().stream()
-                .map(Resource::getResourceType)
-                .filter(type -> type != null && !type.isEmpty())
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
+        return resourceFacetService.values(ResourceFacetService.RESOURCE_TYPE);
+    }
+    
+    /**
+     * Resource counts per category, type and audience for the given selection.
+     */
+    public Map<String, Map<String, Integer>> getFacetCounts(String category, String resourceType, String audience) {
+        return resourceFacetService.facetCounts(category, resourceType, audience);
     }
 }
@@ -0,0 +1,390 @@
+package com.itas.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Objects in an S3-compatible bucket (AWS S3, MinIO, Ceph RGW), so every backend
+ * node sees the same uploads.
+ *
+ * Talks to the REST API directly with java.net.http and AWS Signature V4
+ * (payloads are sent unsigned, as the SDKs do over TLS). Files larger than
+ * one part go up as a multipart upload whose parts are sent in parallel on a
+ * small transfer pool, each streamed from its slice of the file; a failed
+ * upload is aborted so no orphaned parts are billed. Reads are ranged GETs
+ * streamed straight through to the caller.
+ */
+@Service
+@ConditionalOnProperty(name = "app.storage.backend", havingValue = "s3")
+public class S3StorageBackend implements StorageBackend {
+
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final DateTimeFormatter AMZ_DATE =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final Pattern UPLOAD_ID = Pattern.compile("<UploadId>([^<]+)</UploadId>");
+    // S3's lower limit for every part but the last
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final String baseUrl;
+    private final String pathPrefix;
+    private final String region;
+    private final String accessKey;
+    private final String secretKey;
+    private final long partSize;
+    private final ThreadPoolExecutor transfers;
+
+    public S3StorageBackend(@Value("${app.storage.s3.endpoint}") String endpoint,
+                            @Value("${app.storage.s3.region:us-east-1}") String region,
+                            @Value("${app.storage.s3.bucket}") String bucket,
+                            @Value("${app.storage.s3.access-key}") String accessKey,
+                            @Value("${app.storage.s3.secret-key}") String secretKey,
+                            @Value("${app.storage.s3.path-style:true}") boolean pathStyle,
+                            @Value("${app.storage.s3.part-size-bytes:8388608}") long partSize,
+                            @Value("${app.storage.s3.transfer-threads:4}") int threads) {
+        URI uri = URI.create(endpoint);
+        String authority = uri.getRawAuthority();
+        // Path style (http://minio:9000/bucket/key) suits MinIO; virtual-hosted style suits AWS
+        this.baseUrl = uri.getScheme() + "://" + (pathStyle ? authority : bucket + "." + authority);
+        this.pathPrefix = pathStyle ? "/" + encode(bucket, false) : "";
+        this.region = region;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.partSize = Math.max(MIN_PART_SIZE, partSize);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.transfers = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "storage-transfer-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.transfers.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        transfers.shutdownNow();
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        long size = Files.size(source);
+        if (size <= partSize) {
+            expectSuccess(send(request("PUT", key, Map.of())
+                    .PUT(HttpRequest.BodyPublishers.ofFile(source)).build()), "PUT " + key);
+            return;
+        }
+
+        String uploadId = createMultipartUpload(key);
+        List<Future<String>> parts = new ArrayList<>();
+        try {
+            for (long offset = 0; offset < size; offset += partSize) {
+                int partNumber = parts.size() + 1;
+                long start = offset;
+                long length = Math.min(partSize, size - offset);
+                parts.add(transfers.submit(() -> uploadPart(key, uploadId, partNumber, source, start, length)));
+            }
+            List<String> etags = new ArrayList<>();
+            for (Future<String> part : parts) {
+                etags.add(await(part));
+            }
+            completeMultipartUpload(key, uploadId, etags);
+        } catch (IOException | RuntimeException e) {
+            for (Future<String> part : parts) part.cancel(true);
+            abortMultipartUpload(key, uploadId);
+            throw e;
+        }
+    }
+
+    @Override
+    public void put(String key, InputStream content, long length) throws IOException {
+        if (length >= 0 && length <= partSize) {
+            expectSuccess(send(request("PUT", key, Map.of())
+                    .PUT(HttpRequest.BodyPublishers.fromPublisher(
+                            HttpRequest.BodyPublishers.ofInputStream(() -> content), length))
+                    .build()), "PUT " + key);
+            return;
+        }
+        // Large or unknown length: spool so the parts can be read (and retried) independently
+        Path temp = Files.createTempFile("storage-put-", ".tmp");
+        try {
+            Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+            put(key, temp);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        if (length == 0) return InputStream.nullInputStream();
+        HttpRequest.Builder builder = request("GET", key, Map.of()).GET();
+        if (offset > 0 || length > 0) {
+            builder.header("Range", "bytes=" + offset + "-" + (length > 0 ? String.valueOf(offset + length - 1) : ""));
+        }
+        HttpResponse<InputStream> response = sendForStream(builder.build());
+        int status = response.statusCode();
+        if (status == 200 || status == 206) {
+            return response.body();
+        }
+        String error;
+        try (InputStream body = response.body()) {
+            error = new String(body.readNBytes(1024), StandardCharsets.UTF_8);
+        }
+        if (status == 404) throw new NoSuchFileException(key);
+        throw new IOException("GET " + key + " failed: HTTP " + status + " " + error);
+    }
+
+    @Override
+    public ObjectInfo stat(String key) throws IOException {
+        HttpResponse<String> response = send(request("HEAD", key, Map.of())
+                .method("HEAD", HttpRequest.BodyPublishers.noBody()).build());
+        if (response.statusCode() == 404) return null;
+        expectSuccess(response, "HEAD " + key);
+
+        long size = response.headers().firstValueAsLong("Content-Length").orElse(0);
+        long lastModified = 0;
+        String header = response.headers().firstValue("Last-Modified").orElse(null);
+        if (header != null) {
+            try {
+                lastModified = ZonedDateTime.parse(header, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            } catch (DateTimeParseException e) {
+                // Keep 0; only used for Last-Modified / If-Modified-Since
+            }
+        }
+        return new ObjectInfo(size, lastModified);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        HttpResponse<String> response = send(request("DELETE", key, Map.of()).DELETE().build());
+        if (response.statusCode() != 404) expectSuccess(response, "DELETE " + key);
+    }
+
+    @Override
+    public Path localPath(String key) {
+        return null;
+    }
+
+    private String createMultipartUpload(String key) throws IOException {
+        HttpResponse<String> response = send(request("POST", key, Map.of("uploads", ""))
+                .POST(HttpRequest.BodyPublishers.noBody()).build());
+        expectSuccess(response, "create multipart upload " + key);
+        Matcher m = UPLOAD_ID.matcher(response.body());
+        if (!m.find()) throw new IOException("No UploadId in response for " + key);
+        return m.group(1);
+    }
+
+    private String uploadPart(String key, String uploadId, int partNumber, Path source, long offset, long length)
+            throws IOException {
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.fromPublisher(
+                HttpRequest.BodyPublishers.ofInputStream(() -> {
+                    try {
+                        InputStream in = Files.newInputStream(source);
+                        in.skipNBytes(offset);
+                        return new LimitedInputStream(in, length);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }), length);
+        HttpResponse<String> response = send(request("PUT", key,
+                Map.of("partNumber", String.valueOf(partNumber), "uploadId", uploadId)).PUT(body).build());
+        expectSuccess(response, "upload part " + partNumber + " of " + key);
+        return response.headers().firstValue("ETag")
+                .orElseThrow(() -> new IOException("No ETag for part " + partNumber + " of " + key));
+    }
+
+    private void completeMultipartUpload(String key, String uploadId, List<String> etags) throws IOException {
+        StringBuilder xml = new StringBuilder("<CompleteMultipartUpload>");
+        for (int i = 0; i < etags.size(); i++) {
+            xml.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>")
+                    .append(etags.get(i).replace("\"", "&quot;")).append("</ETag></Part>");
+        }
+        xml.append("</CompleteMultipartUpload>");
+        HttpResponse<String> response = send(request("POST", key, Map.of("uploadId", uploadId))
+                .POST(HttpRequest.BodyPublishers.ofString(xml.toString())).build());
+        expectSuccess(response, "complete multipart upload " + key);
+        // S3 may report a failure in the body of a 200 response
+        if (response.body() != null && response.body().contains("<Error>")) {
+            throw new IOException("Complete multipart upload of " + key + " failed: " + response.body());
+        }
+    }
+
+    private void abortMultipartUpload(String key, String uploadId) {
+        try {
+            send(request("DELETE", key, Map.of("uploadId", uploadId)).DELETE().build());
+        } catch (IOException e) {
+            System.err.println("Could not abort multipart upload of " + key + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * A request for the object with its Signature V4 headers; the caller sets method and body.
+     */
+    private HttpRequest.Builder request(String method, String key, Map<String, String> query) {
+        String path = pathPrefix + "/" + encode(key, true);
+        SortedMap<String, String> sortedQuery = new TreeMap<>();
+        query.forEach((name, value) -> sortedQuery.put(encode(name, false), encode(value, false)));
+        StringBuilder canonicalQuery = new StringBuilder();
+        sortedQuery.forEach((name, value) -> {
+            if (canonicalQuery.length() > 0) canonicalQuery.append('&');
+            canonicalQuery.append(name).append('=').append(value);
+        });
+
+        URI uri = URI.create(baseUrl + path + (canonicalQuery.length() > 0 ? "?" + canonicalQuery : ""));
+        String amzDate = AMZ_DATE.format(Instant.now());
+        SortedMap<String, String> headers = new TreeMap<>();
+        headers.put("host", uri.getRawAuthority());
+        headers.put("x-amz-content-sha256", UNSIGNED_PAYLOAD);
+        headers.put("x-amz-date", amzDate);
+
+        return HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMinutes(5))
+                .header("x-amz-content-sha256", UNSIGNED_PAYLOAD)
+                .header("x-amz-date", amzDate)
+                .header("Authorization", authorization(method, path, canonicalQuery.toString(), headers,
+                        UNSIGNED_PAYLOAD, amzDate, region, accessKey, secretKey));
+    }
+
+    /**
+     * AWS Signature Version 4 Authorization header for an S3 request. Header names must be
+     * lower case; they are all signed.
+     */
+    static String authorization(String method, String canonicalUri, String canonicalQuery,
+                                SortedMap<String, String> headers, String payloadHash, String amzDate,
+                                String region, String accessKey, String secretKey) {
+        StringBuilder canonicalHeaders = new StringBuilder();
+        headers.forEach((name, value) -> canonicalHeaders.append(name).append(':').append(value.trim()).append('\n'));
+        String signedHeaders = String.join(";", headers.keySet());
+        String canonicalRequest = method + "\n" + canonicalUri + "\n" + canonicalQuery + "\n"
+                + canonicalHeaders + "\n" + signedHeaders + "\n" + payloadHash;
+
+        String date = amzDate.substring(0, 8);
+        String scope = date + "/" + region + "/s3/aws4_request";
+        String stringToSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + scope + "\n"
+                + HexFormat.of().formatHex(sha256(canonicalRequest));
+
+        byte[] signingKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        signingKey = hmac(signingKey, region);
+        signingKey = hmac(signingKey, "s3");
+        signingKey = hmac(signingKey, "aws4_request");
+        String signature = HexFormat.of().formatHex(hmac(signingKey, stringToSign));
+
+        return "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + scope
+                + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature;
+    }
+
+    /** URI-encode as SigV4 requires: everything but unreserved characters (and '/' in paths). */
+    static String encode(String value, boolean path) {
+        StringBuilder encoded = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (path && c == '/')) {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(String.format("%02X", b & 0xff));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException {
+        try {
+            return http.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during " + request.method() + " " + request.uri());
+        }
+    }
+
+    private HttpResponse<InputStream> sendForStream(HttpRequest request) throws IOException {
+        try {
+            return http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during " + request.method() + " " + request.uri());
+        }
+    }
+
+    private static void expectSuccess(HttpResponse<String> response, String action) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException(action + " failed: HTTP " + response.statusCode() + " " + response.body());
+        }
+    }
+
+    private static String await(Future<String> part) throws IOException {
+        try {
+            return part.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while uploading parts");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof UncheckedIOException io) throw io.getCause();
+            throw new IOException("Part upload failed", cause);
+        }
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String value) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.itas.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index with BM25 ranking.
+ *
+ * Documents are identified by (type, id), e.g. ("RESOURCE", 42). Text is
+ * NFKC-normalized, lower-cased and split on anything that is not a letter,
+ * mark or digit, which separates Ethiopic words on the Ethiopic wordspace and
+ * full stop as well as on spaces. Amharic letters that are pronounced alike
+ * (ሐ/ኀ → ሀ, ሠ → ሰ, ዐ → አ, ፀ → ጸ) are folded together, as users spell them
+ * either way, and one common Amharic prefix/suffix is stripped as an extra
+ * term. Title terms count double. The last query term also matches as a
+ * prefix, so results appear while the user is still typing.
+ *
+ * Thread-safe: searches share a read lock, updates take the write lock.
+ */
+public class SearchIndex {
+
+    private static final Pattern TOKEN = Pattern.compile("[\\p{L}\\p{M}\\p{N}]+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it",
+            "of", "on", "or", "the", "to", "with");
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_BOOST = 2;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+
+    /** A hit with enough to render a result list without touching the database. */
+    public record Hit(String type, Long id, String title, String snippet, double score) {}
+
+    private record Doc(String type, Long id, String title, String snippet, Map<String, Integer> terms, int length) {}
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+    private final Map<String, Integer> docIds = new HashMap<>();
+    private final Map<Integer, Doc> docs = new HashMap<>();
+    private int nextDocId;
+    private long totalLength;
+
+    /**
+     * Add or replace a document.
+     */
+    public void put(String type, Long id, String title, String snippet, String... bodyParts) {
+        Map<String, Integer> terms = new HashMap<>();
+        int length = 0;
+        for (String token : tokenize(title)) {
+            terms.merge(token, TITLE_BOOST, Integer::sum);
+            length += TITLE_BOOST;
+        }
+        for (String part : bodyParts) {
+            for (String token : tokenize(part)) {
+                terms.merge(token, 1, Integer::sum);
+                length++;
+            }
+        }
+        Doc doc = new Doc(type, id, title, abbreviate(snippet), terms, length);
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(type, id);
+            int docId = nextDocId++;
+            docIds.put(key(type, id), docId);
+            docs.put(docId, doc);
+            totalLength += length;
+            for (Map.Entry<String, Integer> term : terms.entrySet()) {
+                postings.computeIfAbsent(term.getKey(), t -> new HashMap<>()).put(docId, term.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String type, Long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(type, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Top hits for the query, best first; type may be null for all document types.
+     */
+    public List<Hit> search(String query, String type, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            int n = docs.size();
+            if (n == 0) return List.of();
+            double avgLength = Math.max(1.0, (double) totalLength / n);
+
+            Map<Integer, Double> scores = new HashMap<>();
+            for (int i = 0; i < terms.size(); i++) {
+                boolean last = i == terms.size() - 1;
+                for (Map.Entry<String, Map<Integer, Integer>> match : matches(terms.get(i), last).entrySet()) {
+                    Map<Integer, Integer> list = match.getValue();
+                    double idf = Math.log(1 + (n - list.size() + 0.5) / (list.size() + 0.5));
+                    for (Map.Entry<Integer, Integer> posting : list.entrySet()) {
+                        Doc doc = docs.get(posting.getKey());
+                        if (type != null && !type.equalsIgnoreCase(doc.type)) continue;
+                        double tf = posting.getValue();
+                        double score = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * doc.length / avgLength));
+                        scores.merge(posting.getKey(), score, Double::sum);
+                    }
+                }
+            }
+
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed())
+                    .limit(limit)
+                    .map(e -> {
+                        Doc doc = docs.get(e.getKey());
+                        return new Hit(doc.type, doc.id, doc.title, doc.snippet, e.getValue());
+                    })
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** The exact term, plus (for the last query term) every indexed term it is a prefix of. */
+    private Map<String, Map<Integer, Integer>> matches(String term, boolean prefix) {
+        Map<String, Map<Integer, Integer>> found = new HashMap<>();
+        Map<Integer, Integer> exact = postings.get(term);
+        if (exact != null) found.put(term, exact);
+        if (prefix) {
+            for (Map.Entry<String, Map<Integer, Integer>> e
+                    : postings.subMap(term, false, term + Character.MAX_VALUE, false).entrySet()) {
+                if (found.size() > MAX_PREFIX_EXPANSIONS) break;
+                found.put(e.getKey(), e.getValue());
+            }
+        }
+        return found;
+    }
+
+    private void removeLocked(String type, Long id) {
+        Integer docId = docIds.remove(key(type, id));
+        if (docId == null) return;
+        Doc doc = docs.remove(docId);
+        totalLength -= doc.length;
+        for (String term : doc.terms.keySet()) {
+            Map<Integer, Integer> list = postings.get(term);
+            if (list == null) continue;
+            list.remove(docId);
+            if (list.isEmpty()) postings.remove(term);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) return tokens;
+        String normalized = foldAmharic(Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT));
+        Matcher m = TOKEN.matcher(normalized);
+        while (m.find()) {
+            String token = m.group();
+            if (STOP_WORDS.contains(token)) continue;
+            tokens.add(token);
+            String stem = stripAmharicAffixes(token);
+            if (!stem.equals(token)) tokens.add(stem);
+        }
+        return tokens;
+    }
+
+    /**
+     * Amharic attaches prepositions and case endings to the word (የግብር "of tax",
+     * ግብሩን "the tax (obj.)"); strip one common prefix and suffix so the bare word matches too.
+     */
+    static String stripAmharicAffixes(String token) {
+        if (token.length() < 3 || !isEthiopic(token.charAt(0))) return token;
+        String stem = token;
+        char first = stem.charAt(0);
+        if (first == '\u12e8' || first == '\u1260' || first == '\u1208' || first == '\u12a8') { // የ በ ለ ከ
+            stem = stem.substring(1);
+        }
+        char last = stem.charAt(stem.length() - 1);
+        if (stem.length() >= 3 && (last == '\u1295' || last == '\u121d')) { // ን ም
+            stem = stem.substring(0, stem.length() - 1);
+        }
+        return stem;
+    }
+
+    private static boolean isEthiopic(char c) {
+        return c >= '\u1200' && c <= '\u137f';
+    }
+
+    /** Fold Ethiopic letter series that sound the same onto one series. */
+    static String foldAmharic(String text) {
+        StringBuilder folded = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            char f = c;
+            if (c >= '\u1210' && c <= '\u1217') f = (char) (c - 0x10);        // ሐ series -> ሀ
+            else if (c >= '\u1280' && c <= '\u1287') f = (char) (c - 0x80);   // ኀ series -> ሀ
+            else if (c >= '\u1220' && c <= '\u1227') f = (char) (c + 0x10);   // ሠ series -> ሰ
+            else if (c >= '\u12d0' && c <= '\u12d6') f = (char) (c - 0x30);   // ዐ series -> አ
+            else if (c >= '\u1340' && c <= '\u1346') f = (char) (c - 0x08);   // ፀ series -> ጸ
+            if (f != c && folded == null) folded = new StringBuilder(text.substring(0, i));
+            if (folded != null) folded.append(f);
+        }
+        return folded != null ? folded.toString() : text;
+    }
+
+    private static String abbreviate(String text) {
+        if (text == null) return null;
+        String trimmed = text.strip();
+        return trimmed.length() <= 160 ? trimmed : trimmed.substring(0, 157) + "...";
+    }
+
+    private static String key(String type, Long id) {
+        return type + ":" + id;
+    }
+}
@@ -0,0 +1,30 @@
+package com.itas.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener that forwards saves and deletes of searchable entities to SearchIndexService.
+ */
+@Component
+public class SearchIndexListener {
+
+    @Autowired
+    @Lazy
+    private SearchIndexService searchIndexService;
+
+    @PostPersist
+    @PostUpdate
+    public void saved(Object entity) {
+        searchIndexService.saved(entity);
+    }
+
+    @PostRemove
+    public void deleted(Object entity) {
+        searchIndexService.deleted(entity);
+    }
+}
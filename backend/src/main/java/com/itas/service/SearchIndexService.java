@@ -0,0 +1,150 @@
+package com.itas.service;
+
+import com.itas.model.Course;
+import com.itas.model.HelpContent;
+import com.itas.model.Module;
+import com.itas.model.Resource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the in-memory SearchIndex over resources, courses, modules and help
+ * content in step with the database.
+ *
+ * The index is built once the application is ready, on a background thread,
+ * from streaming JDBC scans of the text columns (no entities are loaded).
+ * SearchIndexListener reports every entity save and delete, and the change is
+ * applied when its transaction commits. A rebuild scans into a fresh index
+ * while searches keep using the current one; changes committed during the
+ * scan are replayed onto the new index before it replaces the old.
+ *
+ * The index is per node: the listener only sees changes made through this
+ * node, so with several backend nodes an edit made on another node shows up
+ * here after the next restart. Run a single node, or accept that lag.
+ */
+@Service
+public class SearchIndexService {
+
+    public static final String RESOURCE = "RESOURCE";
+    public static final String COURSE = "COURSE";
+    public static final String MODULE = "MODULE";
+    public static final String HELP = "HELP";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile SearchIndex index = new SearchIndex();
+
+    private volatile boolean ready;
+
+    // Changes committed while a rebuild is scanning; null when no rebuild is running
+    private List<Consumer<SearchIndex>> duringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        Thread builder = new Thread(this::rebuild, "search-index-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        synchronized (this) {
+            duringRebuild = new ArrayList<>();
+        }
+        SearchIndex building = new SearchIndex();
+        try {
+            scan("SELECT id, title, description, category FROM resources", rs ->
+                    building.put(RESOURCE, rs.getLong("id"), rs.getString("title"), rs.getString("description"),
+                            rs.getString("description"), rs.getString("category")));
+            scan("SELECT id, title, description, category FROM courses", rs ->
+                    building.put(COURSE, rs.getLong("id"), rs.getString("title"), rs.getString("description"),
+                            rs.getString("description"), rs.getString("category")));
+            scan("SELECT id, title, description FROM modules", rs ->
+                    building.put(MODULE, rs.getLong("id"), rs.getString("title"), rs.getString("description"),
+                            rs.getString("description")));
+            scan("SELECT id, title, category, short_description, description, detailed_content FROM help_contents", rs ->
+                    building.put(HELP, rs.getLong("id"), rs.getString("title"), rs.getString("short_description"),
+                            rs.getString("short_description"), rs.getString("description"),
+                            rs.getString("detailed_content"), rs.getString("category")));
+        } catch (Exception e) {
+            synchronized (this) {
+                duringRebuild = null;
+            }
+            System.err.println("Could not build search index: " + e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            // The scan may have read a row before or after a change committed; replaying makes the change win
+            duringRebuild.forEach(change -> change.accept(building));
+            duringRebuild = null;
+            index = building;
+            ready = true;
+        }
+        System.out.println("Search index built: " + building.size() + " documents in "
+                + (System.currentTimeMillis() - started) + " ms");
+    }
+
+    private void scan(String sql, RowCallbackHandler handler) {
+        jdbcTemplate.query(con -> {
+            var statement = con.prepareStatement(sql);
+            statement.setFetchSize(500);
+            return statement;
+        }, handler);
+    }
+
+    public List<SearchIndex.Hit> search(String query, String type, int limit) {
+        return index.search(query, type, limit);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Called by SearchIndexListener after an insert or update.
+     */
+    public void saved(Object entity) {
+        apply(index -> {
+            if (entity instanceof Resource r) {
+                index.put(RESOURCE, r.getId(), r.getTitle(), r.getDescription(), r.getDescription(), r.getCategory());
+            } else if (entity instanceof Course c) {
+                index.put(COURSE, c.getId(), c.getTitle(), c.getDescription(), c.getDescription(), c.getCategory());
+            } else if (entity instanceof Module m) {
+                index.put(MODULE, m.getId(), m.getTitle(), m.getDescription(), m.getDescription());
+            } else if (entity instanceof HelpContent h) {
+                index.put(HELP, h.getId(), h.getTitle(), h.getShortDescription(), h.getShortDescription(),
+                        h.getDescription(), h.getDetailedContent(), h.getCategory());
+            }
+        });
+    }
+
+    /**
+     * Called by SearchIndexListener after a delete.
+     */
+    public void deleted(Object entity) {
+        apply(index -> {
+            if (entity instanceof Resource r) index.remove(RESOURCE, r.getId());
+            else if (entity instanceof Course c) index.remove(COURSE, c.getId());
+            else if (entity instanceof Module m) index.remove(MODULE, m.getId());
+            else if (entity instanceof HelpContent h) index.remove(HELP, h.getId());
+        });
+    }
+
+    private void apply(Consumer<SearchIndex> change) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                change.accept(index);
+                if (duringRebuild != null) duringRebuild.add(change);
+            }
+        });
+    }
+}
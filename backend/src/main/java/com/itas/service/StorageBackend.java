@@ -0,0 +1,51 @@
+package com.itas.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Where uploaded files live: the local upload directory, or an S3-compatible
+ * object store shared by every backend node (app.storage.backend=local|s3).
+ *
+ * Objects are addressed by keys relative to the upload root with '/' separators,
+ * e.g. "blobs/ab/cd/&lt;sha256&gt;" or "modules/&lt;uuid&gt;.mp4"; FileStorageService.storageKey
+ * maps the file paths saved on resources and modules to keys. All transfers stream.
+ */
+public interface StorageBackend {
+
+    record ObjectInfo(long size, long lastModified) {}
+
+    /**
+     * Store a fully written local file under the key. The source may be moved rather than
+     * copied; callers delete it afterwards if it is still there.
+     */
+    void put(String key, Path source) throws IOException;
+
+    /**
+     * Store a stream of known length under the key.
+     */
+    void put(String key, InputStream content, long length) throws IOException;
+
+    /**
+     * Read length bytes from offset (length &lt; 0 reads to the end).
+     * Throws NoSuchFileException when the object does not exist.
+     */
+    InputStream get(String key, long offset, long length) throws IOException;
+
+    default InputStream get(String key) throws IOException {
+        return get(key, 0, -1);
+    }
+
+    /** Size and modification time, or null when there is no such object. */
+    ObjectInfo stat(String key) throws IOException;
+
+    /** Remove the object; missing objects are ignored. */
+    void delete(String key) throws IOException;
+
+    /**
+     * The object as a file on this node's disk, for zero-copy delivery and memory mapping;
+     * null when objects are not stored locally.
+     */
+    Path localPath(String key);
+}
@@ -0,0 +1,235 @@
+package com.itas.service;
+
+import com.itas.model.StoredBlob;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Single-pass ingestion of multipart uploads.
+ *
+ * The request body is parsed as it arrives (the servlet multipart resolver is
+ * lazy, so it never sees these requests). The file part is hashed, counted,
+ * size-checked and MIME-sniffed while it is written once to the blob store's
+ * incoming directory, then adopted into the store without another copy.
+ * Form fields are small and kept in memory.
+ */
+@Service
+public class StreamingUploadService {
+
+    private static final int MAX_FIELD_BYTES = 64 * 1024;
+    private static final int SNIFF_BYTES = 16;
+
+    public static class Upload {
+        private final Map<String, String> fields;
+        private final StoredBlob blob;
+        private final String fileName;
+        private final String mimeType;
+
+        Upload(Map<String, String> fields, StoredBlob blob, String fileName, String mimeType) {
+            this.fields = fields;
+            this.blob = blob;
+            this.fileName = fileName;
+            this.mimeType = mimeType;
+        }
+
+        public String field(String name) { return fields.get(name); }
+        /** Null when no (non-empty) file was sent. */
+        public StoredBlob getBlob() { return blob; }
+        public String getFileName() { return fileName; }
+        public String getMimeType() { return mimeType; }
+    }
+
+    @Autowired
+    private BlobStorageService blobStorageService;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    // The same limits the servlet multipart resolver applies to other endpoints
+    @Value("${spring.servlet.multipart.max-file-size:100MB}")
+    private DataSize maxFileSize;
+
+    @Value("${spring.servlet.multipart.max-request-size:100MB}")
+    private DataSize maxRequestSize;
+
+    /**
+     * Read a multipart/form-data request, storing the part named fileField as a blob.
+     * The caller owns one reference on the blob and must {@link #discard} it if the upload is not used.
+     */
+    public Upload ingest(HttpServletRequest request, String fileField) throws IOException {
+        String boundary = MultipartStreamReader.boundaryOf(request.getContentType());
+        if (boundary == null) throw new MultipartException("Expected a multipart/form-data request");
+        long maxRequestBytes = maxRequestSize.toBytes();
+        if (maxRequestBytes >= 0 && request.getContentLengthLong() > maxRequestBytes) {
+            throw new MaxUploadSizeExceededException(maxRequestBytes);
+        }
+
+        Map<String, String> fields = new HashMap<>();
+        StoredBlob blob = null;
+        String fileName = null;
+        String mimeType = null;
+        try {
+            MultipartStreamReader reader = new MultipartStreamReader(request.getInputStream(), boundary);
+            MultipartStreamReader.Part part;
+            while ((part = reader.nextPart()) != null) {
+                if (part.isFile() && fileField.equals(part.getName()) && blob == null) {
+                    StoredFile stored = storeFile(part.getBody());
+                    if (stored == null) continue;
+                    blob = stored.blob();
+                    fileName = part.getFileName();
+                    mimeType = resolveMimeType(stored.head(), stored.headLength(), fileName, part.getContentType());
+                } else if (!part.isFile() && part.getName() != null) {
+                    fields.put(part.getName(), readField(part.getBody()));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            if (blob != null) blobStorageService.release(blob.getDigest());
+            throw e;
+        }
+        return new Upload(fields, blob, fileName, mimeType);
+    }
+
+    /** Give back the reference taken by {@link #ingest} when the upload is rejected. */
+    public void discard(Upload upload) {
+        if (upload != null && upload.getBlob() != null) {
+            blobStorageService.release(upload.getBlob().getDigest());
+        }
+    }
+
+    private record StoredFile(StoredBlob blob, byte[] head, int headLength) {}
+
+    private StoredFile storeFile(InputStream body) throws IOException {
+        long maxFileBytes = maxFileSize.toBytes();
+        MessageDigest sha256 = sha256();
+        byte[] head = new byte[SNIFF_BYTES];
+        int headLength = 0;
+        long size = 0;
+
+        Path temp = Files.createTempFile(blobStorageService.incomingDir(), "upload-", ".part");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                byte[] buffer = new byte[64 * 1024];
+                int n;
+                while ((n = body.read(buffer)) > 0) {
+                    size += n;
+                    if (maxFileBytes >= 0 && size > maxFileBytes) {
+                        throw new MaxUploadSizeExceededException(maxFileBytes);
+                    }
+                    if (headLength < SNIFF_BYTES) {
+                        int copy = Math.min(n, SNIFF_BYTES - headLength);
+                        System.arraycopy(buffer, 0, head, headLength, copy);
+                        headLength += copy;
+                    }
+                    sha256.update(buffer, 0, n);
+                    out.write(buffer, 0, n);
+                }
+            }
+            // Browsers send an empty file part when no file was chosen
+            if (size == 0) return null;
+            StoredBlob blob = blobStorageService.adopt(temp, HexFormat.of().formatHex(sha256.digest()), size);
+            return new StoredFile(blob, head, headLength);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static String readField(InputStream body) throws IOException {
+        ByteArrayOutputStream value = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = body.read(buffer)) > 0) {
+            if (value.size() + n > MAX_FIELD_BYTES) throw new MultipartException("Form field too large");
+            value.write(buffer, 0, n);
+        }
+        return value.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The sniffed type when the content is recognised, else the type the client sent, else one from the extension.
+     */
+    String resolveMimeType(byte[] head, int length, String fileName, String declared) {
+        String sniffed = sniff(head, length, fileName);
+        if (sniffed != null) return sniffed;
+        if (declared != null && !declared.isBlank() && !declared.startsWith("application/octet-stream")) {
+            return declared;
+        }
+        String guessed = fileName != null ? fileStorageService.getMimeType(fileName) : null;
+        return guessed != null ? guessed : "application/octet-stream";
+    }
+
+    static String sniff(byte[] head, int length, String fileName) {
+        String extension = fileName != null && fileName.lastIndexOf('.') >= 0
+                ? fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT) : "";
+        if (startsWith(head, length, 0, "%PDF")) return "application/pdf";
+        if (startsWith(head, length, 0, 0x89, 'P', 'N', 'G')) return "image/png";
+        if (startsWith(head, length, 0, 0xFF, 0xD8, 0xFF)) return "image/jpeg";
+        if (startsWith(head, length, 0, "GIF8")) return "image/gif";
+        if (startsWith(head, length, 0, "RIFF")) {
+            if (startsWith(head, length, 8, "WEBP")) return "image/webp";
+            if (startsWith(head, length, 8, "WAVE")) return "audio/wav";
+            if (startsWith(head, length, 8, "AVI ")) return "video/x-msvideo";
+        }
+        if (startsWith(head, length, 4, "ftyp")) {
+            return startsWith(head, length, 8, "qt  ") ? "video/quicktime" : "video/mp4";
+        }
+        if (startsWith(head, length, 0, 0x1A, 0x45, 0xDF, 0xA3)) return "video/webm";
+        if (startsWith(head, length, 0, "ID3")) return "audio/mpeg";
+        if (startsWith(head, length, 0, 'P', 'K', 0x03, 0x04)) {
+            // Office Open XML files are zip containers; the extension tells them apart
+            switch (extension) {
+                case "docx": return "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+                case "xlsx": return "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+                case "pptx": return "application/vnd.openxmlformats-officedocument.presentationml.presentation";
+                default: return "application/zip";
+            }
+        }
+        if (startsWith(head, length, 0, 0xD0, 0xCF, 0x11, 0xE0)) {
+            switch (extension) {
+                case "doc": return "application/msword";
+                case "xls": return "application/vnd.ms-excel";
+                case "ppt": return "application/vnd.ms-powerpoint";
+                default: return null;
+            }
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] head, int length, int offset, String magic) {
+        return startsWith(head, length, offset, magic.chars().toArray());
+    }
+
+    private static boolean startsWith(byte[] head, int length, int offset, int... magic) {
+        if (length < offset + magic.length) return false;
+        for (int i = 0; i < magic.length; i++) {
+            if ((head[offset + i] & 0xff) != magic[i]) return false;
+        }
+        return true;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.itas.service;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Background thumbnail generation for resources.
+ *
+ * After an upload commits, the first page of a PDF (PDFBox) or a downscaled
+ * copy of an image is rendered to a PNG stored next to the original as
+ * "&lt;key&gt;.thumb.png" in the StorageBackend, and resources.thumbnail_path is
+ * set to that key. Originals in a remote store are first copied to a temp file. Work runs on a
+ * small bounded pool; when its queue is full the upload simply goes without a
+ * thumbnail for now and the periodic sweep picks it up later, so bursts never
+ * block request threads. A file that cannot be rendered is retried by the
+ * sweep once the retry backoff has passed.
+ */
+@Service
+public class ThumbnailService {
+
+    private static final String SUFFIX = ".thumb.png";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Value("${app.thumbnails.width:320}")
+    private int width;
+
+    @Value("${app.thumbnails.sweep-batch-size:20}")
+    private int sweepBatchSize;
+
+    @Value("${app.thumbnails.retry-backoff-minutes:60}")
+    private long retryBackoffMinutes;
+
+    private final ThreadPoolExecutor workers;
+
+    // Resources already queued, and ones whose file could not be rendered (id -> when the sweep may retry it)
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Long> failed = new ConcurrentHashMap<>();
+
+    // Submissions turned away by a full queue since the last sweep, logged once per sweep
+    private final LongAdder rejected = new LongAdder();
+
+    public ThumbnailService(@Value("${app.thumbnails.threads:1}") int threads,
+                            @Value("${app.thumbnails.queue-capacity:50}") int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "thumbnail-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Storage key of the thumbnail of a stored file.
+     */
+    public static String thumbnailKey(String key) {
+        return key + SUFFIX;
+    }
+
+    public static boolean supports(String mimeType) {
+        return mimeType != null && (mimeType.equals("application/pdf") || mimeType.startsWith("image/"));
+    }
+
+    /**
+     * Queue a thumbnail for the resource once the current transaction commits.
+     */
+    public void generateAfterCommit(Long resourceId, String filePath, String mimeType) {
+        if (resourceId == null || filePath == null || !supports(mimeType)) return;
+        AfterCommit.run(() -> submit(resourceId, filePath, mimeType));
+    }
+
+    /**
+     * The resource now has a different file: drop the old thumbnail reference and render a new one.
+     */
+    public void fileReplaced(Long resourceId, String filePath, String mimeType) {
+        jdbcTemplate.update("UPDATE resources SET thumbnail_path = NULL WHERE id = ?", resourceId);
+        failed.remove(resourceId);
+        generateAfterCommit(resourceId, filePath, mimeType);
+    }
+
+    /**
+     * Pick up resources that have no thumbnail yet (older uploads, or ones skipped while the queue was full).
+     */
+    @Scheduled(fixedDelayString = "${app.thumbnails.sweep-interval-ms:300000}", initialDelay = 60000)
+    public void sweep() {
+        long deferred = rejected.sumThenReset();
+        if (deferred > 0) {
+            System.out.println("Thumbnail queue was full; " + deferred + " resources left for the sweep");
+        }
+        long now = System.currentTimeMillis();
+        failed.values().removeIf(retryAt -> retryAt <= now);
+
+        int room = workers.getQueue().remainingCapacity();
+        if (room <= 0) return;
+
+        List<Map<String, Object>> missing = jdbcTemplate.queryForList(
+                "SELECT id, file_path, mime_type FROM resources WHERE thumbnail_path IS NULL AND file_path IS NOT NULL "
+                        + "AND (mime_type = 'application/pdf' OR mime_type LIKE 'image/%') ORDER BY id DESC LIMIT ?",
+                sweepBatchSize + failed.size() + pending.size());
+        int queued = 0;
+        for (Map<String, Object> row : missing) {
+            if (queued >= Math.min(room, sweepBatchSize)) break;
+            Long id = ((Number) row.get("id")).longValue();
+            if (failed.containsKey(id) || pending.contains(id)) continue;
+            if (submit(id, (String) row.get("file_path"), (String) row.get("mime_type"))) queued++;
+        }
+    }
+
+    private boolean submit(Long resourceId, String filePath, String mimeType) {
+        if (!pending.add(resourceId)) return false;
+        try {
+            workers.execute(() -> {
+                try {
+                    generate(resourceId, filePath, mimeType);
+                } finally {
+                    pending.remove(resourceId);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            pending.remove(resourceId);
+            rejected.increment();
+            return false;
+        }
+    }
+
+    private void generate(Long resourceId, String filePath, String mimeType) {
+        Path download = null;
+        try {
+            String key = fileStorageService.storageKey(filePath);
+            String target = thumbnailKey(key);
+            // Blobs are shared between resources, so another one may already have rendered it
+            if (storageBackend.stat(target) == null) {
+                Path original = storageBackend.localPath(key);
+                if (original == null) {
+                    download = Files.createTempFile("thumbnail-source-", ".tmp");
+                    try (InputStream in = storageBackend.get(key)) {
+                        Files.copy(in, download, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    original = download;
+                }
+                BufferedImage image = mimeType.equals("application/pdf") ? renderFirstPage(original) : downscale(original);
+                if (image == null) {
+                    markFailed(resourceId);
+                    return;
+                }
+                Path temp = Files.createTempFile(".thumb-", ".tmp");
+                try {
+                    ImageIO.write(image, "png", temp.toFile());
+                    storageBackend.put(target, temp);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            }
+            // Only if the resource still points at this file (it may have been replaced meanwhile)
+            jdbcTemplate.update("UPDATE resources SET thumbnail_path = ? WHERE id = ? AND file_path = ?",
+                    target, resourceId, filePath);
+        } catch (Exception e) {
+            markFailed(resourceId);
+            System.err.println("Could not create thumbnail for resource " + resourceId + ": " + e.getMessage());
+        } finally {
+            if (download != null) {
+                try {
+                    Files.deleteIfExists(download);
+                } catch (IOException e) {
+                    // Temp file; nothing else to do
+                }
+            }
+        }
+    }
+
+    private void markFailed(Long resourceId) {
+        failed.put(resourceId, System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(retryBackoffMinutes));
+    }
+
+    private BufferedImage renderFirstPage(Path pdf) throws IOException {
+        // Parses lazily from the file; only the first page is rendered
+        try (PDDocument document = Loader.loadPDF(new RandomAccessReadBufferedFile(pdf.toFile()))) {
+            if (document.getNumberOfPages() == 0) return null;
+            PDRectangle box = document.getPage(0).getCropBox();
+            float scale = box.getWidth() > 0 ? width / box.getWidth() : 1f;
+            return new PDFRenderer(document).renderImage(0, scale, ImageType.RGB);
+        }
+    }
+
+    private BufferedImage downscale(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            if (in == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+
+                // Subsample while decoding so a huge photo is never fully decoded in memory
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, sourceWidth / (width * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage decoded = reader.read(0, param);
+
+                int targetWidth = Math.min(width, sourceWidth);
+                int targetHeight = Math.max(1, (int) Math.round((double) sourceHeight * targetWidth / sourceWidth));
+                BufferedImage scaled = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = scaled.createGraphics();
+                try {
+                    g.setColor(Color.WHITE); // transparent areas become white, not black
+                    g.fillRect(0, 0, targetWidth, targetHeight);
+                    g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                    g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                    g.drawImage(decoded, 0, 0, targetWidth, targetHeight, null);
+                } finally {
+                    g.dispose();
+                }
+                return scaled;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.itas.service;
+
+import com.itas.model.StoredBlob;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resumable chunked uploads.
+ *
+ * A session is initiated with the total size; the client then sends chunks in
+ * order, each with its byte offset and SHA-256. Chunks are written with
+ * positional writes straight into the session's part file (no multipart
+ * spooling) while a running SHA-256 of the whole file is kept, so completing
+ * the upload just moves the part file into the blob store. After a dropped
+ * connection the client asks for the received offset and resumes from there.
+ *
+ * Sessions live in memory; idle sessions and their part files are removed
+ * after app.upload.session-ttl-minutes, and stray part files on startup.
+ * With several backend nodes, every request of one upload must reach the node
+ * that initiated it (sticky routing on the upload id); other nodes answer 404.
+ */
+@Service
+public class UploadSessionService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private BlobStorageService blobStorageService;
+
+    @Value("${app.upload.max-file-bytes:4294967296}")
+    private long maxFileBytes;
+
+    @Value("${app.upload.max-chunk-bytes:16777216}")
+    private long maxChunkBytes;
+
+    @Value("${app.upload.session-ttl-minutes:1440}")
+    private long sessionTtlMinutes;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void removeStalePartFiles() {
+        // Sessions do not survive a restart, so neither should their part files
+        try (DirectoryStream<Path> parts = Files.newDirectoryStream(blobStorageService.incomingDir(), "session-*.part")) {
+            for (Path part : parts) {
+                Files.deleteIfExists(part);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not clean up upload part files: " + e.getMessage());
+        }
+    }
+
+    public UploadSession initiate(String owner, String fileName, String mimeType, long totalSize) throws IOException {
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("fileName is required");
+        }
+        if (totalSize <= 0 || totalSize > maxFileBytes) {
+            throw new IllegalArgumentException("fileSize must be between 1 and " + maxFileBytes + " bytes");
+        }
+
+        String id = UUID.randomUUID().toString();
+        Path part = blobStorageService.incomingDir().resolve("session-" + id + ".part");
+        Files.createFile(part);
+
+        UploadSession session = new UploadSession(id, owner, fileName, mimeType, totalSize, part, sha256());
+        sessions.put(id, session);
+        return session;
+    }
+
+    public UploadSession getSession(String id, String owner) {
+        UploadSession session = sessions.get(id);
+        if (session == null || !session.owner.equals(owner)) {
+            throw new RuntimeException("Upload session not found or expired: " + id);
+        }
+        return session;
+    }
+
+    /**
+     * Append one chunk at the given offset, verifying its SHA-256 (hex) when supplied.
+     * A chunk that was already received is acknowledged without being rewritten.
+     * The body is read without holding the session's monitor, so status requests
+     * are not held up by a slow client; one chunk per session is written at a time.
+     *
+     * @return the number of bytes received so far
+     */
+    public long writeChunk(String id, String owner, long offset, long length, String checksum,
+                           InputStream body) throws IOException {
+        UploadSession session = getSession(id, owner);
+        MessageDigest fileDigest;
+        synchronized (session) {
+            if (session.completed) {
+                throw new IllegalStateException("Upload already completed");
+            }
+            if (length <= 0 || length > maxChunkBytes) {
+                throw new IllegalArgumentException("Chunk size must be between 1 and " + maxChunkBytes + " bytes");
+            }
+            if (offset < session.received && offset + length <= session.received) {
+                return session.received; // retry of a chunk we already have
+            }
+            if (session.writing) {
+                throw new IllegalStateException("Another chunk of this upload is still being received");
+            }
+            if (offset != session.received) {
+                throw new IllegalStateException("Expected offset " + session.received + " but got " + offset);
+            }
+            if (offset + length > session.totalSize) {
+                throw new IllegalArgumentException("Chunk extends past the declared file size");
+            }
+            session.writing = true;
+            fileDigest = cloneDigest(session.digest);
+        }
+
+        try {
+            MessageDigest chunkDigest = sha256();
+            long written = 0;
+            try (FileChannel channel = FileChannel.open(session.partFile, StandardOpenOption.WRITE)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int n;
+                while (written < length && (n = body.read(buffer, 0, (int) Math.min(buffer.length, length - written))) != -1) {
+                    ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, n);
+                    long position = offset + written;
+                    while (bytes.hasRemaining()) {
+                        position += channel.write(bytes, position);
+                    }
+                    chunkDigest.update(buffer, 0, n);
+                    fileDigest.update(buffer, 0, n);
+                    written += n;
+                }
+            }
+
+            if (written != length) {
+                throw new IllegalArgumentException("Chunk truncated: expected " + length + " bytes, got " + written);
+            }
+            if (checksum != null && !checksum.isBlank()
+                    && !HexFormat.of().formatHex(chunkDigest.digest()).equalsIgnoreCase(checksum.trim())) {
+                // Bytes past 'received' are simply overwritten by the retry
+                throw new IllegalArgumentException("Chunk checksum mismatch");
+            }
+
+            synchronized (session) {
+                if (session.completed) {
+                    throw new IllegalStateException("Upload was cancelled");
+                }
+                session.digest = fileDigest;
+                session.received = offset + length;
+                session.touch();
+                return session.received;
+            }
+        } finally {
+            synchronized (session) {
+                session.writing = false;
+            }
+        }
+    }
+
+    /**
+     * Finish the upload: the part file is moved into the blob store.
+     */
+    public StoredBlob complete(String id, String owner, String expectedSha256) throws IOException {
+        UploadSession session = getSession(id, owner);
+        synchronized (session) {
+            if (session.completed) {
+                throw new IllegalStateException("Upload already completed");
+            }
+            if (session.writing) {
+                throw new IllegalStateException("A chunk of this upload is still being received");
+            }
+            if (session.received != session.totalSize) {
+                throw new IllegalStateException("Upload incomplete: " + session.received + " of " + session.totalSize + " bytes received");
+            }
+            String digest = HexFormat.of().formatHex(session.digest.digest());
+            if (expectedSha256 != null && !expectedSha256.isBlank() && !digest.equalsIgnoreCase(expectedSha256.trim())) {
+                abort(session);
+                throw new IllegalArgumentException("File checksum mismatch; the upload was discarded");
+            }
+
+            try (FileChannel channel = FileChannel.open(session.partFile, StandardOpenOption.WRITE)) {
+                channel.truncate(session.totalSize);
+                channel.force(true);
+            }
+            session.completed = true;
+            sessions.remove(id);
+            return blobStorageService.adopt(session.partFile, digest, session.totalSize);
+        }
+    }
+
+    public Map<String, Object> status(UploadSession session) {
+        return session.toStatus(maxChunkBytes);
+    }
+
+    public void cancel(String id, String owner) {
+        UploadSession session = getSession(id, owner);
+        synchronized (session) {
+            abort(session);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.upload.cleanup-interval-ms:600000}")
+    public void expireSessions() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(sessionTtlMinutes);
+        for (UploadSession session : sessions.values()) {
+            synchronized (session) {
+                if (!session.completed && !session.writing && session.lastActivity.isBefore(cutoff)) {
+                    abort(session);
+                }
+            }
+        }
+    }
+
+    private void abort(UploadSession session) {
+        session.completed = true;
+        sessions.remove(session.id);
+        try {
+            Files.deleteIfExists(session.partFile);
+        } catch (IOException e) {
+            System.err.println("Could not delete upload part file " + session.partFile + ": " + e.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static MessageDigest cloneDigest(MessageDigest digest) {
+        try {
+            return (MessageDigest) digest.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("SHA-256 digest cannot be cloned", e);
+        }
+    }
+
+    public static class UploadSession {
+        private final String id;
+        private final String owner;
+        private final String fileName;
+        private final String mimeType;
+        private final long totalSize;
+        private final Path partFile;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private MessageDigest digest;
+        private long received;
+        private boolean completed;
+        private boolean writing;
+        private LocalDateTime lastActivity = createdAt;
+
+        UploadSession(String id, String owner, String fileName, String mimeType, long totalSize,
+                      Path partFile, MessageDigest digest) {
+            this.id = id;
+            this.owner = owner;
+            this.fileName = fileName;
+            this.mimeType = mimeType;
+            this.totalSize = totalSize;
+            this.partFile = partFile;
+            this.digest = digest;
+        }
+
+        void touch() {
+            lastActivity = LocalDateTime.now();
+        }
+
+        public String getId() { return id; }
+        public String getFileName() { return fileName; }
+        public String getMimeType() { return mimeType; }
+        public long getTotalSize() { return totalSize; }
+
+        public synchronized Map<String, Object> toStatus(long maxChunkBytes) {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("uploadId", id);
+            status.put("fileName", fileName);
+            status.put("fileSize", totalSize);
+            status.put("receivedBytes", received);
+            status.put("maxChunkBytes", maxChunkBytes);
+            status.put("createdAt", createdAt);
+            status.put("lastActivity", lastActivity);
+            return status;
+        }
+    }
+}
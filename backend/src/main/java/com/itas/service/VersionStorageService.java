@@ -0,0 +1,200 @@
+package com.itas.service;
+
+import com.itas.model.Resource;
+import com.itas.model.ResourceVersion;
+import com.itas.model.User;
+import com.itas.repository.ResourceVersionRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Storage for superseded resource versions.
+ *
+ * The current version of a resource is its normal blob. When a file is
+ * replaced, the outgoing file is split into content-defined chunks and the
+ * version keeps only the ordered list of chunk digests. Chunks live in the
+ * StorageBackend under chunks/xx/&lt;sha256&gt; with a reference count in
+ * version_chunks (see RefCountedObjectStore), so the parts an edited file
+ * shares with earlier versions are stored once. Any version is rebuilt on demand by streaming its chunks in
+ * order.
+ */
+@Service
+public class VersionStorageService {
+
+    private static final String CHUNK_DIR = "chunks";
+
+    public record VersionContent(ResourceVersion version, InputStream content) {}
+
+    @Autowired
+    private ResourceVersionRepository resourceVersionRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.storage.blob-gc-grace-minutes:60}")
+    private long gcGraceMinutes;
+
+    private final ContentDefinedChunker chunker;
+    private RefCountedObjectStore chunks;
+
+    public VersionStorageService(@Value("${app.versions.chunk-min-bytes:16384}") int minChunk,
+                                 @Value("${app.versions.chunk-avg-bytes:65536}") int avgChunk,
+                                 @Value("${app.versions.chunk-max-bytes:262144}") int maxChunk) {
+        this.chunker = new ContentDefinedChunker(minChunk, avgChunk, maxChunk);
+    }
+
+    @PostConstruct
+    public void init() {
+        chunks = new RefCountedObjectStore("version_chunks", null, VersionStorageService::chunkKey,
+                key -> List.of(), jdbcTemplate, storageBackend, transactionManager);
+    }
+
+    public List<ResourceVersion> getVersions(Long resourceId) {
+        return resourceVersionRepository.findByResourceIdOrderByVersionDesc(resourceId);
+    }
+
+    /**
+     * Record the resource's current file and metadata as a version, before they are replaced.
+     */
+    @Transactional
+    public ResourceVersion snapshot(Resource resource, User updatedBy, String changeSummary) {
+        ResourceVersion version = new ResourceVersion();
+        version.setResource(resource);
+        version.setVersion(resource.getVersion() != null ? resource.getVersion() : 1);
+        version.setTitle(resource.getTitle());
+        version.setDescription(resource.getDescription());
+        version.setFileName(resource.getFileName());
+        version.setFilePath(resource.getFilePath());
+        version.setFileSize(resource.getFileSize());
+        version.setMimeType(resource.getMimeType());
+        version.setFileHash(resource.getFileHash());
+        version.setChangeSummary(changeSummary);
+        version.setUpdatedBy(updatedBy);
+        version.setUpdatedAt(LocalDateTime.now());
+
+        List<String> digests = new ArrayList<>();
+        long[] newBytes = {0};
+        if (resource.getFilePath() != null) {
+            MessageDigest sha256 = sha256();
+            try (InputStream in = storageBackend.get(fileStorageService.storageKey(resource.getFilePath()))) {
+                chunker.split(in, (buffer, offset, length) -> {
+                    sha256.update(buffer, offset, length);
+                    String digest = HexFormat.of().formatHex(sha256.digest());
+                    boolean written = chunks.acquire(digest, length, key ->
+                            storageBackend.put(key, new ByteArrayInputStream(buffer, offset, length), length));
+                    if (written) newBytes[0] += length;
+                    digests.add(digest);
+                });
+            } catch (NoSuchFileException e) {
+                // Nothing to keep; the version still records the metadata
+                System.err.println("File of resource " + resource.getId() + " is missing, versioning metadata only");
+                version.setFilePath(null);
+            } catch (IOException e) {
+                // The references taken so far roll back with the transaction; chunks already
+                // written are recorded as released and collected after the grace period
+                throw new RuntimeException("Could not store version " + version.getVersion()
+                        + " of resource " + resource.getId() + ": " + e.getMessage(), e);
+            }
+        }
+        version.setChunkDigests(digests);
+        version.setStoredBytes(newBytes[0]);
+        return resourceVersionRepository.save(version);
+    }
+
+    /**
+     * Metadata and a lazily reassembled stream of one version's file. The caller closes the stream.
+     */
+    @Transactional(readOnly = true)
+    public VersionContent open(Long resourceId, Integer versionNumber) {
+        ResourceVersion version = resourceVersionRepository.findByResourceIdAndVersion(resourceId, versionNumber)
+                .orElseThrow(() -> new RuntimeException("Version " + versionNumber + " of resource " + resourceId + " not found"));
+        if (version.getFilePath() == null) {
+            throw new RuntimeException("Version " + versionNumber + " of resource " + resourceId + " has no file");
+        }
+        // Copied while the session is open; chunks are fetched one at a time as the stream is read
+        Iterator<String> digests = new ArrayList<>(version.getChunkDigests()).iterator();
+        InputStream content = new SequenceInputStream(new Enumeration<InputStream>() {
+            @Override
+            public boolean hasMoreElements() {
+                return digests.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                try {
+                    return storageBackend.get(chunkKey(digests.next()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+        return new VersionContent(version, content);
+    }
+
+    /**
+     * Drop every version of a resource and release their chunks; call before the resource row goes.
+     */
+    @Transactional
+    public void deleteVersions(Long resourceId) {
+        List<ResourceVersion> versions = resourceVersionRepository.findByResourceIdOrderByVersionDesc(resourceId);
+        for (ResourceVersion version : versions) {
+            for (String digest : version.getChunkDigests()) {
+                chunks.release(digest);
+            }
+        }
+        resourceVersionRepository.deleteAll(versions);
+    }
+
+    /**
+     * Delete chunks no version has used for longer than the grace period.
+     */
+    @Scheduled(fixedDelayString = "${app.storage.blob-gc-interval-ms:600000}", initialDelay = 180000)
+    public void collectReleased() {
+        int collected = chunks.collectReleased(gcGraceMinutes);
+        if (collected > 0) {
+            System.out.println("Version chunk collection: " + collected + " released chunks deleted");
+        }
+    }
+
+    static String chunkKey(String digest) {
+        return CHUNK_DIR + "/" + digest.substring(0, 2) + "/" + digest;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
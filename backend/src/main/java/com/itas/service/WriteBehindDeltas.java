@@ -0,0 +1,81 @@
+package com.itas.service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * In-memory deltas per row id, written to the database in batches by a
+ * scheduled flush. Used for resource view/download counters and question
+ * item statistics.
+ *
+ * Updates run under the key's map lock, and a flush takes each entry out of
+ * the map under the same lock, so every update is either in the flushed batch
+ * or in a fresh entry for the next flush. The map only holds ids with unflushed
+ * deltas. If writing a batch fails, its deltas are merged back for the next
+ * flush to retry.
+ */
+public class WriteBehindDeltas<A> {
+
+    private final String name;
+    private final Supplier<A> factory;
+    private final BinaryOperator<A> merge;
+    private final Map<Long, A> pending = new ConcurrentHashMap<>();
+
+    /**
+     * @param name    used in the log line of a failed flush
+     * @param factory creates an empty accumulator
+     * @param merge   adds a failed batch's accumulator (second argument) to a newer one and returns the result
+     */
+    public WriteBehindDeltas(String name, Supplier<A> factory, BinaryOperator<A> merge) {
+        this.name = name;
+        this.factory = factory;
+        this.merge = merge;
+    }
+
+    public void add(Long id, Consumer<A> update) {
+        pending.compute(id, (k, accumulator) -> {
+            A target = accumulator != null ? accumulator : factory.get();
+            update.accept(target);
+            return target;
+        });
+    }
+
+    /** The unflushed deltas of a row, or null if there are none. */
+    public A get(Long id) {
+        return pending.get(id);
+    }
+
+    public void remove(Collection<Long> ids) {
+        ids.forEach(pending::remove);
+    }
+
+    /**
+     * Hand every unflushed delta to the writer. If it throws, the deltas are kept
+     * and the failure is logged rather than rethrown.
+     */
+    public synchronized void flush(Consumer<Map<Long, A>> writer) {
+        if (pending.isEmpty()) return;
+
+        Map<Long, A> batch = new LinkedHashMap<>();
+        for (Long id : pending.keySet()) {
+            pending.computeIfPresent(id, (k, accumulator) -> {
+                batch.put(k, accumulator);
+                return null;
+            });
+        }
+        if (batch.isEmpty()) return;
+
+        try {
+            writer.accept(batch);
+        } catch (RuntimeException e) {
+            // Put the deltas back so the next flush retries them
+            System.err.println(name + " flush failed: " + e.getMessage());
+            batch.forEach((id, accumulator) -> pending.merge(id, accumulator, merge));
+        }
+    }
+}
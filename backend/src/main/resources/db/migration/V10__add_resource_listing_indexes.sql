@@ -0,0 +1,5 @@
+-- Filter and keyset-sort columns used by the paged resource listing
+CREATE INDEX IF NOT EXISTS idx_resources_category ON resources (category);
+CREATE INDEX IF NOT EXISTS idx_resources_resource_type ON resources (resource_type);
+CREATE INDEX IF NOT EXISTS idx_resources_audience ON resources (audience);
+CREATE INDEX IF NOT EXISTS idx_resources_popularity ON resources (download_count DESC, id DESC);
@@ -0,0 +1,13 @@
+-- Archived resource files live compressed in cold storage (see ColdStorageService);
+-- the hot copy is released when a resource is archived and restored from here on demand.
+ALTER TABLE archived_resources ADD COLUMN IF NOT EXISTS audience VARCHAR(255);
+ALTER TABLE archived_resources ADD COLUMN IF NOT EXISTS file_name VARCHAR(255);
+ALTER TABLE archived_resources ADD COLUMN IF NOT EXISTS mime_type VARCHAR(255);
+ALTER TABLE archived_resources ADD COLUMN IF NOT EXISTS file_size BIGINT;
+ALTER TABLE archived_resources ADD COLUMN IF NOT EXISTS file_hash VARCHAR(255);
+ALTER TABLE archived_resources ADD COLUMN IF NOT EXISTS archive_path VARCHAR(500);
+ALTER TABLE archived_resources ADD COLUMN IF NOT EXISTS archived_size BIGINT;
+
+-- The purge job looks up expired archives in batches
+CREATE INDEX IF NOT EXISTS idx_archived_resources_purge
+    ON archived_resources (status, deletion_scheduled_for);
@@ -0,0 +1,18 @@
+-- Superseded resource versions are stored as content-defined chunks, shared
+-- between versions; the current file stays a normal blob in stored_blobs
+CREATE TABLE IF NOT EXISTS version_chunks (
+    digest VARCHAR(64) PRIMARY KEY,
+    size_bytes BIGINT NOT NULL,
+    ref_count INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS resource_version_chunks (
+    version_id BIGINT NOT NULL REFERENCES resource_versions (id) ON DELETE CASCADE,
+    seq INTEGER NOT NULL,
+    chunk_digest VARCHAR(64) NOT NULL,
+    PRIMARY KEY (version_id, seq)
+);
+
+ALTER TABLE resource_versions ADD COLUMN IF NOT EXISTS file_hash VARCHAR(64);
+ALTER TABLE resource_versions ADD COLUMN IF NOT EXISTS stored_bytes BIGINT;
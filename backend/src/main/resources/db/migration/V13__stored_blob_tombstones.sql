@@ -0,0 +1,8 @@
+-- Releasing the last reference to a blob now leaves its row as a tombstone; the
+-- collector deletes the file and the row once released_at is past the grace period
+ALTER TABLE stored_blobs ADD COLUMN IF NOT EXISTS released_at TIMESTAMP;
+
+-- Rows left at zero by the old immediate delete path
+UPDATE stored_blobs SET ref_count = 0, released_at = CURRENT_TIMESTAMP WHERE ref_count <= 0 AND released_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_stored_blobs_released ON stored_blobs (released_at) WHERE ref_count = 0;
@@ -0,0 +1,5 @@
+-- Version chunks are reference counted like stored_blobs (see RefCountedObjectStore):
+-- a chunk at zero stays as a tombstone until the collector deletes it after the grace period
+ALTER TABLE version_chunks ADD COLUMN IF NOT EXISTS released_at TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_version_chunks_released ON version_chunks (released_at) WHERE ref_count = 0;
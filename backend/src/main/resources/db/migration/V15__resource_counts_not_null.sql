@@ -0,0 +1,9 @@
+-- The popular listing orders and seeks on the bare download_count column so it can
+-- walk idx_resources_popularity; that needs the counts to never be NULL
+UPDATE resources SET download_count = 0 WHERE download_count IS NULL;
+UPDATE resources SET view_count = 0 WHERE view_count IS NULL;
+
+ALTER TABLE resources ALTER COLUMN download_count SET DEFAULT 0;
+ALTER TABLE resources ALTER COLUMN download_count SET NOT NULL;
+ALTER TABLE resources ALTER COLUMN view_count SET DEFAULT 0;
+ALTER TABLE resources ALTER COLUMN view_count SET NOT NULL;
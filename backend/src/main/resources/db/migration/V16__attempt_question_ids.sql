@@ -0,0 +1,3 @@
+-- Sampled final exam attempts record the question ids they were served, so grading
+-- does not depend on the bank staying the same between start and submit
+ALTER TABLE assessment_attempts ADD COLUMN IF NOT EXISTS question_ids TEXT;
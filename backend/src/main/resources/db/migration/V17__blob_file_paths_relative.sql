@@ -0,0 +1,11 @@
+-- Blob-backed file paths are stored as the bare storage key (blobs/ab/cd/<digest>);
+-- rewrite the ones saved with the upload directory in front
+UPDATE resources
+SET file_path = 'blobs/' || SUBSTRING(file_hash, 1, 2) || '/' || SUBSTRING(file_hash, 3, 2) || '/' || file_hash
+WHERE file_hash IS NOT NULL
+  AND file_path LIKE '%/blobs/' || SUBSTRING(file_hash, 1, 2) || '/' || SUBSTRING(file_hash, 3, 2) || '/' || file_hash;
+
+UPDATE resource_versions
+SET file_path = 'blobs/' || SUBSTRING(file_hash, 1, 2) || '/' || SUBSTRING(file_hash, 3, 2) || '/' || file_hash
+WHERE file_hash IS NOT NULL
+  AND file_path LIKE '%/blobs/' || SUBSTRING(file_hash, 1, 2) || '/' || SUBSTRING(file_hash, 3, 2) || '/' || file_hash;
@@ -0,0 +1,14 @@
+-- Item-analysis counters, incremented in batches by ItemStatisticsService
+CREATE TABLE IF NOT EXISTS question_stats (
+    question_id BIGINT PRIMARY KEY,
+    attempts BIGINT NOT NULL DEFAULT 0,
+    correct_count BIGINT NOT NULL DEFAULT 0,
+    score_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    top_attempts BIGINT NOT NULL DEFAULT 0,
+    top_correct BIGINT NOT NULL DEFAULT 0,
+    top_score_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    bottom_attempts BIGINT NOT NULL DEFAULT 0,
+    bottom_correct BIGINT NOT NULL DEFAULT 0,
+    bottom_score_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP
+);
@@ -0,0 +1,3 @@
+-- Sample N questions per module for final exams; attempts store only the seed
+ALTER TABLE assessment_definitions ADD COLUMN IF NOT EXISTS questions_per_module INTEGER;
+ALTER TABLE assessment_attempts ADD COLUMN IF NOT EXISTS question_seed BIGINT;
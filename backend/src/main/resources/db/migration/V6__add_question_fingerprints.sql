@@ -0,0 +1,8 @@
+-- Normalized content fingerprints for de-duplicating question imports.
+-- stem_hash identifies a question within its module (or course-level bank);
+-- content_hash covers text, options, answer key, explanation and points.
+-- Existing rows are fingerprinted lazily the first time their bank is imported into.
+ALTER TABLE questions ADD COLUMN IF NOT EXISTS stem_hash VARCHAR(64);
+ALTER TABLE questions ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+CREATE INDEX IF NOT EXISTS idx_questions_module_stem ON questions (module_id, stem_hash);
+CREATE INDEX IF NOT EXISTS idx_questions_course_stem ON questions (course_id, stem_hash) WHERE module_id IS NULL;
@@ -0,0 +1,10 @@
+-- Content-addressable upload storage: one row (and one file) per distinct SHA-256,
+-- shared by every resource whose file_hash points at it
+CREATE TABLE IF NOT EXISTS stored_blobs (
+    digest VARCHAR(64) PRIMARY KEY,
+    size_bytes BIGINT NOT NULL,
+    storage_path VARCHAR(255) NOT NULL,
+    ref_count INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_resources_file_hash ON resources (file_hash);
@@ -0,0 +1,2 @@
+-- Preview image rendered in the background by ThumbnailService (NULL until it exists)
+ALTER TABLE resources ADD COLUMN IF NOT EXISTS thumbnail_path VARCHAR(500);
@@ -0,0 +1,23 @@
+-- Full-text search over resources: search_vector is maintained by a trigger and
+-- queried with to_tsquery/ts_rank through the GIN index (see ResourceRepositoryImpl)
+ALTER TABLE resources ADD COLUMN IF NOT EXISTS search_vector TSVECTOR;
+
+CREATE OR REPLACE FUNCTION resources_search_vector_update() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.search_vector :=
+        setweight(to_tsvector('english', COALESCE(NEW.title, '')), 'A') ||
+        setweight(to_tsvector('english', COALESCE(NEW.description, '')), 'B') ||
+        setweight(to_tsvector('simple', COALESCE(NEW.category, '')), 'C');
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_resources_search_vector ON resources;
+CREATE TRIGGER trg_resources_search_vector
+    BEFORE INSERT OR UPDATE OF title, description, category ON resources
+    FOR EACH ROW EXECUTE FUNCTION resources_search_vector_update();
+
+-- Backfill existing rows (fires the trigger)
+UPDATE resources SET title = title;
+
+CREATE INDEX IF NOT EXISTS idx_resources_search ON resources USING GIN (search_vector);
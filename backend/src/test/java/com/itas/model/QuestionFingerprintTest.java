@@ -0,0 +1,58 @@
+package com.itas.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuestionFingerprintTest {
+
+    private Question question(String text, String... options) {
+        Question question = new Question();
+        question.setQuestionText(text);
+        for (int i = 0; i < options.length; i++) {
+            Answer answer = new Answer();
+            answer.setAnswerText(options[i]);
+            answer.setIsCorrect(i == 0);
+            answer.setOrder(i + 1);
+            answer.setQuestion(question);
+            question.getAnswers().add(answer);
+        }
+        return question;
+    }
+
+    /**
+     * Test Case 1: case, whitespace and Unicode compatibility forms are folded
+     */
+    @Test
+    void testNormalize_FoldsCaseWhitespaceAndCompatibilityForms() {
+        assertEquals("what is vat?", QuestionFingerprint.normalize("  What\tis\n VAT? "));
+        assertEquals("vat 15%", QuestionFingerprint.normalize("ＶＡＴ　15%"));
+        assertEquals("", QuestionFingerprint.normalize(null));
+    }
+
+    /**
+     * Test Case 2: option labels and formatting do not change either hash
+     */
+    @Test
+    void testHashes_IgnoreOptionLabelsAndFormatting() {
+        Question plain = question("What is the standard VAT rate?", "15%", "10%");
+        Question labelled = question("what is  the standard VAT rate?", "A) 15%", "B. 10%");
+
+        assertEquals(QuestionFingerprint.stemHash(plain), QuestionFingerprint.stemHash(labelled));
+        assertEquals(QuestionFingerprint.contentHash(plain), QuestionFingerprint.contentHash(labelled));
+    }
+
+    /**
+     * Test Case 3: a changed answer key keeps the stem hash but changes the content hash
+     */
+    @Test
+    void testHashes_AnswerKeyChangesContentOnly() {
+        Question original = question("What is the standard VAT rate?", "15%", "10%");
+        Question edited = question("What is the standard VAT rate?", "15%", "10%");
+        edited.getAnswers().get(0).setIsCorrect(false);
+        edited.getAnswers().get(1).setIsCorrect(true);
+
+        assertEquals(QuestionFingerprint.stemHash(original), QuestionFingerprint.stemHash(edited));
+        assertNotEquals(QuestionFingerprint.contentHash(original), QuestionFingerprint.contentHash(edited));
+    }
+}
@@ -13,6 +13,8 @@ import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -40,6 +42,24 @@ public class AssessmentServiceTest {
     @Mock
     private ModuleProgressRepository moduleProgressRepository;
     
+    @Mock
+    private ModuleUnlockService moduleUnlockService;
+    
+    @Mock
+    private ItemStatisticsService itemStatisticsService;
+    
+    @Mock
+    private CourseRepository courseRepository;
+    
+    @Mock
+    private AssessmentDefinitionRepository assessmentDefinitionRepository;
+    
+    @Mock
+    private ExamQuestionPoolService examQuestionPoolService;
+    
+    @Mock
+    private AssessmentAttemptRepository assessmentAttemptRepository;
+    
     @InjectMocks
     private AssessmentService assessmentService;
     
@@ -97,6 +117,7 @@ public class AssessmentServiceTest {
         testModule.setIsLocked(true);
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
         when(moduleRepository.findById(1L)).thenReturn(Optional.of(testModule));
+        when(moduleUnlockService.isLocked(1L, testModule)).thenReturn(true);
         
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -162,6 +183,9 @@ public class AssessmentServiceTest {
         assertTrue((Boolean) result.get("passed"));
         assertEquals(100.0, result.get("percentage"));
         verify(assessmentRepository, times(1)).save(any(Assessment.class));
+        verify(moduleUnlockService).onProgressChanged(1L, 1L);
+        verify(itemStatisticsService).recordAttempt(eq("module:1"), eq(100.0), any());
+        verify(moduleRepository, never()).save(any(com.itas.model.Module.class));
     }
     
     /**
@@ -202,6 +226,81 @@ public class AssessmentServiceTest {
         verify(assessmentRepository, times(1)).save(any(Assessment.class));
     }
     
+    /**
+     * Test Case 6: A sampled final exam is neither served nor graded as the whole bank
+     */
+    @Test
+    void testSampledFinalExam_RequiresAttempt() {
+        Long courseId = 1L;
+        AssessmentDefinition definition = new AssessmentDefinition();
+        definition.setCourseId(courseId);
+        definition.setQuestionsPerModule(5);
+        when(assessmentDefinitionRepository.findByCourseIdAndIsFinalExam(courseId, true)).thenReturn(List.of(definition));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(testCourse));
+        
+        RuntimeException getError = assertThrows(RuntimeException.class,
+                () -> assessmentService.getFinalExamQuestions(1L));
+        RuntimeException submitError = assertThrows(RuntimeException.class,
+                () -> assessmentService.submitFinalExam(1L, 1L, Map.of("1", 1), null));
+        
+        assertTrue(getError.getMessage().contains("per attempt"));
+        assertTrue(submitError.getMessage().contains("attemptId"));
+        verify(examQuestionPoolService, never()).allQuestionIds(any());
+        verify(itemStatisticsService, never()).recordAttempt(any(), anyDouble(), any());
+    }
+    
+    /**
+     * Test Case 7: A sampled attempt is graded against the questions it was served, even if the bank changed since
+     */
+    @Test
+    void testSampledFinalExam_GradedAgainstServedQuestions() {
+        Long courseId = 1L;
+        AssessmentDefinition definition = new AssessmentDefinition();
+        definition.setId(9L);
+        definition.setCourseId(courseId);
+        definition.setQuestionsPerModule(2);
+        when(assessmentDefinitionRepository.findByCourseIdAndIsFinalExam(courseId, true)).thenReturn(List.of(definition));
+        when(assessmentAttemptRepository.findTopByUserIdAndAssessmentDefinitionIdAndCompletedAtIsNullOrderByAttemptNumberDesc(1L, 9L))
+                .thenReturn(Optional.empty());
+        when(assessmentAttemptRepository.countByUserIdAndAssessmentDefinitionId(1L, 9L)).thenReturn(0);
+        when(assessmentAttemptRepository.save(any(AssessmentAttempt.class))).thenAnswer(invocation -> {
+            AssessmentAttempt saved = invocation.getArgument(0);
+            saved.setId(30L);
+            return saved;
+        });
+        when(examQuestionPoolService.newSeed()).thenReturn(42L);
+        Question q1 = createQuestion(1L, "Who collects VAT?", 1);
+        q1.setAnswers(List.of(createAnswer(11L, q1, "The seller", true)));
+        Question q2 = createQuestion(2L, "What is the VAT rate?", 1);
+        q2.setAnswers(List.of(createAnswer(21L, q2, "15%", true)));
+        when(examQuestionPoolService.sampleQuestionIds(courseId, 42L, 2)).thenReturn(List.of(1L, 2L));
+        when(examQuestionPoolService.loadQuestions(List.of(1L, 2L))).thenReturn(List.of(q1, q2));
+        
+        Map<String, Object> started = assessmentService.startFinalExam(1L, courseId);
+        
+        // A question added to the bank now outranks question 1 for this seed
+        AssessmentAttempt attempt = new AssessmentAttempt();
+        attempt.setId(30L);
+        attempt.setUserId(1L);
+        attempt.setAssessmentDefinitionId(9L);
+        attempt.setQuestionSeed(42L);
+        attempt.setQuestionIds("1,2");
+        lenient().when(examQuestionPoolService.sampleQuestionIds(courseId, 42L, 2)).thenReturn(List.of(3L, 2L));
+        when(assessmentAttemptRepository.findById(30L)).thenReturn(Optional.of(attempt));
+        when(assessmentDefinitionRepository.findById(9L)).thenReturn(Optional.of(definition));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(testCourse));
+        
+        Map<String, Object> result = assessmentService.submitFinalExam(1L, courseId, Map.of("1", 11, "2", 21), 30L);
+        
+        assertEquals(2, ((List<?>) started.get("questions")).size());
+        assertEquals(2, result.get("earnedPoints"));
+        assertEquals(true, result.get("passed"));
+        verify(examQuestionPoolService, times(2)).loadQuestions(List.of(1L, 2L));
+        verify(examQuestionPoolService, times(1)).sampleQuestionIds(courseId, 42L, 2);
+    }
+    
     // Helper methods
     private Question createQuestion(Long id, String text, int points) {
         Question q = new Question();
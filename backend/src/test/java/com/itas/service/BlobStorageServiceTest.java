@@ -0,0 +1,175 @@
+package com.itas.service;
+
+import com.itas.model.StoredBlob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlobStorageServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private BlobStorageService blobStorageService;
+    private Path uploads;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:blobs;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        jdbcTemplate.execute("CREATE TABLE stored_blobs (digest VARCHAR(64) PRIMARY KEY, size_bytes BIGINT NOT NULL, "
+                + "storage_path VARCHAR(255) NOT NULL, ref_count INTEGER NOT NULL DEFAULT 0, created_at TIMESTAMP, "
+                + "released_at TIMESTAMP)");
+
+        uploads = tempDir.resolve("uploads");
+        blobStorageService = new BlobStorageService(uploads.toString());
+        ReflectionTestUtils.setField(blobStorageService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(blobStorageService, "storageBackend", new LocalStorageBackend(uploads.toString()));
+        ReflectionTestUtils.setField(blobStorageService, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(blobStorageService, "gcGraceMinutes", 60L);
+        blobStorageService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE stored_blobs");
+    }
+
+    private StoredBlob store(String content) throws IOException {
+        return blobStorageService.store(new ByteArrayInputStream(content.getBytes()));
+    }
+
+    private int refCount(String digest) {
+        return jdbcTemplate.queryForList("SELECT ref_count FROM stored_blobs WHERE digest = ?", Integer.class, digest)
+                .stream().findFirst().orElse(0);
+    }
+
+    private void passGracePeriod() {
+        jdbcTemplate.update("UPDATE stored_blobs SET released_at = DATEADD('HOUR', -2, released_at) WHERE released_at IS NOT NULL");
+    }
+
+    /**
+     * Test Case 1: storing the same content twice keeps one file with two references
+     */
+    @Test
+    void testStore_DeduplicatesContent() throws IOException {
+        StoredBlob first = store("VAT registration guide");
+        StoredBlob second = store("VAT registration guide");
+
+        assertEquals(first.getDigest(), second.getDigest());
+        assertEquals(first.getStoragePath(), second.getStoragePath());
+        assertEquals(2, refCount(first.getDigest()));
+        assertArrayEquals("VAT registration guide".getBytes(), Files.readAllBytes(uploads.resolve(first.getStoragePath())));
+        try (var incoming = Files.list(blobStorageService.incomingDir())) {
+            assertEquals(0, incoming.count());
+        }
+    }
+
+    /**
+     * Test Case 2: the file stays until the last reference is released and the grace period has passed
+     */
+    @Test
+    void testRelease_LastReferenceDeletesFileAfterGracePeriod() throws IOException {
+        StoredBlob blob = store("Income tax brochure");
+        store("Income tax brochure");
+        Path file = uploads.resolve(blob.getStoragePath());
+
+        blobStorageService.release(blob.getDigest());
+        blobStorageService.release(blob.getDigest());
+        assertEquals(0, refCount(blob.getDigest()));
+        blobStorageService.collectReleased();
+        assertTrue(Files.exists(file));
+
+        passGracePeriod();
+        blobStorageService.collectReleased();
+        assertFalse(Files.exists(file));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stored_blobs", Integer.class));
+    }
+
+    /**
+     * Test Case 3: content stored again after its last release is kept, or written back once collected
+     */
+    @Test
+    void testStore_AfterLastRelease() throws IOException {
+        StoredBlob blob = store("Customs declaration form");
+        Path file = uploads.resolve(blob.getStoragePath());
+        blobStorageService.release(blob.getDigest());
+
+        store("Customs declaration form");
+        passGracePeriod();
+        blobStorageService.collectReleased();
+        assertEquals(1, refCount(blob.getDigest()));
+        assertTrue(Files.exists(file));
+
+        blobStorageService.release(blob.getDigest());
+        passGracePeriod();
+        blobStorageService.collectReleased();
+        assertFalse(Files.exists(file));
+
+        store("Customs declaration form");
+        assertEquals(1, refCount(blob.getDigest()));
+        assertArrayEquals("Customs declaration form".getBytes(), Files.readAllBytes(file));
+    }
+
+    /**
+     * Test Case 4: adopting existing content inside a transaction bumps the count without failing the transaction
+     */
+    @Test
+    void testAdopt_ExistingDigestInsideTransaction() throws IOException {
+        StoredBlob blob = store("Withholding tax guide");
+        Path upload = Files.writeString(blobStorageService.incomingDir().resolve("upload.part"), "Withholding tax guide");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                blobStorageService.adopt(upload, blob.getDigest(), blob.getSizeBytes());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        assertEquals(2, refCount(blob.getDigest()));
+        assertFalse(Files.exists(upload));
+    }
+
+    /**
+     * Test Case 5: a file written by a rolled-back transaction is left as a tombstone for the collector
+     */
+    @Test
+    void testAdopt_RolledBackTransactionLeavesTombstone() throws IOException {
+        Path upload = Files.writeString(blobStorageService.incomingDir().resolve("upload.part"), "Excise tax notice");
+        StoredBlob[] adopted = new StoredBlob[1];
+
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                adopted[0] = blobStorageService.adopt(upload, "ab".repeat(32), 17);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            status.setRollbackOnly();
+        });
+
+        Path file = uploads.resolve(adopted[0].getStoragePath());
+        assertTrue(Files.exists(file));
+        assertEquals(0, refCount(adopted[0].getDigest()));
+        passGracePeriod();
+        blobStorageService.collectReleased();
+        assertFalse(Files.exists(file));
+    }
+}
@@ -0,0 +1,81 @@
+package com.itas.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itas.repository.ModuleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test Cases for the public course catalog snapshots
+ */
+@ExtendWith(MockitoExtension.class)
+class CatalogSnapshotServiceTest {
+
+    @Mock
+    private CourseService courseService;
+
+    @Mock
+    private ModuleRepository moduleRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(catalogSnapshotService, "ttlSeconds", 300L);
+    }
+
+    /**
+     * Test Case 1: the snapshot is reused until a write bumps the revision
+     */
+    @Test
+    void testCourses_ReusedUntilChanged() {
+        when(courseService.getAllCourses()).thenReturn(List.of(Map.of("id", 1, "title", "VAT Basics")));
+
+        CatalogSnapshotService.Snapshot first = catalogSnapshotService.courses();
+        CatalogSnapshotService.Snapshot second = catalogSnapshotService.courses();
+        assertSame(first, second);
+        verify(courseService, times(1)).getAllCourses();
+        assertTrue(new String(first.body(), StandardCharsets.UTF_8).contains("VAT Basics"));
+
+        catalogSnapshotService.changed();
+        CatalogSnapshotService.Snapshot rebuilt = catalogSnapshotService.courses();
+        verify(courseService, times(2)).getAllCourses();
+        // Same content, same strong ETag
+        assertEquals(first.etag(), rebuilt.etag());
+        assertEquals(first.revision() + 1, rebuilt.revision());
+    }
+
+    /**
+     * Test Case 2: changed content gets a new ETag
+     */
+    @Test
+    void testCourses_NewEtagForNewContent() {
+        when(courseService.getAllCourses())
+                .thenReturn(List.of(Map.of("id", 1, "title", "VAT Basics")))
+                .thenReturn(List.of(Map.of("id", 1, "title", "VAT Basics (2024)")));
+
+        String before = catalogSnapshotService.courses().etag();
+        catalogSnapshotService.changed();
+        String after = catalogSnapshotService.courses().etag();
+
+        assertNotEquals(before, after);
+        assertTrue(after.startsWith("\"") && after.endsWith("\""));
+    }
+}
@@ -0,0 +1,76 @@
+package com.itas.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColdStorageServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ColdStorageService coldStorageService;
+    private Path uploads;
+    private Path archive;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        uploads = Files.createDirectories(tempDir.resolve("uploads"));
+        archive = tempDir.resolve("archive");
+        coldStorageService = new ColdStorageService();
+        ReflectionTestUtils.setField(coldStorageService, "storageBackend", new LocalStorageBackend(uploads.toString()));
+        ReflectionTestUtils.setField(coldStorageService, "fileStorageService", new FileStorageService(uploads.toString()));
+        ReflectionTestUtils.setField(coldStorageService, "backendType", "local");
+        ReflectionTestUtils.setField(coldStorageService, "archiveDir", archive.toString());
+        coldStorageService.init();
+    }
+
+    /**
+     * Test Case 1: documents are gzipped into the archive directory and thaw back to the original bytes
+     */
+    @Test
+    void testFreezeAndThaw_CompressesDocuments() throws IOException {
+        byte[] content = "VAT registration guide. ".repeat(2000).getBytes();
+        Files.write(uploads.resolve("guide.pdf"), content);
+
+        ColdStorageService.ColdObject cold = coldStorageService.freeze("guide.pdf", "application/pdf");
+
+        assertTrue(cold.key().endsWith(".gz"));
+        assertTrue(cold.storedBytes() < content.length / 10);
+        assertTrue(Files.exists(archive.resolve(cold.key())));
+        try (InputStream in = coldStorageService.thaw(cold.key())) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+
+        coldStorageService.delete(cold.key());
+        assertThrows(NoSuchFileException.class, () -> coldStorageService.thaw(cold.key()));
+    }
+
+    /**
+     * Test Case 2: already-compressed media is stored as is
+     */
+    @Test
+    void testFreeze_StoresVideoUncompressed() throws IOException {
+        byte[] content = new byte[4096];
+        new Random(3).nextBytes(content);
+        Files.write(uploads.resolve("lesson.mp4"), content);
+
+        ColdStorageService.ColdObject cold = coldStorageService.freeze("lesson.mp4", "video/mp4");
+
+        assertFalse(cold.key().endsWith(".gz"));
+        assertEquals(content.length, cold.storedBytes());
+        try (InputStream in = coldStorageService.thaw(cold.key())) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.itas.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentDefinedChunkerTest {
+
+    private final ContentDefinedChunker chunker = new ContentDefinedChunker(256, 1024, 4096);
+
+    private List<byte[]> split(byte[] content) throws IOException {
+        List<byte[]> chunks = new ArrayList<>();
+        // Small reads, so chunking across buffer refills is exercised too
+        chunker.split(new ByteArrayInputStream(content) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 700));
+            }
+        }, (buffer, offset, length) -> chunks.add(Arrays.copyOfRange(buffer, offset, offset + length)));
+        return chunks;
+    }
+
+    /**
+     * Test Case 1: chunks reassemble to the input and respect the size bounds
+     */
+    @Test
+    void testSplit_RoundTripsWithinBounds() throws IOException {
+        byte[] content = new byte[200_000];
+        new Random(42).nextBytes(content);
+
+        List<byte[]> chunks = split(content);
+
+        ByteArrayOutputStream joined = new ByteArrayOutputStream();
+        for (int i = 0; i < chunks.size(); i++) {
+            byte[] chunk = chunks.get(i);
+            assertTrue(chunk.length <= 4096);
+            if (i < chunks.size() - 1) assertTrue(chunk.length > 256);
+            joined.write(chunk);
+        }
+        assertArrayEquals(content, joined.toByteArray());
+        assertTrue(chunks.size() > 200_000 / 4096);
+    }
+
+    /**
+     * Test Case 2: an insertion in the middle only changes the chunks around it
+     */
+    @Test
+    void testSplit_InsertionKeepsOtherChunks() throws IOException {
+        byte[] original = new byte[200_000];
+        new Random(7).nextBytes(original);
+        byte[] inserted = new byte[original.length + 100];
+        System.arraycopy(original, 0, inserted, 0, 100_000);
+        Arrays.fill(inserted, 100_000, 100_100, (byte) 'x');
+        System.arraycopy(original, 100_000, inserted, 100_100, 100_000);
+
+        List<byte[]> before = split(original);
+        List<byte[]> after = split(inserted);
+
+        Set<String> known = new HashSet<>();
+        for (byte[] chunk : before) known.add(Arrays.toString(chunk));
+        int changed = 0;
+        for (byte[] chunk : after) {
+            if (!known.contains(Arrays.toString(chunk))) changed++;
+        }
+        assertTrue(changed <= 3, "changed chunks: " + changed);
+    }
+}
@@ -0,0 +1,160 @@
+package com.itas.service;
+
+import com.itas.model.*;
+import com.itas.repository.*;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(CourseService.class)
+class CourseServiceTest {
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired private CourseRepository courseRepository;
+    @Autowired private ModuleRepository moduleRepository;
+    @Autowired private QuestionRepository questionRepository;
+    @Autowired private QuestionStatRepository questionStatRepository;
+    @Autowired private AnswerRepository answerRepository;
+    @Autowired private AssessmentRepository assessmentRepository;
+    @Autowired private AssessmentDefinitionRepository assessmentDefinitionRepository;
+    @Autowired private AssessmentAttemptRepository assessmentAttemptRepository;
+    @Autowired private ModuleProgressRepository moduleProgressRepository;
+    @Autowired private CertificateRepository certificateRepository;
+    @Autowired private EnrollmentRepository enrollmentRepository;
+
+    @MockBean private CertificateService certificateService;
+    @MockBean private ModuleUnlockService moduleUnlockService;
+    @MockBean private SearchIndexService searchIndexService;
+    @MockBean private ItemStatisticsService itemStatisticsService;
+    @MockBean private CatalogSnapshotService catalogSnapshotService;
+    @MockBean private ResourceFacetService resourceFacetService;
+
+    private User persistUser() {
+        User user = new User();
+        user.setUsername("learner");
+        user.setEmail("learner@example.com");
+        user.setPassword("secret");
+        entityManager.persist(user);
+        return user;
+    }
+
+    private Question persistQuestion(com.itas.model.Module module, Long courseId) {
+        Question question = new Question();
+        question.setModule(module);
+        question.setCourseId(courseId);
+        question.setQuestionCategory(module == null ? "FINAL_EXAM" : "QUIZ");
+        question.setQuestionText("Which return is due monthly?");
+        entityManager.persist(question);
+
+        Answer answer = new Answer();
+        answer.setQuestion(question);
+        answer.setAnswerText("VAT return");
+        answer.setIsCorrect(true);
+        entityManager.persist(answer);
+
+        QuestionStat stat = new QuestionStat();
+        stat.setQuestionId(question.getId());
+        stat.setAttempts(3);
+        entityManager.persist(stat);
+        return question;
+    }
+
+    /**
+     * Test Case 1: deleting a course removes every row that depends on it, including final exam questions
+     */
+    @Test
+    void testDeleteCourse_RemovesEveryDependentRow() {
+        User user = persistUser();
+        Course course = new Course();
+        course.setTitle("VAT Basics");
+        entityManager.persist(course);
+
+        com.itas.model.Module module = new com.itas.model.Module();
+        module.setCourse(course);
+        module.setTitle("Registration");
+        entityManager.persist(module);
+
+        Question moduleQuestion = persistQuestion(module, null);
+        Question examQuestion = persistQuestion(null, course.getId());
+
+        Enrollment enrollment = new Enrollment();
+        enrollment.setUserId(user.getId());
+        enrollment.setCourseId(course.getId());
+        entityManager.persist(enrollment);
+
+        ModuleProgress progress = new ModuleProgress();
+        progress.setUser(user);
+        progress.setModule(module);
+        progress.setEnrollment(enrollment);
+        entityManager.persist(progress);
+
+        Assessment assessment = new Assessment();
+        assessment.setUser(user);
+        assessment.setModule(module);
+        entityManager.persist(assessment);
+
+        AssessmentDefinition definition = new AssessmentDefinition();
+        definition.setCourseId(course.getId());
+        definition.setTitle("VAT Basics final exam");
+        definition.setAssessmentType("FINAL_EXAM");
+        definition.setIsFinalExam(true);
+        entityManager.persist(definition);
+
+        AssessmentAttempt attempt = new AssessmentAttempt();
+        attempt.setUserId(user.getId());
+        attempt.setAssessmentDefinitionId(definition.getId());
+        attempt.setAttemptNumber(1);
+        entityManager.persist(attempt);
+
+        Certificate certificate = new Certificate();
+        certificate.setCertificateId("CERT-1");
+        certificate.setUser(user);
+        certificate.setCourse(course);
+        entityManager.persist(certificate);
+
+        entityManager.flush();
+        entityManager.clear();
+
+        Map<String, Integer> deleted = courseService.deleteCourse(course.getId());
+        entityManager.flush();
+
+        assertEquals(2, deleted.get("questions"));
+        assertEquals(2, deleted.get("answers"));
+        assertEquals(2, deleted.get("questionStats"));
+        assertFalse(courseRepository.existsById(course.getId()));
+        assertEquals(0, moduleRepository.count());
+        assertEquals(0, questionRepository.count());
+        assertEquals(0, questionStatRepository.count());
+        assertEquals(0, answerRepository.count());
+        assertEquals(0, assessmentRepository.count());
+        assertEquals(0, assessmentDefinitionRepository.count());
+        assertEquals(0, assessmentAttemptRepository.count());
+        assertEquals(0, moduleProgressRepository.count());
+        assertEquals(0, certificateRepository.count());
+        assertEquals(0, enrollmentRepository.count());
+
+        // Pending statistics of the deleted questions are dropped once the deletion commits
+        verifyNoInteractions(itemStatisticsService);
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        verify(itemStatisticsService).forget(List.of(moduleQuestion.getId(), examQuestion.getId()));
+    }
+}
@@ -0,0 +1,47 @@
+package com.itas.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecayingTopKTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    /**
+     * Test Case 1: a full table keeps the heavy hitters when new keys push in
+     */
+    @Test
+    void testTop_KeepsHeavyHitters() {
+        DecayingTopK topK = new DecayingTopK(3, 0, 0);
+        topK.add(1L, 50, 0);
+        topK.add(2L, 30, 0);
+        for (long id = 100; id < 120; id++) {
+            topK.add(id, 1, 0);
+        }
+
+        assertEquals(List.of(1L, 2L), topK.top(2));
+        assertEquals(50, topK.score(1L, 0), 1e-9);
+    }
+
+    /**
+     * Test Case 2: with decay, recent hits outrank a larger burst from long ago
+     */
+    @Test
+    void testTop_RecentHitsOutrankOldOnes() {
+        DecayingTopK topK = new DecayingTopK(10, HOUR, 0);
+        topK.add(1L, 100, 0);
+        topK.add(2L, 10, 10 * HOUR);
+
+        assertEquals(List.of(2L, 1L), topK.top(2));
+        assertEquals(100 / 1024.0, topK.score(1L, 10 * HOUR), 1e-9);
+
+        // Far enough ahead that the weights are rescaled; the ranking is unchanged
+        topK.add(3L, 1, 100 * HOUR);
+        topK.add(3L, 1, 100 * HOUR);
+        assertEquals(3L, topK.top(1).get(0));
+        assertEquals(2, topK.score(3L, 100 * HOUR), 1e-9);
+    }
+}
@@ -0,0 +1,90 @@
+package com.itas.service;
+
+import com.itas.repository.QuestionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test Cases for seeded final exam question sampling
+ */
+@ExtendWith(MockitoExtension.class)
+public class ExamQuestionPoolServiceTest {
+
+    @Mock
+    private QuestionRepository questionRepository;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @InjectMocks
+    private ExamQuestionPoolService examQuestionPoolService;
+
+    private final List<Object[]> bankRows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // Module 10 has 50 questions (ids 1-50), module 20 has 3 (ids 101-103)
+        for (long id = 1; id <= 50; id++) bankRows.add(new Object[] { 10L, id });
+        for (long id = 101; id <= 103; id++) bankRows.add(new Object[] { 20L, id });
+        when(questionRepository.findExamBankRows(1L)).thenAnswer(i -> bankRows);
+    }
+
+    /**
+     * Test Case 1: Same seed always rebuilds the same exam
+     */
+    @Test
+    void testSampleQuestionIds_DeterministicForSeed() {
+        List<Long> first = examQuestionPoolService.sampleQuestionIds(1L, 42L, 5);
+        List<Long> second = examQuestionPoolService.sampleQuestionIds(1L, 42L, 5);
+
+        assertEquals(first, second);
+        // 5 from the large module, all 3 from the small one
+        assertEquals(8, first.size());
+        assertEquals(8, new HashSet<>(first).size());
+        assertTrue(first.containsAll(List.of(101L, 102L, 103L)));
+    }
+
+    /**
+     * Test Case 2: Adding a question only changes the pick if the new question outranks one
+     */
+    @Test
+    void testSampleQuestionIds_StableWhenBankGrows() {
+        // Seed 7 ranks question 51 below the five picked, seed 4 above one of them
+        Set<Long> before7 = new HashSet<>(examQuestionPoolService.sampleQuestionIds(1L, 7L, 5));
+        Set<Long> before4 = new HashSet<>(examQuestionPoolService.sampleQuestionIds(1L, 4L, 5));
+
+        bankRows.add(50, new Object[] { 10L, 51L });
+        Set<Long> after7 = new HashSet<>(examQuestionPoolService.sampleQuestionIds(1L, 7L, 5));
+        Set<Long> after4 = new HashSet<>(examQuestionPoolService.sampleQuestionIds(1L, 4L, 5));
+
+        assertEquals(before7, after7);
+
+        // Exactly one previously picked question was displaced by the new one
+        assertTrue(after4.contains(51L));
+        Set<Long> kept = new HashSet<>(before4);
+        kept.retainAll(after4);
+        assertEquals(before4.size() - 1, kept.size());
+    }
+
+    /**
+     * Test Case 3: Without a per-module limit every question is returned in bank order
+     */
+    @Test
+    void testSampleQuestionIds_NoLimitReturnsWholeBank() {
+        List<Long> all = examQuestionPoolService.sampleQuestionIds(1L, 42L, 0);
+
+        assertEquals(53, all.size());
+        assertEquals(1L, all.get(0));
+        assertEquals(103L, all.get(52));
+    }
+}
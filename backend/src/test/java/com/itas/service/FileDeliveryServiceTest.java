@@ -0,0 +1,157 @@
+package com.itas.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test Cases for range-aware file streaming
+ */
+public class FileDeliveryServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final FileDeliveryService fileDeliveryService = new FileDeliveryService();
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = tempDir.resolve("video.mp4");
+        Files.writeString(file, "0123456789abcdefghij", StandardCharsets.US_ASCII);
+        ReflectionTestUtils.setField(fileDeliveryService, "hotFileCache", new HotFileCache(0, 0));
+    }
+
+    /**
+     * Test Case 1: No Range header returns the whole file with validators
+     */
+    @Test
+    void testSend_FullFile() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/resources/1/stream");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        fileDeliveryService.send(request, response, file, "video/mp4", "video.mp4", true);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("bytes", response.getHeader("Accept-Ranges"));
+        assertNotNull(response.getHeader("ETag"));
+        assertEquals(20, response.getContentLength());
+        assertEquals("0123456789abcdefghij", response.getContentAsString());
+    }
+
+    /**
+     * Test Case 2: A single range returns 206 with Content-Range
+     */
+    @Test
+    void testSend_SingleRange() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/resources/1/stream");
+        request.addHeader("Range", "bytes=5-9");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        fileDeliveryService.send(request, response, file, "video/mp4", "video.mp4", true);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 5-9/20", response.getHeader("Content-Range"));
+        assertEquals("56789", response.getContentAsString());
+    }
+
+    /**
+     * Test Case 3: Several ranges are sent as multipart/byteranges with an exact length
+     */
+    @Test
+    void testSend_MultipartRanges() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/resources/1/stream");
+        request.addHeader("Range", "bytes=0-1,-2");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        fileDeliveryService.send(request, response, file, "video/mp4", "video.mp4", true);
+
+        String body = response.getContentAsString();
+        assertEquals(206, response.getStatus());
+        assertTrue(response.getContentType().startsWith("multipart/byteranges"));
+        assertTrue(body.contains("Content-Range: bytes 0-1/20\r\n\r\n01"));
+        assertTrue(body.contains("Content-Range: bytes 18-19/20\r\n\r\nij"));
+        assertEquals(body.length(), response.getContentLength());
+    }
+
+    /**
+     * Test Case 4: Matching If-None-Match returns 304 without a body
+     */
+    @Test
+    void testSend_NotModified() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/resources/1/stream");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        fileDeliveryService.send(request, response, file, "video/mp4", "video.mp4", true);
+        String etag = response.getHeader("ETag");
+
+        request = new MockHttpServletRequest("GET", "/resources/1/stream");
+        request.addHeader("If-None-Match", "W/" + etag);
+        response = new MockHttpServletResponse();
+        FileDeliveryService.Delivery delivery = fileDeliveryService.send(request, response, file, "video/mp4", "video.mp4", true);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertFalse(delivery.isNewRead());
+    }
+
+    /**
+     * Test Case 5: Unsatisfiable range returns 416; stale If-Range returns the full file
+     */
+    @Test
+    void testSend_UnsatisfiableAndStaleIfRange() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/resources/1/stream");
+        request.addHeader("Range", "bytes=50-60");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        fileDeliveryService.send(request, response, file, "video/mp4", "video.mp4", true);
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */20", response.getHeader("Content-Range"));
+
+        request = new MockHttpServletRequest("GET", "/resources/1/stream");
+        request.addHeader("Range", "bytes=5-9");
+        request.addHeader("If-Range", "\"stale\"");
+        response = new MockHttpServletResponse();
+        fileDeliveryService.send(request, response, file, "video/mp4", "video.mp4", true);
+        assertEquals(200, response.getStatus());
+        assertEquals(20, response.getContentAsString().length());
+    }
+
+    /**
+     * Test Case 6: A supplied content digest is used as the ETag and honoured by If-Range
+     */
+    @Test
+    void testSend_DigestEtag() throws Exception {
+        String digest = "\"" + "ab".repeat(32) + "\"";
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/blobs/ab/ab/x");
+        request.addHeader("Range", "bytes=5-9");
+        request.addHeader("If-Range", digest);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        fileDeliveryService.send(request, response, file, "application/pdf", "notes.pdf", true, digest);
+
+        assertEquals(digest, response.getHeader("ETag"));
+        assertEquals(206, response.getStatus());
+        assertEquals("56789", response.getContentAsString());
+    }
+
+    /**
+     * Test Case 7: Quotes in a filename are escaped and non-ASCII names get a UTF-8 filename*
+     */
+    @Test
+    void testContentDisposition_EscapesAndEncodesFilename() {
+        assertEquals("attachment; filename=\"tax \\\"guide\\\"_.pdf\"",
+                FileDeliveryService.contentDisposition("tax \"guide\"\n.pdf", false));
+
+        String amharic = FileDeliveryService.contentDisposition("የግብር መመሪያ.pdf", true);
+        assertTrue(amharic.startsWith("inline; "), amharic);
+        assertTrue(amharic.contains("filename*=UTF-8''%E1%8B%A8"), amharic);
+    }
+}
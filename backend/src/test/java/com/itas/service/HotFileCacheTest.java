@@ -0,0 +1,63 @@
+package com.itas.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotFileCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path write(String name, int size) throws Exception {
+        Path file = tempDir.resolve(name);
+        Files.write(file, new byte[size]);
+        return file;
+    }
+
+    private ByteBuffer get(HotFileCache cache, Path file) throws Exception {
+        return cache.get(file, Files.size(file), Files.getLastModifiedTime(file).toMillis());
+    }
+
+    /**
+     * Test Case 1: A one-off request cannot displace a more popular cached file
+     */
+    @Test
+    void testAdmission_FrequencyWins() throws Exception {
+        HotFileCache cache = new HotFileCache(100, 100);
+        Path popular = write("popular.pdf", 80);
+        Path rare = write("rare.pdf", 80);
+
+        assertNotNull(get(cache, popular));
+        get(cache, popular);
+        get(cache, popular);
+
+        assertNull(get(cache, rare));
+        assertNotNull(get(cache, popular));
+
+        // Once the newcomer is requested more often it takes the slot
+        for (int i = 0; i < 5; i++) get(cache, rare);
+        assertNotNull(get(cache, rare));
+    }
+
+    /**
+     * Test Case 2: Replaced files are never served from a stale mapping
+     */
+    @Test
+    void testInvalidation() throws Exception {
+        HotFileCache cache = new HotFileCache(1024, 1024);
+        Path file = tempDir.resolve("guide.pdf");
+        Files.writeString(file, "first", StandardCharsets.US_ASCII);
+        assertEquals("first", StandardCharsets.US_ASCII.decode(get(cache, file)).toString());
+
+        cache.invalidate(file);
+        Files.writeString(file, "second", StandardCharsets.US_ASCII);
+        assertEquals("second", StandardCharsets.US_ASCII.decode(get(cache, file)).toString());
+    }
+}
@@ -0,0 +1,144 @@
+package com.itas.service;
+
+import com.itas.repository.QuestionStatRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ItemStatisticsServiceTest {
+
+    @Mock
+    private QuestionStatRepository questionStatRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ItemStatisticsService itemStatisticsService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(questionStatRepository.findById(anyLong())).thenReturn(Optional.empty());
+    }
+
+    /**
+     * Test Case 1: no quartile bands until the paper has enough submissions
+     */
+    @Test
+    void testHistogram_MiddleBelowMinimumSample() {
+        ItemStatisticsService.ScoreHistogram histogram = new ItemStatisticsService.ScoreHistogram();
+        for (int i = 0; i < 19; i++) histogram.add(i * 5);
+
+        assertEquals(ItemStatisticsService.Band.MIDDLE, histogram.classify(100));
+        assertEquals(ItemStatisticsService.Band.MIDDLE, histogram.classify(0));
+    }
+
+    /**
+     * Test Case 2: scores above three quarters of the paper are top, below a quarter are bottom
+     */
+    @Test
+    void testHistogram_QuartileBands() {
+        ItemStatisticsService.ScoreHistogram histogram = new ItemStatisticsService.ScoreHistogram();
+        for (int score = 1; score <= 100; score++) histogram.add(score);
+
+        assertEquals(ItemStatisticsService.Band.TOP, histogram.classify(90));
+        assertEquals(ItemStatisticsService.Band.TOP, histogram.classify(76));
+        assertEquals(ItemStatisticsService.Band.MIDDLE, histogram.classify(50));
+        assertEquals(ItemStatisticsService.Band.BOTTOM, histogram.classify(25));
+        assertEquals(ItemStatisticsService.Band.BOTTOM, histogram.classify(3));
+    }
+
+    /**
+     * Test Case 3: discrimination compares the top and bottom quartile once the paper has enough submissions
+     */
+    @Test
+    void testRecordAttempt_DiscriminationFromQuartiles() {
+        // Warm-up: 20 middling submissions, counted overall only
+        for (int i = 0; i < 20; i++) {
+            itemStatisticsService.recordAttempt("exam:1", 50, Map.of(7L, i % 2 == 0));
+        }
+        itemStatisticsService.recordAttempt("exam:1", 100, Map.of(7L, true));
+        itemStatisticsService.recordAttempt("exam:1", 0, Map.of(7L, false));
+
+        Map<String, Object> stats = itemStatisticsService.getQuestionStats(7L);
+        assertEquals(22L, stats.get("attempts"));
+        assertEquals(11L, stats.get("correctCount"));
+        assertEquals(1L, stats.get("topAttempts"));
+        assertEquals(1L, stats.get("bottomAttempts"));
+        assertEquals(1.0, (Double) stats.get("discrimination"), 1e-9);
+    }
+
+    /**
+     * Test Case 4: flush increments existing rows and inserts the missing ones
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_UpdatesThenInsertsMissingRows() {
+        itemStatisticsService.recordAttempt("module:1", 80, Map.of(1L, true));
+        itemStatisticsService.recordAttempt("module:1", 40, Map.of(2L, false));
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE"), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            // Only question 1 has a row
+            return rows.stream().mapToInt(row -> row[10].equals(1L) ? 1 : 0).toArray();
+        });
+
+        itemStatisticsService.flush();
+
+        ArgumentCaptor<List<Object[]>> inserts = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT"), inserts.capture());
+        assertEquals(1, inserts.getValue().size());
+        assertEquals(2L, inserts.getValue().get(0)[10]);
+        verify(transactionManager).commit(any());
+        assertEquals(0L, itemStatisticsService.getQuestionStats(1L).get("attempts"));
+    }
+
+    /**
+     * Test Case 5: a failed flush rolls back and keeps every delta exactly once for the next flush
+     */
+    @Test
+    void testFlush_FailureKeepsDeltasOnce() {
+        itemStatisticsService.recordAttempt("module:1", 80, Map.of(1L, true, 2L, true));
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE"), anyList())).thenReturn(new int[] { 1, 0 });
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT"), anyList()))
+                .thenThrow(new DuplicateKeyException("question_stats_pkey"));
+
+        itemStatisticsService.flush();
+
+        verify(transactionManager).rollback(any());
+        assertEquals(1L, itemStatisticsService.getQuestionStats(1L).get("attempts"));
+        assertEquals(1L, itemStatisticsService.getQuestionStats(2L).get("attempts"));
+    }
+
+    /**
+     * Test Case 6: forgetting deleted questions drops their pending deltas so a flush cannot re-create their rows
+     */
+    @Test
+    void testForget_DropsPendingDeltas() {
+        itemStatisticsService.recordAttempt("module:1", 80, Map.of(1L, true, 2L, false));
+
+        itemStatisticsService.forget(List.of(1L));
+
+        assertEquals(0L, itemStatisticsService.getQuestionStats(1L).get("attempts"));
+        assertEquals(1L, itemStatisticsService.getQuestionStats(2L).get("attempts"));
+        verify(jdbcTemplate).batchUpdate(startsWith("DELETE FROM question_stats"), anyList());
+    }
+}
@@ -0,0 +1,87 @@
+package com.itas.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultipartStreamReaderTest {
+
+    private static final String BOUNDARY = "----WebKitFormBoundary7MA4YWxkTrZu0gW";
+
+    private static byte[] body(byte[] file) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(("preamble\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"title\"\r\n\r\n"
+                + "Tax Guide 2024\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"guide.pdf\"\r\n"
+                + "Content-Type: application/pdf\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        out.write(file);
+        out.write(("\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"audience\"\r\n\r\n"
+                + "PUBLIC\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    // Hands out at most 37 bytes per read, so boundaries straddle buffer refills
+    private static InputStream trickle(byte[] content) {
+        return new ByteArrayInputStream(content) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 37));
+            }
+        };
+    }
+
+    /**
+     * Test Case 1: fields and a binary file part come back in order, byte for byte
+     */
+    @Test
+    void testNextPart_FieldsAndFile() throws IOException {
+        byte[] file = new byte[300_000];
+        new Random(3).nextBytes(file);
+        // Content that looks like the start of a delimiter must survive
+        byte[] nearMiss = ("\r\n--" + BOUNDARY.substring(0, 10)).getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(nearMiss, 0, file, 1000, nearMiss.length);
+
+        MultipartStreamReader reader = new MultipartStreamReader(trickle(body(file)), BOUNDARY);
+
+        MultipartStreamReader.Part title = reader.nextPart();
+        assertEquals("title", title.getName());
+        assertFalse(title.isFile());
+        assertEquals("Tax Guide 2024", new String(title.getBody().readAllBytes(), StandardCharsets.UTF_8));
+
+        MultipartStreamReader.Part upload = reader.nextPart();
+        assertEquals("file", upload.getName());
+        assertEquals("guide.pdf", upload.getFileName());
+        assertEquals("application/pdf", upload.getContentType());
+        assertArrayEquals(file, upload.getBody().readAllBytes());
+
+        // Left unread: skipped by the next call
+        assertEquals("audience", reader.nextPart().getName());
+        assertNull(reader.nextPart());
+    }
+
+    /**
+     * Test Case 2: a truncated body is an error, not a short file
+     */
+    @Test
+    void testNextPart_TruncatedBody() throws IOException {
+        byte[] full = body(new byte[5000]);
+        byte[] truncated = new byte[full.length / 2];
+        System.arraycopy(full, 0, truncated, 0, truncated.length);
+
+        MultipartStreamReader reader = new MultipartStreamReader(trickle(truncated), BOUNDARY);
+        reader.nextPart();
+        MultipartStreamReader.Part upload = reader.nextPart();
+
+        assertThrows(IOException.class, () -> upload.getBody().readAllBytes());
+        assertEquals(BOUNDARY, MultipartStreamReader.boundaryOf("multipart/form-data; boundary=\"" + BOUNDARY + "\""));
+    }
+}
@@ -0,0 +1,126 @@
+package com.itas.service;
+
+import com.itas.model.Question;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuestionBlockParserTest {
+
+    private final List<Question> questions = new ArrayList<>();
+    private final List<String> skipped = new ArrayList<>();
+
+    private QuestionBlockParser parser() {
+        return parser("QUIZ");
+    }
+
+    private QuestionBlockParser parser(String questionCategory) {
+        return new QuestionBlockParser(null, 3L, questionCategory, 0, new QuestionBlockParser.Listener() {
+            @Override
+            public void onQuestion(Question question) {
+                questions.add(question);
+            }
+
+            @Override
+            public void onSkipped(int blockNumber, String reason) {
+                skipped.add(blockNumber + ": " + reason);
+            }
+        });
+    }
+
+    private static int correctIndex(Question question) {
+        for (int i = 0; i < question.getAnswers().size(); i++) {
+            if (Boolean.TRUE.equals(question.getAnswers().get(i).getIsCorrect())) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Test Case 1: malformed blocks are skipped with a reason and the rest of the file is still parsed
+     */
+    @Test
+    void testParse_MalformedBlocksSkipped() {
+        QuestionBlockParser parser = parser();
+        parser.feed("Question bank for VAT\n"
+                + "Question 1: Who collects VAT?\nA) The seller\nB) The buyer\n"
+                + "Question 2: What is the VAT rate?\nA) 15%\nCorrect Answer: A\n"
+                + "Question 3:\nA) Yes\nB) No\nCorrect Answer: A\n"
+                + "Question 4: Is VAT charged on exports?\nA) Yes\nB) No\nCorrect Answer: B\n");
+        parser.finish();
+
+        assertEquals(List.of("1: Missing 'Correct Answer:' line", "2: Fewer than 2 options", "3: Missing question text"),
+                skipped);
+        assertEquals(1, questions.size());
+        assertEquals("Is VAT charged on exports?", questions.get(0).getQuestionText());
+        assertEquals(1, questions.get(0).getOrder());
+    }
+
+    /**
+     * Test Case 2: header, option and answer variants, including fields run together on one line
+     */
+    @Test
+    void testParse_OptionAndAnswerVariants() {
+        QuestionBlockParser parser = parser();
+        parser.feed("Q1) What is the standard VAT rate?\nA. 10%\nB. 15% Correct Answer: b Explanation: Set by proclamation.\n"
+                + "Points: 2\n"
+                + "Question2: Which form is filed monthly?\nType: Practice\nA) TOT return\nB) VAT return\nC) Income tax return\n"
+                + "Correct Answer: B\n");
+        parser.finish();
+
+        assertEquals(List.of(), skipped);
+        assertEquals(2, questions.size());
+
+        Question first = questions.get(0);
+        assertEquals("What is the standard VAT rate?", first.getQuestionText());
+        assertEquals(List.of("A. 10%", "B. 15%"), first.getAnswers().stream().map(a -> a.getAnswerText()).toList());
+        assertEquals(1, correctIndex(first));
+        assertEquals("Set by proclamation.", first.getExplanation());
+        assertEquals(2, first.getPoints());
+        assertEquals("QUIZ", first.getQuestionCategory());
+        assertFalse(first.getIsPractice());
+        assertEquals(3L, first.getCourseId());
+
+        Question second = questions.get(1);
+        assertEquals(3, second.getAnswers().size());
+        assertEquals(1, correctIndex(second));
+        assertEquals("PRACTICE", second.getQuestionCategory());
+        // Practice questions must stay out of quizzes and the exam bank, which filter on is_practice
+        assertTrue(second.getIsPractice());
+    }
+
+    /**
+     * Test Case 3: a question split across two page ranges, mid-line and mid-word, is parsed as one
+     */
+    @Test
+    void testParse_TextSplitAcrossChunks() {
+        QuestionBlockParser parser = parser();
+        parser.feed("Question 1: Who must register for V");
+        parser.feed("AT?\r\nA) Every business\r\nB) Businesses above the thr");
+        parser.feed("eshold\r\nCorrect Ans");
+        parser.feed("wer: B");
+        parser.finish();
+
+        assertEquals(List.of(), skipped);
+        assertEquals(1, questions.size());
+        assertEquals("Who must register for VAT?", questions.get(0).getQuestionText());
+        assertEquals("B) Businesses above the threshold", questions.get(0).getAnswers().get(1).getAnswerText());
+        assertEquals(1, correctIndex(questions.get(0)));
+    }
+
+    /**
+     * Test Case 4: a file imported as PRACTICE marks its questions as practice questions
+     */
+    @Test
+    void testParse_PracticeCategoryFlagsPractice() {
+        QuestionBlockParser parser = parser("PRACTICE");
+        parser.feed("Question 1: Who collects VAT?\nA) The seller\nB) The buyer\nCorrect Answer: A\n");
+        parser.finish();
+
+        assertEquals(1, questions.size());
+        assertEquals("PRACTICE", questions.get(0).getQuestionCategory());
+        assertTrue(questions.get(0).getIsPractice());
+    }
+}
@@ -0,0 +1,145 @@
+package com.itas.service;
+
+import com.itas.model.Answer;
+import com.itas.model.Question;
+import com.itas.model.QuestionFingerprint;
+import com.itas.repository.QuestionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuestionDedupServiceTest {
+
+    @Mock
+    private QuestionRepository questionRepository;
+
+    @InjectMocks
+    private QuestionDedupService questionDedupService;
+
+    private Question question(Long id, String text, String correctOption) {
+        Question question = new Question();
+        question.setId(id);
+        question.setQuestionText(text);
+        Answer answer = new Answer();
+        answer.setAnswerText(correctOption);
+        answer.setIsCorrect(true);
+        answer.setOrder(1);
+        answer.setQuestion(question);
+        question.getAnswers().add(answer);
+        QuestionFingerprint.apply(question);
+        return question;
+    }
+
+    private Object[] fingerprintRow(Question question) {
+        return new Object[] { question.getId(), question.getStemHash(), question.getContentHash() };
+    }
+
+    /**
+     * Test Case 1: new stems are created, edited ones updated in place, identical ones skipped
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testMerge_CreateUpdateSkip() {
+        Question unchanged = question(1L, "What is the standard VAT rate?", "15%");
+        Question edited = question(2L, "Who must register for VAT?", "Everyone");
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(fingerprintRow(unchanged));
+        rows.add(fingerprintRow(edited));
+        when(questionRepository.findFingerprintsByModuleId(5L)).thenReturn(rows);
+        when(questionRepository.findMaxOrderByModuleId(5L)).thenReturn(2);
+        when(questionRepository.findAllById(anyIterable())).thenReturn(List.of(edited));
+        when(questionRepository.save(any(Question.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ImportReport report = questionDedupService.merge(List.of(
+                question(null, "What is the standard VAT rate?", "15%"),
+                question(null, "Who must register for VAT?", "Businesses above the threshold"),
+                question(null, "When is the VAT return due?", "Monthly")), 5L, null);
+
+        assertEquals(1, report.getUnchanged());
+        assertEquals(1, report.getUpdated().size());
+        assertEquals("Businesses above the threshold", edited.getAnswers().get(0).getAnswerText());
+        ArgumentCaptor<List<Question>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(questionRepository).batchInsert(inserted.capture());
+        assertEquals(1, inserted.getValue().size());
+        assertEquals(3, inserted.getValue().get(0).getOrder());
+    }
+
+    /**
+     * Test Case 2: a question repeated within the file is imported once and reported as a duplicate
+     */
+    @Test
+    void testMerge_DuplicateWithinFile() {
+        when(questionRepository.findFingerprintsByModuleId(5L)).thenReturn(new ArrayList<>());
+        when(questionRepository.findMaxOrderByModuleId(5L)).thenReturn(0);
+
+        ImportReport report = questionDedupService.merge(List.of(
+                question(null, "When is the VAT return due?", "Monthly"),
+                question(null, "when is the VAT  return due?", "monthly")), 5L, null);
+
+        assertEquals(1, report.getCreated().size());
+        assertEquals("Monthly", report.getCreated().get(0).getAnswers().get(0).getAnswerText());
+        assertEquals(0, report.getUnchanged());
+        assertEquals(1, report.getDuplicates());
+        assertEquals(1, report.toSummary().get("duplicates"));
+    }
+
+    /**
+     * Test Case 3: an edit that turns a quiz question into a practice question updates its practice flag
+     */
+    @Test
+    void testMerge_UpdateCopiesPracticeFlag() {
+        Question existing = question(1L, "Who must register for VAT?", "Everyone");
+        existing.setIsPractice(false);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(fingerprintRow(existing));
+        when(questionRepository.findFingerprintsByModuleId(5L)).thenReturn(rows);
+        when(questionRepository.findAllById(anyIterable())).thenReturn(List.of(existing));
+        when(questionRepository.save(any(Question.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Question practice = question(null, "Who must register for VAT?", "Everyone");
+        practice.setQuestionCategory("PRACTICE");
+        practice.setIsPractice(true);
+        QuestionFingerprint.apply(practice);
+        ImportReport report = questionDedupService.merge(List.of(practice), 5L, null);
+
+        assertEquals(1, report.getUpdated().size());
+        assertEquals("PRACTICE", existing.getQuestionCategory());
+        assertTrue(existing.getIsPractice());
+    }
+
+    /**
+     * Test Case 4: questions that share a generic stem but differ in their options are separate questions
+     */
+    @Test
+    void testMerge_SharedStemDifferentAnswers() {
+        Question existing = question(1L, "Which of the following is correct?", "VAT is a consumption tax");
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(fingerprintRow(existing));
+        when(questionRepository.findFingerprintsByModuleId(5L)).thenReturn(rows);
+        when(questionRepository.findMaxOrderByModuleId(5L)).thenReturn(1);
+
+        // The new variant comes first in the file, and must not be taken as an edit of the existing one
+        ImportReport report = questionDedupService.merge(List.of(
+                question(null, "Which of the following is correct?", "TOT applies below the VAT threshold"),
+                question(null, "Which of the following is correct?", "VAT is a consumption tax")), 5L, null);
+
+        assertEquals(1, report.getUnchanged());
+        assertEquals(0, report.getUpdated().size());
+        assertEquals(0, report.getDuplicates());
+        assertEquals(1, report.getCreated().size());
+        assertEquals("TOT applies below the VAT threshold",
+                report.getCreated().get(0).getAnswers().get(0).getAnswerText());
+        verify(questionRepository, never()).save(any(Question.class));
+    }
+}
@@ -0,0 +1,131 @@
+package com.itas.service;
+
+import com.itas.model.Resource;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ResourceFacetServiceTest {
+
+    private Resource resource(long id, String category, String type, String audience) {
+        Resource resource = new Resource();
+        resource.setId(id);
+        resource.setCategory(category);
+        resource.setResourceType(type);
+        resource.setAudience(audience);
+        return resource;
+    }
+
+    /** A service whose startup scan found an empty table. */
+    private ResourceFacetService built() {
+        ResourceFacetService facets = new ResourceFacetService();
+        ReflectionTestUtils.setField(facets, "jdbcTemplate", mock(JdbcTemplate.class));
+        facets.rebuild();
+        return facets;
+    }
+
+    /**
+     * Test Case 1: each facet is narrowed by the other selections but not its own
+     */
+    @Test
+    void testFacetCounts_IgnoreOwnSelection() {
+        ResourceFacetService facets = built();
+        facets.saved(resource(1, "VAT", "GUIDE", "BUSINESS"));
+        facets.saved(resource(2, "VAT", "VIDEO", "BUSINESS"));
+        facets.saved(resource(3, "INCOME", "GUIDE", "INDIVIDUAL"));
+
+        Map<String, Map<String, Integer>> counts = facets.facetCounts("VAT", null, null);
+        assertEquals(Map.of("VAT", 2, "INCOME", 1), counts.get(ResourceFacetService.CATEGORY));
+        assertEquals(Map.of("GUIDE", 1, "VIDEO", 1), counts.get(ResourceFacetService.RESOURCE_TYPE));
+        assertEquals(Map.of("BUSINESS", 2), counts.get(ResourceFacetService.AUDIENCE));
+    }
+
+    /**
+     * Test Case 2: updates move a resource between cells; deletes and archiving remove it
+     */
+    @Test
+    void testFacetCounts_FollowUpdatesAndDeletes() {
+        ResourceFacetService facets = built();
+        facets.saved(resource(1, "VAT", "GUIDE", "BUSINESS"));
+        facets.saved(resource(2, "VAT", "VIDEO", "BUSINESS"));
+
+        facets.saved(resource(2, "CUSTOMS", "VIDEO", "BUSINESS"));
+        assertEquals(List.of("CUSTOMS", "VAT"), facets.values(ResourceFacetService.CATEGORY));
+
+        Resource archived = resource(1, "VAT", "GUIDE", "BUSINESS");
+        archived.setArchived(true);
+        facets.saved(archived);
+        facets.deleted(resource(2, "CUSTOMS", "VIDEO", "BUSINESS"));
+        assertTrue(facets.values(ResourceFacetService.CATEGORY).isEmpty());
+    }
+
+    /**
+     * Test Case 3: a delete committed while the startup scan runs is not undone by the scan
+     */
+    @Test
+    void testRebuild_ReplaysChangesCommittedDuringScan() throws Exception {
+        ResourceFacetService facets = new ResourceFacetService();
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        ReflectionTestUtils.setField(facets, "jdbcTemplate", jdbcTemplate);
+
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong("id")).thenReturn(1L);
+        when(row.getString("category")).thenReturn("VAT");
+        when(row.getString("resource_type")).thenReturn("GUIDE");
+        when(row.getString("audience")).thenReturn("BUSINESS");
+        doAnswer(invocation -> {
+            // The scan has already read resource 1 when its delete commits
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(row);
+            facets.deleted(resource(1, "VAT", "GUIDE", "BUSINESS"));
+            facets.saved(resource(2, "INCOME", "GUIDE", "INDIVIDUAL"));
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        facets.rebuild();
+
+        assertEquals(List.of("INCOME"), facets.values(ResourceFacetService.CATEGORY));
+    }
+
+    /**
+     * Test Case 4: a failed startup scan does not stop the application, and facets are read from the table meanwhile
+     */
+    @Test
+    void testRebuild_FailureFallsBackToGroupBy() throws Exception {
+        ResourceFacetService facets = new ResourceFacetService();
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        ReflectionTestUtils.setField(facets, "jdbcTemplate", jdbcTemplate);
+        doThrow(new DataAccessResourceFailureException("connection refused"))
+                .when(jdbcTemplate).query(startsWith("SELECT id,"), any(RowCallbackHandler.class));
+
+        ResultSet row = mock(ResultSet.class);
+        when(row.getString("category")).thenReturn("VAT");
+        when(row.getString("resource_type")).thenReturn("GUIDE");
+        when(row.getString("audience")).thenReturn("BUSINESS");
+        when(row.getInt("n")).thenReturn(3);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(contains("GROUP BY"), any(RowCallbackHandler.class));
+
+        assertDoesNotThrow(facets::rebuild);
+
+        assertFalse(facets.isReady());
+        assertEquals(List.of("VAT"), facets.values(ResourceFacetService.CATEGORY));
+        assertEquals(Map.of("BUSINESS", 3), facets.facetCounts(null, null, null).get(ResourceFacetService.AUDIENCE));
+    }
+}
@@ -0,0 +1,48 @@
+package com.itas.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ResourcePopularityServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final ResourcePopularityService popularity = new ResourcePopularityService(200, 360, 2880);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(popularity, "jdbcTemplate", jdbcTemplate);
+        when(jdbcTemplate.queryForList(contains("ORDER BY download_count DESC, id DESC"), eq(Long.class), anyInt()))
+                .thenReturn(List.of(10L, 11L, 12L));
+    }
+
+    /**
+     * Test Case 1: the all-time window is read from download_count, not from this node's downloads
+     */
+    @Test
+    void testTop_AllTimeFromDatabase() {
+        popularity.recordDownload(5L);
+
+        assertEquals(List.of(10L, 11L, 12L), popularity.top(ResourcePopularityService.ALL, 3));
+    }
+
+    /**
+     * Test Case 2: a decayed window ranks recent downloads first and is topped up from the all-time ranking
+     */
+    @Test
+    void testTop_DecayedWindowToppedUp() {
+        popularity.recordDownload(11L);
+        popularity.recordDownload(5L);
+        popularity.recordDownload(5L);
+
+        assertEquals(List.of(5L, 11L, 10L), popularity.top(ResourcePopularityService.WEEK, 3));
+    }
+}
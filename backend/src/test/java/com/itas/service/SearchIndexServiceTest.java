@@ -0,0 +1,58 @@
+package com.itas.service;
+
+import com.itas.model.Resource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SearchIndexServiceTest {
+
+    private Resource resource(long id, String title) {
+        Resource resource = new Resource();
+        resource.setId(id);
+        resource.setTitle(title);
+        return resource;
+    }
+
+    /**
+     * Test Case 1: a rebuild keeps serving the current index, then replays changes committed during the scan
+     */
+    @Test
+    void testRebuild_SwapsInFreshIndexAndReplaysChanges() throws Exception {
+        SearchIndexService service = new SearchIndexService();
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        service.saved(resource(1, "VAT registration guide"));
+
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong("id")).thenReturn(1L);
+        when(row.getString("title")).thenReturn("VAT registration guide");
+        // Only the resources scan, the first, returns a row
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(row);
+            // Searches still see the old index mid-scan
+            assertEquals(1, service.search("vat", null, 10).size());
+            // The scan has already read resource 1 when its delete commits
+            service.deleted(resource(1, "VAT registration guide"));
+            service.saved(resource(2, "Customs duties"));
+            return null;
+        }).doAnswer(invocation -> null)
+                .when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        service.rebuild();
+
+        assertTrue(service.isReady());
+        assertEquals(List.of(), service.search("vat", null, 10));
+        assertEquals(2L, service.search("customs", null, 10).get(0).id());
+    }
+}
@@ -0,0 +1,63 @@
+package com.itas.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+
+    private SearchIndex index() {
+        SearchIndex index = new SearchIndex();
+        index.put("RESOURCE", 1L, "VAT registration guide", null, "How to register for value added tax");
+        index.put("RESOURCE", 2L, "Customs duties", null, "Import duties and VAT collected at the border");
+        index.put("COURSE", 3L, "Income tax basics", null, "Employment income and withholding");
+        index.put("HELP", 4L, "የግብር ከፋይ መለያ ቁጥር", null, "ቲን ቁጥር እንዴት እንደሚያገኙ።");
+        return index;
+    }
+
+    /**
+     * Test Case 1: BM25 ranks title matches first and the type filter applies
+     */
+    @Test
+    void testSearch_RankingAndTypeFilter() {
+        SearchIndex index = index();
+
+        List<SearchIndex.Hit> hits = index.search("vat", null, 10);
+        assertEquals(2, hits.size());
+        assertEquals(1L, hits.get(0).id());
+
+        assertTrue(index.search("income", "RESOURCE", 10).isEmpty());
+        assertEquals(3L, index.search("income", "course", 10).get(0).id());
+    }
+
+    /**
+     * Test Case 2: The last term matches as a prefix; updates and deletes are reflected
+     */
+    @Test
+    void testSearch_PrefixAndUpdates() {
+        SearchIndex index = index();
+        assertEquals(1L, index.search("vat regis", null, 10).get(0).id());
+
+        index.put("RESOURCE", 1L, "Excise guide", null, "Excise stamps");
+        assertEquals(List.of(2L), index.search("vat", null, 10).stream().map(SearchIndex.Hit::id).toList());
+
+        index.remove("RESOURCE", 2L);
+        assertTrue(index.search("vat", null, 10).isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    /**
+     * Test Case 3: Amharic text is split on Ethiopic punctuation and alike-sounding letters match
+     */
+    @Test
+    void testSearch_Amharic() {
+        SearchIndex index = index();
+        assertEquals(4L, index.search("ግብር", null, 10).get(0).id());
+        assertEquals(4L, index.search("ቁጥር", null, 10).get(0).id());
+        // ሐ and ሀ (both "ha") are folded together
+        assertEquals(SearchIndex.tokenize("ሀገር"), SearchIndex.tokenize("ሐገር"));
+        assertEquals(List.of("እንደሚያገኙ"), SearchIndex.tokenize("እንደሚያገኙ።"));
+    }
+}
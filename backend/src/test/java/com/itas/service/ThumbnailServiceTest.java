@@ -0,0 +1,67 @@
+package com.itas.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ThumbnailServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final FileStorageService fileStorageService = mock(FileStorageService.class);
+    private final StorageBackend storageBackend = mock(StorageBackend.class);
+    private final ThumbnailService thumbnailService = new ThumbnailService(1, 10);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(thumbnailService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(thumbnailService, "fileStorageService", fileStorageService);
+        ReflectionTestUtils.setField(thumbnailService, "storageBackend", storageBackend);
+        ReflectionTestUtils.setField(thumbnailService, "sweepBatchSize", 20);
+        ReflectionTestUtils.setField(thumbnailService, "retryBackoffMinutes", 60L);
+
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", 7L);
+        row.put("file_path", "blobs/ab/abcd");
+        row.put("mime_type", "application/pdf");
+        when(jdbcTemplate.queryForList(anyString(), any(Object[].class))).thenReturn(List.of(row));
+        when(fileStorageService.storageKey("blobs/ab/abcd")).thenReturn("blobs/ab/abcd");
+        when(storageBackend.stat(anyString())).thenThrow(new IOException("store unavailable"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        thumbnailService.shutdown();
+    }
+
+    /**
+     * Test Case 1: a resource that failed to render is skipped by the sweep until its backoff has passed
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSweep_RetriesFailedResourceAfterBackoff() throws IOException {
+        Map<Long, Long> failed = (Map<Long, Long>) ReflectionTestUtils.getField(thumbnailService, "failed");
+        thumbnailService.sweep();
+        verify(storageBackend, timeout(5000)).stat("blobs/ab/abcd.thumb.png");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!failed.containsKey(7L) && System.currentTimeMillis() < deadline) Thread.onSpinWait();
+        assertTrue(failed.containsKey(7L));
+
+        thumbnailService.sweep();
+        verify(storageBackend, after(200).times(1)).stat(anyString());
+
+        failed.put(7L, System.currentTimeMillis() - 1);
+        thumbnailService.sweep();
+        verify(storageBackend, timeout(5000).times(2)).stat(anyString());
+    }
+}
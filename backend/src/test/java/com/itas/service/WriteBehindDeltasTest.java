@@ -0,0 +1,54 @@
+package com.itas.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindDeltasTest {
+
+    private final WriteBehindDeltas<LongAdder> deltas = new WriteBehindDeltas<>("Test", LongAdder::new, (newer, failed) -> {
+        newer.add(failed.sum());
+        return newer;
+    });
+
+    private Map<Long, Long> flush() {
+        Map<Long, Long> written = new HashMap<>();
+        deltas.flush(batch -> batch.forEach((id, adder) -> written.put(id, adder.sum())));
+        return written;
+    }
+
+    /**
+     * Test Case 1: a flush writes each id once and keeps no entry for it afterwards
+     */
+    @Test
+    void testFlush_RemovesFlushedIds() {
+        deltas.add(1L, LongAdder::increment);
+        deltas.add(1L, LongAdder::increment);
+        deltas.add(2L, LongAdder::increment);
+
+        assertEquals(Map.of(1L, 2L, 2L, 1L), flush());
+        assertNull(deltas.get(1L));
+        assertNull(deltas.get(2L));
+        assertEquals(Map.of(), flush());
+    }
+
+    /**
+     * Test Case 2: a failed flush merges its deltas with the ones recorded since
+     */
+    @Test
+    void testFlush_FailureMergesDeltasBack() {
+        deltas.add(1L, LongAdder::increment);
+
+        deltas.flush(batch -> {
+            deltas.add(1L, LongAdder::increment);
+            throw new IllegalStateException("database unavailable");
+        });
+
+        assertEquals(2L, deltas.get(1L).sum());
+        assertEquals(Map.of(1L, 2L), flush());
+    }
+}